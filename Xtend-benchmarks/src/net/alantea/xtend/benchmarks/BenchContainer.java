@@ -0,0 +1,13 @@
+package net.alantea.xtend.benchmarks;
+
+import net.alantea.xtend.IExtension;
+
+/**
+ * Base interface of the benchmark container extension.
+ *
+ * @author Alantea
+ *
+ */
+public interface BenchContainer extends IExtension
+{
+}
@@ -0,0 +1,18 @@
+package net.alantea.xtend.benchmarks;
+
+/**
+ * Base interface of the generated implementors.
+ *
+ * @author Alantea
+ *
+ */
+public interface BenchService
+{
+
+   /**
+    * Gets a value.
+    *
+    * @return the value
+    */
+   int value();
+}
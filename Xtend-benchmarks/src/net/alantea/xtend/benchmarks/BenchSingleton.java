@@ -0,0 +1,18 @@
+package net.alantea.xtend.benchmarks;
+
+/**
+ * Base interface with a single generated implementation, for named instances.
+ *
+ * @author Alantea
+ *
+ */
+public interface BenchSingleton
+{
+
+   /**
+    * Gets a value.
+    *
+    * @return the value
+    */
+   int value();
+}
@@ -0,0 +1,49 @@
+package net.alantea.xtend.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Container extension receiving all the BenchService implementations.
+ *
+ * @author Alantea
+ *
+ */
+public class ServiceContainer implements BenchContainer
+{
+
+   /** The implementations. */
+   private List<Object> implementations = new ArrayList<>();
+
+   /**
+    * Gets the extended interface.
+    *
+    * @return the extended interface
+    */
+   @Override
+   public Class<?> getExtendedInterface()
+   {
+      return BenchService.class;
+   }
+
+   /**
+    * Adds an implementation.
+    *
+    * @param object the implementation
+    */
+   @Override
+   public void addImplementation(Object object)
+   {
+      implementations.add(object);
+   }
+
+   /**
+    * Gets the implementations count.
+    *
+    * @return the count
+    */
+   public int size()
+   {
+      return implementations.size();
+   }
+}
@@ -0,0 +1,178 @@
+package net.alantea.xtend.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Generator of synthetic class path jars : N jars holding M classes in all, K of them implementing
+ * BenchService, spread over the jars. The other classes implement an unrelated interface, so that
+ * the discovery has something to walk through. The first jar also holds the single BenchSingleton
+ * implementation. The jars have no extension index, so they are scanned.
+ *
+ * The jars are generated at build time, in target/synthetic, and must be put on the class path of
+ * the benchmarks : the class path of a JVM cannot change once it is started.
+ *
+ * @author Alantea
+ *
+ */
+final class SyntheticClasspath
+{
+
+   /** The generated classes package. */
+   static final String PACKAGE = "net.alantea.xtend.benchmarks.generated";
+
+   /** Private singleton constructor. */
+   private SyntheticClasspath()
+   {
+   }
+
+   /**
+    * Generate the jars.
+    *
+    * @param args the directory to write the jars in, then optionally the number of jars, the total
+    *           number of classes and the number of BenchService implementors (10, 1000 and 20 by
+    *           default)
+    * @throws IOException if the generation failed
+    */
+   public static void main(String[] args) throws IOException
+   {
+      File directory = new File(args[0]);
+      int jars = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+      int classes = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+      int implementors = (args.length > 3) ? Integer.parseInt(args[3]) : 20;
+      Files.createDirectories(directory.toPath());
+      generate(directory, jars, classes, implementors);
+   }
+
+   /**
+    * Generate the jars. Classes are compiled with the system Java compiler, against the current
+    * class path.
+    *
+    * @param directory the directory to write the jars in
+    * @param jars the number of jars
+    * @param classes the total number of classes
+    * @param implementors the number of BenchService implementors among them
+    * @throws IOException if the generation failed
+    */
+   static void generate(File directory, int jars, int classes, int implementors) throws IOException
+   {
+      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      if (compiler == null)
+      {
+         throw new IOException("a JDK is needed to generate the benchmark classes");
+      }
+
+      for (int jar = 0; jar < jars; jar++)
+      {
+         Path work = Files.createTempDirectory("xtend-bench-src");
+         try
+         {
+            String packageName = PACKAGE + ".j" + jar;
+            File sources = new File(work.toFile(), packageName.replace('.', File.separatorChar));
+            File output = new File(work.toFile(), "classes");
+            Files.createDirectories(sources.toPath());
+            Files.createDirectories(output.toPath());
+
+            List<String> arguments = new ArrayList<>();
+            arguments.add("-proc:none");
+            arguments.add("-classpath");
+            arguments.add(System.getProperty("java.class.path"));
+            arguments.add("-d");
+            arguments.add(output.getAbsolutePath());
+
+            // classes are dealt to the jars one after the other, implementors first
+            for (int index = jar; index < classes; index += jars)
+            {
+               String name = "C" + index;
+               String base = (index < implementors) ? BenchService.class.getName() : Runnable.class.getName();
+               String method = (index < implementors) ? "public int value() { return " + index + "; }"
+                     : "public void run() { }";
+               arguments.add(write(sources, packageName, name,
+                     "public class " + name + " implements " + base + " { " + method + " }"));
+            }
+            if (jar == 0)
+            {
+               arguments.add(write(sources, packageName, "Singleton", "public class Singleton implements "
+                     + BenchSingleton.class.getName() + " { public int value() { return -1; } }"));
+            }
+
+            if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0)
+            {
+               throw new IOException("unable to compile " + packageName);
+            }
+            writeJar(output.toPath(), new File(directory, "synthetic" + jar + ".jar"));
+         }
+         finally
+         {
+            delete(work);
+         }
+      }
+   }
+
+   /**
+    * Write a source file.
+    *
+    * @param directory the package directory
+    * @param packageName the package name
+    * @param name the class simple name
+    * @param body the class declaration
+    * @return the source path
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private static String write(File directory, String packageName, String name, String body) throws IOException
+   {
+      File file = new File(directory, name + ".java");
+      Files.write(file.toPath(), ("package " + packageName + ";\n" + body + "\n").getBytes(StandardCharsets.UTF_8));
+      return file.getAbsolutePath();
+   }
+
+   /**
+    * Write a jar with the content of a classes directory.
+    *
+    * @param classes the classes directory
+    * @param jar the jar file
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private static void writeJar(Path classes, File jar) throws IOException
+   {
+      try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()));
+            Stream<Path> paths = Files.walk(classes))
+      {
+         for (Path path : (Iterable<Path>) paths::iterator)
+         {
+            if (Files.isRegularFile(path))
+            {
+               out.putNextEntry(new JarEntry(classes.relativize(path).toString().replace(File.separatorChar, '/')));
+               Files.copy(path, out);
+               out.closeEntry();
+            }
+         }
+      }
+   }
+
+   /**
+    * Delete a directory and its content.
+    *
+    * @param directory the directory
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private static void delete(Path directory) throws IOException
+   {
+      try (Stream<Path> paths = Files.walk(directory))
+      {
+         paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+   }
+}
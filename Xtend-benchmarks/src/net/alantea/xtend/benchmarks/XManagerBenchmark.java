@@ -0,0 +1,256 @@
+package net.alantea.xtend.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.alantea.xtend.XFilter;
+import net.alantea.xtend.XManager;
+import net.alantea.xtend.Xception;
+
+/**
+ * Benchmarks of the XManager hot paths, against generated jars on the class path (see
+ * SyntheticClasspath). "warm" benchmarks measure calls answered from the resolution cache, and
+ * "contended" ones the same calls from 8 threads at the same time. "cold" benchmarks measure the
+ * first call in a fresh JVM : each fork makes a single call, so nothing has been scanned, loaded
+ * or compiled before. "rescan" measures a whole class path scan in a warm JVM, the scan results
+ * being dropped before each iteration.
+ *
+ * @author Alantea
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XManagerBenchmark
+{
+
+   /** The discovery filter, limited to the benchmark classes. */
+   private static final XFilter FILTER = XFilter.packages(BenchService.class.getPackage().getName());
+
+   /** The name of a generated implementation class. */
+   private static final String IMPLEMENTATION = SyntheticClasspath.PACKAGE + ".j0.C0";
+
+   /**
+    * Check that the generated jars are on the class path, and limit the discovery to the
+    * benchmark classes. Nothing is discovered nor loaded here, so that cold benchmarks stay cold.
+    */
+   @Setup(Level.Trial)
+   public void setUp()
+   {
+      if (ClassLoader.getSystemResource(IMPLEMENTATION.replace('.', '/') + ".class") == null)
+      {
+         throw new IllegalStateException("the generated jars are not on the class path : run "
+               + "java -cp \"target/benchmarks.jar:target/synthetic/*\" org.openjdk.jmh.Main");
+      }
+      XManager.setDiscoveryFilter(FILTER);
+   }
+
+   /**
+    * State holding an implementation class, for specific extension loads.
+    */
+   @State(Scope.Benchmark)
+   public static class Specific
+   {
+
+      /** The implementation class. */
+      private Class<?> implementation;
+
+      /**
+       * Load the implementation class.
+       *
+       * @throws ClassNotFoundException if the generated jars are not on the class path
+       */
+      @Setup(Level.Trial)
+      public void load() throws ClassNotFoundException
+      {
+         implementation = Class.forName(IMPLEMENTATION);
+      }
+   }
+
+   /**
+    * State dropping the scan results before each rescan iteration.
+    */
+   @State(Scope.Thread)
+   public static class Rescan
+   {
+
+      /**
+       * Drop the scan results and the resolution cache : setting the discovery filter again makes
+       * the next call scan the class path entries again.
+       */
+      @Setup(Level.Iteration)
+      public void reset()
+      {
+         XManager.setDiscoveryFilter(FILTER);
+      }
+   }
+
+   /**
+    * Load all the implementations, from the cache.
+    *
+    * @return the implementations
+    * @throws Xception the xception
+    */
+   @Benchmark
+   public List<Object> warmLoadAbstractExtensions() throws Xception
+   {
+      return XManager.loadAbstractExtensions(BenchService.class, false);
+   }
+
+   /**
+    * Load all the implementations in a fresh JVM.
+    *
+    * @return the implementations
+    * @throws Xception the xception
+    */
+   @Benchmark
+   @BenchmarkMode(Mode.SingleShotTime)
+   @OutputTimeUnit(TimeUnit.MILLISECONDS)
+   @Warmup(iterations = 0)
+   @Measurement(iterations = 1)
+   @Fork(20)
+   public List<Object> coldLoadAbstractExtensions() throws Xception
+   {
+      return XManager.loadAbstractExtensions(BenchService.class, false);
+   }
+
+   /**
+    * Load the container and its implementations, from the cache.
+    *
+    * @return the container
+    * @throws Xception the xception
+    */
+   @Benchmark
+   public Object warmLoadContainerExtension() throws Xception
+   {
+      return XManager.loadContainerExtension(BenchContainer.class, false);
+   }
+
+   /**
+    * Load the container and its implementations in a fresh JVM.
+    *
+    * @return the container
+    * @throws Xception the xception
+    */
+   @Benchmark
+   @BenchmarkMode(Mode.SingleShotTime)
+   @OutputTimeUnit(TimeUnit.MILLISECONDS)
+   @Warmup(iterations = 0)
+   @Measurement(iterations = 1)
+   @Fork(20)
+   public Object coldLoadContainerExtension() throws Xception
+   {
+      return XManager.loadContainerExtension(BenchContainer.class, false);
+   }
+
+   /**
+    * Scan the class path again, then load all the implementations.
+    *
+    * @param rescan the rescan state
+    * @return the implementations
+    * @throws Xception the xception
+    */
+   @Benchmark
+   @BenchmarkMode(Mode.SingleShotTime)
+   @OutputTimeUnit(TimeUnit.MILLISECONDS)
+   @Warmup(iterations = 5)
+   @Measurement(iterations = 20)
+   public List<Object> rescan(Rescan rescan) throws Xception
+   {
+      return XManager.loadAbstractExtensions(BenchService.class, false);
+   }
+
+   /**
+    * Load a specific implementation.
+    *
+    * @param specific the implementation state
+    * @return the implementation
+    * @throws Xception the xception
+    */
+   @Benchmark
+   public Object loadSpecificAbstractExtension(Specific specific) throws Xception
+   {
+      return XManager.loadSpecificAbstractExtension(specific.implementation, false);
+   }
+
+   /**
+    * Get the named instance, created on first call.
+    *
+    * @return the instance
+    * @throws Xception the xception
+    */
+   @Benchmark
+   public Object loadInstance() throws Xception
+   {
+      return XManager.loadInstance("bench", BenchSingleton.class);
+   }
+
+   /**
+    * Load all the implementations from 8 threads.
+    *
+    * @return the implementations
+    * @throws Xception the xception
+    */
+   @Benchmark
+   @Threads(8)
+   public List<Object> contendedLoadAbstractExtensions() throws Xception
+   {
+      return XManager.loadAbstractExtensions(BenchService.class, false);
+   }
+
+   /**
+    * Load the container from 8 threads.
+    *
+    * @return the container
+    * @throws Xception the xception
+    */
+   @Benchmark
+   @Threads(8)
+   public Object contendedLoadContainerExtension() throws Xception
+   {
+      return XManager.loadContainerExtension(BenchContainer.class, false);
+   }
+
+   /**
+    * Load a specific implementation from 8 threads.
+    *
+    * @param specific the implementation state
+    * @return the implementation
+    * @throws Xception the xception
+    */
+   @Benchmark
+   @Threads(8)
+   public Object contendedLoadSpecificAbstractExtension(Specific specific) throws Xception
+   {
+      return XManager.loadSpecificAbstractExtension(specific.implementation, false);
+   }
+
+   /**
+    * Get the named instance from 8 threads.
+    *
+    * @return the instance
+    * @throws Xception the xception
+    */
+   @Benchmark
+   @Threads(8)
+   public Object contendedLoadInstance() throws Xception
+   {
+      return XManager.loadInstance("bench", BenchSingleton.class);
+   }
+}
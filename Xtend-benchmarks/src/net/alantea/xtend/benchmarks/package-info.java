@@ -0,0 +1,7 @@
+/**
+ * This package contains the JMH benchmarks of XManager, run against generated class path jars.
+ * 
+ * @author Alantea
+ *
+ */
+package net.alantea.xtend.benchmarks;
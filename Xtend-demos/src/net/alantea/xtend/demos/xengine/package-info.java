@@ -1,7 +1,7 @@
-/**
- * This package contains some tests and demonstrations for XEngine.
- * 
- * @author Jean Rbillat
- *
- */
+/**
+ * This package contains some tests and demonstrations for XEngine.
+ * 
+ * @author Jean Rbillat
+ *
+ */
 package net.alantea.xtend.demos.xengine;
\ No newline at end of file
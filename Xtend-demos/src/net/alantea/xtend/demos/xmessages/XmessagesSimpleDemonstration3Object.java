@@ -1,6 +1,6 @@
-package net.alantea.xtend.demos.xmessages;
-
-public class XmessagesSimpleDemonstration3Object
-{
-
-}
+package net.alantea.xtend.demos.xmessages;
+
+public class XmessagesSimpleDemonstration3Object
+{
+
+}
@@ -1,7 +1,7 @@
-/**
- * This package contains some tests and demonstrations for XMessages.
- * 
- * @author Jean Rbillat
- *
- */
+/**
+ * This package contains some tests and demonstrations for XMessages.
+ * 
+ * @author Jean Rbillat
+ *
+ */
 package net.alantea.xtend.demos.xmessages;
\ No newline at end of file
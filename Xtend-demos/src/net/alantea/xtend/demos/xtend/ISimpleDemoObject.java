@@ -1,15 +1,15 @@
-package net.alantea.xtend.demos.xtend;
-
-/**
- * The Interface ISimpleDemoObject, used in XManagerSimpleDemo.
- */
-public interface ISimpleDemoObject
-{
-   
-   /**
-    * Ask for a string.
-    *
-    * @return the string
-    */
-   public String askMe();
-}
+package net.alantea.xtend.demos.xtend;
+
+/**
+ * The Interface ISimpleDemoObject, used in XManagerSimpleDemo.
+ */
+public interface ISimpleDemoObject
+{
+   
+   /**
+    * Ask for a string.
+    *
+    * @return the string
+    */
+   public String askMe();
+}
@@ -1,12 +1,12 @@
-package net.alantea.xtend.demos.xtend;
-
-public class SimpleDemoObject1 implements ISimpleDemoObject
-{
-
-   @Override
-   public String askMe()
-   {
-      return "I am the first !";
-   }
-
-}
+package net.alantea.xtend.demos.xtend;
+
+public class SimpleDemoObject1 implements ISimpleDemoObject
+{
+
+   @Override
+   public String askMe()
+   {
+      return "I am the first !";
+   }
+
+}
@@ -1,12 +1,12 @@
-package net.alantea.xtend.demos.xtend;
-
-public class SimpleDemoObject2 implements ISimpleDemoObject
-{
-
-   @Override
-   public String askMe()
-   {
-      return "I am second, for the moment...";
-   }
-
-}
+package net.alantea.xtend.demos.xtend;
+
+public class SimpleDemoObject2 implements ISimpleDemoObject
+{
+
+   @Override
+   public String askMe()
+   {
+      return "I am second, for the moment...";
+   }
+
+}
@@ -0,0 +1,80 @@
+package net.alantea.xtend;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder events of the XManager phases. This is the only class referencing the jdk.jfr
+ * API : it lives in the src-jfr source directory, compiled for Java 11 while the rest of the
+ * library is compiled for Java 8, and XMetrics loads it by name only when the API is available.
+ *
+ * @author Alantea
+ *
+ */
+final class XFlightRecorder implements XMetrics.Recorder
+{
+
+   /** Instantiates a new flight recorder. Called reflectively by XMetrics. */
+   XFlightRecorder()
+   {
+   }
+
+   /**
+    * The phase event.
+    */
+   @Name("net.alantea.xtend.Phase")
+   @Label("Xtend Phase")
+   @Category("Xtend")
+   @Description("A discovery or instantiation phase of XManager")
+   static final class PhaseEvent extends Event
+   {
+
+      /** The phase. */
+      @Label("Phase")
+      String phase;
+
+      /** The class the phase ran for. */
+      @Label("Class")
+      String className;
+   }
+
+   /**
+    * Begin an event, if the event type is enabled in a recording.
+    *
+    * @return the event, or null if not recorded
+    */
+   @Override
+   public Object begin()
+   {
+      PhaseEvent event = new PhaseEvent();
+      if (!event.isEnabled())
+      {
+         return null;
+      }
+      event.begin();
+      return event;
+   }
+
+   /**
+    * End and commit an event.
+    *
+    * @param object the event returned by begin
+    * @param phase the phase name
+    * @param className the class name
+    */
+   @Override
+   public void commit(Object object, String phase, String className)
+   {
+      PhaseEvent event = (PhaseEvent) object;
+      event.end();
+      if (event.shouldCommit())
+      {
+         event.phase = phase;
+         event.className = className;
+         event.commit();
+      }
+   }
+}
@@ -1,7 +1,7 @@
-/**
- * This package contains a mechanism to manage javascript dynamic calls in Java.
- * 
- * @author Jean Rbillat
- *
- */
+/**
+ * This package contains a mechanism to manage javascript dynamic calls in Java.
+ * 
+ * @author Jean Rbillat
+ *
+ */
 package net.alantea.xengine;
\ No newline at end of file
@@ -0,0 +1,295 @@
+package net.alantea.xmessages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.TreeMap;
+
+import net.alantea.xmessages.XMessages.XMessagesKey;
+
+/**
+ * Immutable snapshot of the registered bundles, with the merged key index built from them. A new
+ * snapshot is created for each update and published as a whole, so readers see the bundles and
+ * the index of the same update, without locking. The snapshot holds the bundles of the default
+ * locale, and builds the catalogs of the other locales (the same bundles, loaded for them) on
+ * first use. At most "xtend.messages.locales" catalogs (16 by default) are kept, the least
+ * recently used one being dropped first. The catalogs are carried over to the next snapshot,
+ * extended with the bundles added to it.
+ *
+ * @author Alantea
+ *
+ */
+final class XBundleRegistry
+{
+
+   /** The maximum number of catalogs kept for other locales. */
+   private static final int MAX_LOCALES = Math.max(1, Integer.getInteger("xtend.messages.locales", 16));
+
+   /** The locale. */
+   private Locale locale;
+
+   /** The bundles, in priority order. */
+   private Map<XMessagesKey, ResourceBundle> bundles;
+
+   /** The bundles, by name. */
+   private Map<String, ResourceBundle> names = new HashMap<>();
+
+   /** The merged values of all the bundles, by key, resolved by level. */
+   private Map<String, XMessageTemplate> index;
+
+   /** The bundle each value of the index comes from, by key. */
+   private Map<String, XMessagesKey> owners;
+
+   /** The catalogs of the other locales, least recently used first. Guarded by itself. */
+   private Map<Locale, XBundleRegistry> catalogs = newCatalogs();
+
+   /**
+    * Instantiates a new registry.
+    *
+    * @param locale the locale of the bundles
+    * @param bundles the bundles, not shared
+    * @param index the merged values, not shared
+    * @param owners the bundle of each merged value, not shared
+    */
+   private XBundleRegistry(Locale locale, TreeMap<XMessagesKey, ResourceBundle> bundles,
+         Map<String, XMessageTemplate> index, Map<String, XMessagesKey> owners)
+   {
+      this.locale = locale;
+      this.bundles = Collections.unmodifiableMap(bundles);
+      for (Map.Entry<XMessagesKey, ResourceBundle> entry : bundles.entrySet())
+      {
+         names.putIfAbsent(entry.getKey().name, entry.getValue());
+      }
+      this.index = Collections.unmodifiableMap(index);
+      this.owners = owners;
+   }
+
+   /**
+    * Create the catalogs map : in access order, and bounded to MAX_LOCALES catalogs.
+    *
+    * @return the map
+    */
+   private static Map<Locale, XBundleRegistry> newCatalogs()
+   {
+      return new LinkedHashMap<Locale, XBundleRegistry>(16, 0.75f, true)
+      {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Locale, XBundleRegistry> eldest)
+         {
+            return size() > MAX_LOCALES;
+         }
+      };
+   }
+
+   /**
+    * Create an empty registry.
+    *
+    * @param locale the default locale
+    * @return the registry
+    */
+   static XBundleRegistry empty(Locale locale)
+   {
+      return new XBundleRegistry(locale, new TreeMap<XMessagesKey, ResourceBundle>(),
+            new HashMap<String, XMessageTemplate>(), new HashMap<String, XMessagesKey>());
+   }
+
+   /**
+    * Create a registry with more bundles. Bundles whose name is already registered are ignored.
+    * The index is not built again : it is copied, and only the keys of the added bundles are
+    * merged into it. The catalogs of the other locales are carried over the same way, with the
+    * added bundles loaded for their locale.
+    *
+    * @param added the bundles to add
+    * @return the new registry, or this one if nothing was added
+    */
+   XBundleRegistry with(Map<XMessagesKey, ResourceBundle> added)
+   {
+      TreeMap<XMessagesKey, ResourceBundle> copy = null;
+      Map<String, XMessageTemplate> values = null;
+      Map<String, XMessagesKey> sources = null;
+      for (Map.Entry<XMessagesKey, ResourceBundle> entry : added.entrySet())
+      {
+         if (!names.containsKey(entry.getKey().name))
+         {
+            if (copy == null)
+            {
+               copy = new TreeMap<>(bundles);
+               values = new HashMap<>(index);
+               sources = new HashMap<>(owners);
+            }
+            copy.put(entry.getKey(), entry.getValue());
+            merge(values, sources, entry.getKey(), entry.getValue(), index);
+         }
+      }
+      if (copy == null)
+      {
+         return this;
+      }
+
+      XBundleRegistry ret = new XBundleRegistry(locale, copy, values, sources);
+      List<XBundleRegistry> previous;
+      synchronized (catalogs)
+      {
+         previous = new ArrayList<>(catalogs.values());
+      }
+      for (XBundleRegistry catalog : previous)
+      {
+         Map<XMessagesKey, ResourceBundle> localized = new HashMap<>();
+         for (XMessagesKey key : added.keySet())
+         {
+            ResourceBundle bundle = XMessages.loadBundle(key.name, catalog.locale);
+            if (bundle != null)
+            {
+               localized.put(key, bundle);
+            }
+         }
+         ret.catalogs.put(catalog.locale, catalog.with(localized));
+      }
+      return ret;
+   }
+
+   /**
+    * Merge the values of a bundle into an index. A value replaces the one of a key if it comes
+    * from a bundle of higher priority, i.e. the first bundle having a key wins whatever the order
+    * in which bundles are merged.
+    *
+    * @param values the merged values
+    * @param sources the bundle of each merged value
+    * @param key the bundle key
+    * @param bundle the bundle
+    * @param previous the index whose templates are reused
+    */
+   private static void merge(Map<String, XMessageTemplate> values, Map<String, XMessagesKey> sources,
+         XMessagesKey key, ResourceBundle bundle, Map<String, XMessageTemplate> previous)
+   {
+      for (String name : bundle.keySet())
+      {
+         XMessagesKey source = sources.get(name);
+         if ((source != null) && (source.compareTo(key) <= 0))
+         {
+            continue;
+         }
+         Object value = bundle.getObject(name);
+         // a value equal to its key is not a translation, lower bundles may have one
+         if ((value instanceof String) && (!value.equals(name)))
+         {
+            XMessageTemplate template = previous.get(name);
+            if ((template == null) || (!template.getValue().equals(value)))
+            {
+               template = new XMessageTemplate((String) value);
+            }
+            values.put(name, template);
+            sources.put(name, key);
+         }
+      }
+   }
+
+   /**
+    * Gets the catalog of a locale : the registered bundles, loaded for this locale. The bundle
+    * candidates (from the most specific locale to the base bundle) are searched when the catalog is
+    * built, so lookups in it are single hash probes. A bundle missing for the locale is left out.
+    *
+    * @param requested the locale
+    * @return the catalog, this registry for its own locale
+    */
+   XBundleRegistry forLocale(Locale requested)
+   {
+      if (requested.equals(locale))
+      {
+         return this;
+      }
+      XBundleRegistry ret;
+      synchronized (catalogs)
+      {
+         ret = catalogs.get(requested);
+      }
+      if (ret == null)
+      {
+         TreeMap<XMessagesKey, ResourceBundle> localized = new TreeMap<>();
+         Map<String, XMessageTemplate> values = new HashMap<>();
+         Map<String, XMessagesKey> sources = new HashMap<>();
+         for (XMessagesKey key : bundles.keySet())
+         {
+            ResourceBundle bundle = XMessages.loadBundle(key.name, requested);
+            if (bundle != null)
+            {
+               localized.put(key, bundle);
+               merge(values, sources, key, bundle, index);
+            }
+         }
+         ret = new XBundleRegistry(requested, localized, values, sources);
+
+         // built out of the lock : another thread may have built it meanwhile
+         synchronized (catalogs)
+         {
+            XBundleRegistry other = catalogs.putIfAbsent(requested, ret);
+            if (other != null)
+            {
+               ret = other;
+            }
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Gets a registered bundle.
+    *
+    * @param name the bundle name
+    * @return the bundle, null if not registered
+    */
+   ResourceBundle getBundle(String name)
+   {
+      return names.get(name);
+   }
+
+   /**
+    * Gets the template of a key.
+    *
+    * @param key the key
+    * @return the template, null if no bundle has the key
+    */
+   XMessageTemplate getTemplate(String key)
+   {
+      return index.get(key);
+   }
+
+   /**
+    * Gets the value of a key.
+    *
+    * @param key the key
+    * @return the value, or the key itself if no bundle has it
+    */
+   String getValue(String key)
+   {
+      XMessageTemplate template = index.get(key);
+      return (template == null) ? key : template.getValue();
+   }
+
+   /**
+    * Gets the locale.
+    *
+    * @return the locale of the bundles
+    */
+   Locale getLocale()
+   {
+      return locale;
+   }
+
+   /**
+    * Gets the number of registered bundles.
+    *
+    * @return the number of bundles
+    */
+   int size()
+   {
+      return bundles.size();
+   }
+}
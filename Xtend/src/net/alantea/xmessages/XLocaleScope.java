@@ -0,0 +1,36 @@
+package net.alantea.xmessages;
+
+import java.util.Locale;
+
+/**
+ * Scope of a thread locale, given by XMessages.withLocale. Closing it restores the locale the
+ * thread had before, so scopes may be nested. A scope must be closed by the thread that opened it.
+ *
+ * @author Alantea
+ *
+ */
+public final class XLocaleScope implements AutoCloseable
+{
+
+   /** The previous locale, null for the default one. */
+   private Locale previous;
+
+   /**
+    * Instantiates a new scope.
+    *
+    * @param previous the previous locale
+    */
+   XLocaleScope(Locale previous)
+   {
+      this.previous = previous;
+   }
+
+   /**
+    * Restore the previous locale.
+    */
+   @Override
+   public void close()
+   {
+      XMessages.setThreadLocale(previous);
+   }
+}
@@ -0,0 +1,262 @@
+package net.alantea.xmessages;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message value, parsed once into literal parts and placeholders. "[n]" placeholders are replaced
+ * by the n-th argument, "{n}" ones by the message whose key is the n-th argument (n starting at 1).
+ * Placeholders without matching argument are kept as they are. Templates are immutable.
+ *
+ * @author Alantea
+ *
+ */
+final class XMessageTemplate
+{
+
+   /** The value. */
+   private String value;
+
+   /** The literal parts, one more than the placeholders. */
+   private String[] literals;
+
+   /** The argument index of each placeholder, starting at 0. */
+   private int[] indexes;
+
+   /** The keyed flag of each placeholder : true for "{n}", false for "[n]". */
+   private boolean[] keyed;
+
+   /** The total length of the literal parts. */
+   private int literalLength;
+
+   /**
+    * Parse a message value.
+    *
+    * @param value the value
+    */
+   XMessageTemplate(String value)
+   {
+      this.value = value;
+      List<String> literalList = new ArrayList<>();
+      List<Integer> indexList = new ArrayList<>();
+      List<Boolean> keyedList = new ArrayList<>();
+
+      int start = 0;
+      int length = value.length();
+      for (int i = 0; i < length; i++)
+      {
+         char c = value.charAt(i);
+         char close = (c == '[') ? ']' : ((c == '{') ? '}' : 0);
+         if (close == 0)
+         {
+            continue;
+         }
+         // digits, not starting with 0, then the closing character
+         int end = i + 1;
+         long index = 0;
+         while ((end < length) && (Character.isDigit(value.charAt(end))) && (index <= Integer.MAX_VALUE))
+         {
+            index = index * 10 + (value.charAt(end) - '0');
+            end++;
+         }
+         if ((end > i + 1) && (end < length) && (value.charAt(end) == close) && (value.charAt(i + 1) != '0')
+               && (index <= Integer.MAX_VALUE))
+         {
+            literalList.add(value.substring(start, i));
+            indexList.add((int) index - 1);
+            keyedList.add(c == '{');
+            start = end + 1;
+            i = end;
+         }
+      }
+      literalList.add(value.substring(start));
+
+      literals = literalList.toArray(new String[literalList.size()]);
+      indexes = new int[indexList.size()];
+      keyed = new boolean[keyedList.size()];
+      for (int i = 0; i < indexes.length; i++)
+      {
+         indexes[i] = indexList.get(i);
+         keyed[i] = keyedList.get(i);
+      }
+      for (String literal : literals)
+      {
+         literalLength += literal.length();
+      }
+   }
+
+   /**
+    * Gets the value.
+    *
+    * @return the value
+    */
+   String getValue()
+   {
+      return value;
+   }
+
+   /**
+    * Checks for placeholders.
+    *
+    * @return true, if the value has placeholders
+    */
+   boolean hasPlaceholders()
+   {
+      return indexes.length > 0;
+   }
+
+   /**
+    * Format the value with arguments, in a single pass.
+    *
+    * @param catalog the catalog where keyed arguments are searched
+    * @param args the arguments, a null one being written 'null'
+    * @return the formatted message
+    */
+   String format(XBundleRegistry catalog, String... args)
+   {
+      if ((indexes.length == 0) || (args.length == 0))
+      {
+         return value;
+      }
+      int size = literalLength;
+      for (String arg : args)
+      {
+         size += (arg == null) ? 6 : arg.length();
+      }
+      StringBuilder ret = new StringBuilder(size);
+      ret.append(literals[0]);
+      for (int i = 0; i < indexes.length; i++)
+      {
+         int index = indexes[i];
+         if (index >= args.length)
+         {
+            ret.append(getPlaceholder(i));
+         }
+         else
+         {
+            String arg = (args[index] == null) ? "'null'" : args[index];
+            ret.append(keyed[i] ? catalog.getValue(arg) : arg);
+         }
+         ret.append(literals[i + 1]);
+      }
+      return ret.toString();
+   }
+
+   /**
+    * Append the value formatted with up to 4 arguments, without intermediate string. Arguments
+    * flagged as numeric are taken from the long values, the first two arguments only may be
+    * numeric.
+    *
+    * @param catalog the catalog where keyed arguments are searched
+    * @param out where to append
+    * @param count the number of arguments
+    * @param numeric the numeric flags, bit 0 for the first argument
+    * @param arg1 the first argument, if not numeric
+    * @param arg2 the second argument, if not numeric
+    * @param arg3 the third argument
+    * @param arg4 the fourth argument
+    * @param number1 the first argument, if numeric
+    * @param number2 the second argument, if numeric
+    * @throws IOException if the append failed
+    */
+   void appendTo(XBundleRegistry catalog, Appendable out, int count, int numeric, CharSequence arg1,
+         CharSequence arg2, CharSequence arg3, CharSequence arg4, long number1, long number2) throws IOException
+   {
+      if (count == 0)
+      {
+         out.append(value);
+         return;
+      }
+      out.append(literals[0]);
+      for (int i = 0; i < indexes.length; i++)
+      {
+         int index = indexes[i];
+         if (index >= count)
+         {
+            out.append(getPlaceholder(i));
+         }
+         else if ((numeric & (1 << index)) != 0)
+         {
+            long number = (index == 0) ? number1 : number2;
+            if (keyed[i])
+            {
+               out.append(catalog.getValue(Long.toString(number)));
+            }
+            else
+            {
+               appendLong(out, number);
+            }
+         }
+         else
+         {
+            CharSequence arg = (index == 0) ? arg1 : ((index == 1) ? arg2 : ((index == 2) ? arg3 : arg4));
+            if (arg == null)
+            {
+               arg = "'null'";
+            }
+            out.append(keyed[i] ? catalog.getValue(arg.toString()) : arg);
+         }
+         out.append(literals[i + 1]);
+      }
+   }
+
+   /**
+    * Append a number, digit by digit if the target is not a StringBuilder.
+    *
+    * @param out where to append
+    * @param number the number
+    * @throws IOException if the append failed
+    */
+   private static void appendLong(Appendable out, long number) throws IOException
+   {
+      if (out instanceof StringBuilder)
+      {
+         ((StringBuilder) out).append(number);
+         return;
+      }
+      // work on the negative value, Long.MIN_VALUE having no positive one
+      long rest = number;
+      if (number < 0)
+      {
+         out.append('-');
+      }
+      else
+      {
+         rest = -number;
+      }
+      long power = 1;
+      while (rest / power <= -10)
+      {
+         power *= 10;
+      }
+      while (power > 0)
+      {
+         out.append((char) ('0' - rest / power));
+         rest %= power;
+         power /= 10;
+      }
+   }
+
+   /**
+    * Gets a placeholder as written in the value.
+    *
+    * @param placeholder the placeholder number
+    * @return the placeholder text
+    */
+   private String getPlaceholder(int placeholder)
+   {
+      return keyed[placeholder] ? "{" + (indexes[placeholder] + 1) + "}" : "[" + (indexes[placeholder] + 1) + "]";
+   }
+
+   /**
+    * To string.
+    *
+    * @return the string
+    */
+   @Override
+   public String toString()
+   {
+      return value;
+   }
+}
@@ -1,379 +1,806 @@
-package net.alantea.xmessages;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.Locale;
-import java.util.Map;
-import java.util.MissingResourceException;
-import java.util.PropertyResourceBundle;
-import java.util.ResourceBundle;
-import java.util.ResourceBundle.Control;
-import java.util.TreeMap;
-
-import net.alantea.xtend.Xception;
-
-/**
- * Class to manage messages from extensions.
- * 
- * @author Alantea
- * 
- */
-public final class XMessages
-{
-  
-  /** The bundles. */
-  private static Map<XMessagesKey, ResourceBundle> bundles = new TreeMap<XMessagesKey, ResourceBundle>();
-
-  /** The locale. */
-  private static Locale locale = Locale.getDefault();
-
-  /** Private singleton constructor. */
-  private XMessages()
-  {
-  }
-
-  /**
-   * Adds the associated bundle.
-   *
-   * @param object the object
-   * @return true, if successful
-   * @throws Xception the xception
-   */
-  public static boolean addAssociatedBundle(Object object) throws Xception
-  {
-     return addAssociatedBundle(object, 0);
-  }
-
-  /**
-   * Adds the associated bundle.
-   *
-   * @param object the object
-   * @param level the association level (the lowest priority is the higher value).
-   * @return true, if successful
-   * @throws Xception the xception
-   */
-  public static boolean addAssociatedBundle(Object object, int level) throws Xception
-  {
-    try
-    {
-      return (manageBundle(object, level, true) != null);
-    }
-    catch (MissingResourceException e)
-    {
-        return false;
-    }
-  }
-
-  /**
-   * Gets the bundle.
-   *
-   * @param object the object
-   * @return the bundle
-   * @throws MissingResourceException the missing resource exception
-   */
-  public static ResourceBundle getBundle(Object object)
-      throws MissingResourceException
-  {
-    return getBundle(object, 0);
-  }
-
-  /**
-   * Gets the bundle.
-   *
-   * @param object the object
-   * @param level the association level (the lowest priority is the higher value).
-   * @return the bundle
-   * @throws MissingResourceException the missing resource exception
-   */
-  public static ResourceBundle getBundle(Object object, int level)
-      throws MissingResourceException
-  {
-    return manageBundle(object, level, false);
-  }
-
-  /**
-   * Manage bundle.
-   *
-   * @param object the object
-   * @param level the association level (the lowest priority is the higher value).
-   * @param storeIt the store it
-   * @return the resource bundle
-   * @throws MissingResourceException the missing resource exception
-   */
-  private static ResourceBundle manageBundle(Object object, int level, boolean storeIt)
-      throws MissingResourceException
-  {
-    String name = object.getClass().getName();
-    if (object instanceof String)
-    {
-       name = (String) object;
-    }
-    ResourceBundle bundle = null;
-
-    bundle = bundles.get(new XMessagesKey(name, -1));
-    if (bundle == null)
-    {
-      bundle = ResourceBundle.getBundle(name, locale, new UTF8Control());
-      if (storeIt)
-      {
-         bundles.put(new XMessagesKey(name, level), bundle);
-      }
-    }
-    return bundle;
-  }
-
-  /**
-   * Manage bundle.
-   *
-   * @param name the bundle name
-   * @return the resource bundle
-   */
-  public static boolean addBundle(String name)
-  {
-     return addBundle(name, 0);
-  }
-
-  /**
-   * Manage bundle.
-   *
-   * @param name the bundle name
-   * @param level the association level (the lowest priority is the higher value).
-   * @return the resource bundle
-   */
-  public static boolean addBundle(String name, int level)
-  {
-     try
-     {
-        ResourceBundle bundle = null;
-
-        bundle = bundles.get(new XMessagesKey(name, -1));
-        if (bundle == null)
-        {
-          bundle = ResourceBundle.getBundle(name, locale, new UTF8Control());
-          bundles.put(new XMessagesKey(name, level), bundle);
-        }
-        return (bundle != null);
-     }
-     catch (MissingResourceException e)
-     {
-         return false;
-     }
-  }
-
-  /**
-   * Get a value as int from its key.
-   * 
-   * @param key to search
-   * @return the int value or 0 if nothing is found
-   */
-  public static int getInteger(String key)
-  {
-    int ret = 0;
-    String sVal = get(key);
-    try
-    {
-       ret = Integer.parseInt(sVal);
-    }
-    catch (NumberFormatException e)
-    {
-      // nothing
-    }
-    
-    return ret;
-  }
-
-  /**
-   * Get a value as double from its key.
-   * 
-   * @param key to search
-   * @return the double value or 0.0 if nothing is found
-   */
-  public static double getDouble(String key)
-  {
-    double ret = 0;
-    String sVal = get(key);
-    try
-    {
-       ret = Double.parseDouble(sVal);
-    }
-    catch (NumberFormatException e)
-    {
-      // nothing
-    }
-    
-    return ret;
-  }
-
-  /**
-   * Get a message from its key or return null.
-   *
-   * @param key to search
-   * @param args the args
-   * @return the message value or the key if nothing is found
-   */
-  public static String getOrNull(String key, String... args)
-  {
-     String ret = get(key, args);
-     if (ret.equals(key))
-     {
-        ret = null;
-     }
-     return ret;
-  }
-
-  /**
-   * Get a message from its key.
-   *
-   * @param key to search
-   * @param args the args
-   * @return the message value or the key if nothing is found
-   */
-  public static String get(String key, String... args)
-  {
-    String ret = key;
-
-    // search in registered bundles
-    if ((ret == null) || (ret.equals(key)))
-    {
-        for (ResourceBundle bundle : bundles.values())
-        {
-          if ((ret == null) || (ret.equals(key)))
-          {
-             try
-             {
-               ret = bundle.getString(key);
-             }
-             catch (MissingResourceException e)
-             {
-               ret = key;
-             }
-          }
-        }
-    }
-
-    // replace arguments
-    for (int i = 0; i < args.length; i++)
-    {
-      String arg = args[i];
-      if (arg == null)
-      {
-        arg = "'null'";
-      }
-      ret = ret.replaceAll("\\[" + (i + 1) + "\\]", arg);
-      ret = ret.replaceAll("\\{" + (i + 1) + "\\}", get(arg));
-    }
-    return ret;
-  }
-  
-  /**
-   * The Class XMessagesKey.
-   */
-  static class XMessagesKey implements Comparable<Object>
-  {
-   
-   /** The name. */
-   String name;
-     
-     /** The level. */
-     int level;
-     
-     /**
-      * Instantiates a new key.
-      *
-      * @param name the name
-      * @param level the level
-      */
-     public XMessagesKey(String name, int level)
-   {
-      this.name = name;
-      this.level = level;
-   }
-
-     /**
-      * Compare to.
-      *
-      * @param object the object
-      * @return the int
-      */
-     @Override
-     public int compareTo(Object object)
-     {
-        if (!(object instanceof XMessagesKey))
-        {
-           return -1;
-        }
-        
-        XMessagesKey other = (XMessagesKey) object;
-        if ((other.level == level) || (other.level == -1 || (level == -1)))
-        {
-           return other.name.compareTo(name);
-        }
-        else if (other.level < level)
-        {
-           return -1;
-        }
-        else
-        {
-           return 1;
-        }
-     }
-  }
-}
-
-/**
- * Control for getting bundle from an UTF-8 file. This work is got from the
- * article "How to use UTF-8 in resource properties with ResourceBundle" found
- * on internet at :
- * http://stackoverflow.com/questions/4659929/how-to-use-utf-8-in
- * -resource-properties-with-resourcebundle
- *
- */
-class UTF8Control extends Control
-{
-  /**
-   * Bundle creation.
-   * 
-   * @throws IllegalAccessException
-   *           when raised.
-   * @throws InstantiationException
-   *           when raised.
-   * @throws IOException
-   *           when raised.
-   */
-  public ResourceBundle new1Bundle(String baseName, Locale locale,
-      String format, ClassLoader loader, boolean reload)
-      throws IllegalAccessException, InstantiationException, IOException
-  {
-    // The below is a copy of the default implementation.
-    String bundleName = toBundleName(baseName, locale);
-    String resourceName = "/" + toResourceName(bundleName, "properties");
-    ResourceBundle bundle = null;
-    InputStream stream = null;
-
-    stream = XMessages.class.getResourceAsStream(resourceName);
-
-    if (stream == null)
-    {
-      resourceName = "/" + toResourceName(baseName, "properties");
-      stream = XMessages.class.getResourceAsStream(resourceName);
-
-    }
-
-    if (stream != null)
-    {
-      try
-      {
-        // Only this line is changed to make it to read properties files as
-        // UTF-8.
-        bundle = new PropertyResourceBundle(new InputStreamReader(stream,
-            "UTF-8"));
-      }
-      finally
-      {
-        stream.close();
-      }
-    }
-    return bundle;
-  }
-}
+package net.alantea.xmessages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.PropertyResourceBundle;
+import java.util.ResourceBundle;
+import java.util.ResourceBundle.Control;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import net.alantea.xtend.Xception;
+
+/**
+ * Class to manage messages from extensions.
+ * 
+ * @author Alantea
+ * 
+ */
+public final class XMessages
+{
+  
+  /** The locale. */
+  private static Locale locale = Locale.getDefault();
+
+  /** The registered bundles and their key index, replaced as a whole on each update. */
+  private static volatile XBundleRegistry registry = XBundleRegistry.empty(locale);
+
+  /** The names of the bundles known to be absent, not searched again until cleared. */
+  private static Set<String> missingBundles = ConcurrentHashMap.newKeySet();
+
+  /** The locale of the current thread, null for the default one. */
+  private static ThreadLocal<Locale> threadLocale = new ThreadLocal<Locale>();
+
+  /** Private singleton constructor. */
+  private XMessages()
+  {
+  }
+
+  /**
+   * Adds the associated bundle.
+   *
+   * @param object the object
+   * @return true, if successful
+   * @throws Xception the xception
+   */
+  public static boolean addAssociatedBundle(Object object) throws Xception
+  {
+     return addAssociatedBundle(object, 0);
+  }
+
+  /**
+   * Adds the associated bundle.
+   *
+   * @param object the object
+   * @param level the association level (the lowest priority is the higher value).
+   * @return true, if successful
+   * @throws Xception the xception
+   */
+  public static boolean addAssociatedBundle(Object object, int level) throws Xception
+  {
+    try
+    {
+      return (manageBundle(object, level, true) != null);
+    }
+    catch (MissingResourceException e)
+    {
+        return false;
+    }
+  }
+
+  /**
+   * Adds the associated bundles of several objects at once. Bundle names are deduplicated, the
+   * bundles not registered yet are loaded in parallel and then registered in a single update.
+   * Absent bundles are remembered and not searched again.
+   *
+   * @param objects the objects (a String is taken as the bundle name)
+   * @return the number of bundles added
+   */
+  public static int addAssociatedBundles(Collection<?> objects)
+  {
+     return addAssociatedBundles(objects, 0);
+  }
+
+  /**
+   * Adds the associated bundles of several objects at once. Bundle names are deduplicated, the
+   * bundles not registered yet are loaded in parallel and then registered in a single update.
+   * Absent bundles are remembered and not searched again.
+   *
+   * @param objects the objects (a String is taken as the bundle name)
+   * @param level the association level (the lowest priority is the higher value).
+   * @return the number of bundles added
+   */
+  public static int addAssociatedBundles(Collection<?> objects, int level)
+  {
+    Set<String> names = new LinkedHashSet<>();
+    for (Object object : objects)
+    {
+      String name = getBundleName(object);
+      if ((!missingBundles.contains(name)) && (registry.getBundle(name) == null))
+      {
+        names.add(name);
+      }
+    }
+    if (names.isEmpty())
+    {
+      return 0;
+    }
+
+    // the lookups are independent, only the registry update is serialized
+    List<ResourceBundle> found = ((names.size() > 1) ? names.parallelStream() : names.stream())
+        .map(XMessages::loadBundle).collect(Collectors.toList());
+
+    Map<XMessagesKey, ResourceBundle> loaded = new TreeMap<XMessagesKey, ResourceBundle>();
+    int i = 0;
+    for (String name : names)
+    {
+      ResourceBundle bundle = found.get(i++);
+      if (bundle != null)
+      {
+        loaded.put(new XMessagesKey(name, level), bundle);
+      }
+    }
+    return register(loaded);
+  }
+
+  /**
+   * Gets the bundle.
+   *
+   * @param object the object
+   * @return the bundle
+   * @throws MissingResourceException the missing resource exception
+   */
+  public static ResourceBundle getBundle(Object object)
+      throws MissingResourceException
+  {
+    return getBundle(object, 0);
+  }
+
+  /**
+   * Gets the bundle.
+   *
+   * @param object the object
+   * @param level the association level (the lowest priority is the higher value).
+   * @return the bundle
+   * @throws MissingResourceException the missing resource exception
+   */
+  public static ResourceBundle getBundle(Object object, int level)
+      throws MissingResourceException
+  {
+    return manageBundle(object, level, false);
+  }
+
+  /**
+   * Manage bundle.
+   *
+   * @param object the object
+   * @param level the association level (the lowest priority is the higher value).
+   * @param storeIt the store it
+   * @return the resource bundle
+   * @throws MissingResourceException the missing resource exception
+   */
+  private static ResourceBundle manageBundle(Object object, int level, boolean storeIt)
+      throws MissingResourceException
+  {
+    String name = getBundleName(object);
+    ResourceBundle bundle = null;
+
+    bundle = registry.getBundle(name);
+    if (bundle == null)
+    {
+      bundle = loadBundle(name);
+      if (bundle == null)
+      {
+        throw new MissingResourceException("Can't find bundle for base name " + name + ", locale " + locale,
+            name, "");
+      }
+      if (storeIt)
+      {
+        register(Collections.singletonMap(new XMessagesKey(name, level), bundle));
+      }
+    }
+    return bundle;
+  }
+
+  /**
+   * Register bundles, publishing a new registry snapshot. Writers are serialized, readers use the
+   * current snapshot without locking.
+   *
+   * @param added the bundles to register
+   * @return the number of bundles added
+   */
+  private static synchronized int register(Map<XMessagesKey, ResourceBundle> added)
+  {
+    XBundleRegistry current = registry;
+    XBundleRegistry updated = current.with(added);
+    registry = updated;
+    return updated.size() - current.size();
+  }
+
+  /**
+   * Gets the bundle name of an object : its class name, or the object itself for a String.
+   *
+   * @param object the object
+   * @return the bundle name
+   */
+  private static String getBundleName(Object object)
+  {
+    if (object instanceof String)
+    {
+      return (String) object;
+    }
+    return object.getClass().getName();
+  }
+
+  /**
+   * Load a bundle, remembering the absent ones.
+   *
+   * @param name the bundle name
+   * @return the bundle, null if absent
+   */
+  private static ResourceBundle loadBundle(String name)
+  {
+    if (missingBundles.contains(name))
+    {
+      return null;
+    }
+    try
+    {
+      return ResourceBundle.getBundle(name, locale, new UTF8Control());
+    }
+    catch (MissingResourceException e)
+    {
+      missingBundles.add(name);
+      return null;
+    }
+  }
+
+  /**
+   * Forget the bundles known to be absent : they will be searched again the next time they are
+   * associated. XManager calls it when its discovery cache is dropped, so that the remembered
+   * names do not pile up for ever.
+   */
+  public static void clearMissingBundles()
+  {
+    missingBundles.clear();
+  }
+
+  /**
+   * Load a registered bundle for another locale.
+   *
+   * @param name the bundle name
+   * @param requested the locale
+   * @return the bundle, null if absent for this locale
+   */
+  static ResourceBundle loadBundle(String name, Locale requested)
+  {
+    try
+    {
+      return ResourceBundle.getBundle(name, requested, new UTF8Control());
+    }
+    catch (MissingResourceException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Manage bundle.
+   *
+   * @param name the bundle name
+   * @return the resource bundle
+   */
+  public static boolean addBundle(String name)
+  {
+     return addBundle(name, 0);
+  }
+
+  /**
+   * Manage bundle.
+   *
+   * @param name the bundle name
+   * @param level the association level (the lowest priority is the higher value).
+   * @return the resource bundle
+   */
+  public static boolean addBundle(String name, int level)
+  {
+     ResourceBundle bundle = null;
+
+     bundle = registry.getBundle(name);
+     if (bundle == null)
+     {
+       bundle = loadBundle(name);
+       if (bundle != null)
+       {
+         register(Collections.singletonMap(new XMessagesKey(name, level), bundle));
+       }
+     }
+     return (bundle != null);
+  }
+
+  /**
+   * Get a value as int from its key.
+   * 
+   * @param key to search
+   * @return the int value or 0 if nothing is found
+   */
+  public static int getInteger(String key)
+  {
+    int ret = 0;
+    String sVal = get(key);
+    try
+    {
+       ret = Integer.parseInt(sVal);
+    }
+    catch (NumberFormatException e)
+    {
+      // nothing
+    }
+    
+    return ret;
+  }
+
+  /**
+   * Get a value as double from its key.
+   * 
+   * @param key to search
+   * @return the double value or 0.0 if nothing is found
+   */
+  public static double getDouble(String key)
+  {
+    double ret = 0;
+    String sVal = get(key);
+    try
+    {
+       ret = Double.parseDouble(sVal);
+    }
+    catch (NumberFormatException e)
+    {
+      // nothing
+    }
+    
+    return ret;
+  }
+
+  /**
+   * Get a message from its key or return null.
+   *
+   * @param key to search
+   * @param args the args
+   * @return the message value or the key if nothing is found
+   */
+  public static String getOrNull(String key, String... args)
+  {
+     return getOrNull(null, key, args);
+  }
+
+  /**
+   * Get a message in a locale from its key or return null.
+   *
+   * @param locale the locale, null for the current one
+   * @param key to search
+   * @param args the args
+   * @return the message value or null if nothing is found
+   */
+  public static String getOrNull(Locale locale, String key, String... args)
+  {
+     String ret = get(locale, key, args);
+     if (ret.equals(key))
+     {
+        ret = null;
+     }
+     return ret;
+  }
+
+  /**
+   * Get a message from its key.
+   *
+   * @param key to search
+   * @param args the args
+   * @return the message value or the key if nothing is found
+   */
+  public static String get(String key, String... args)
+  {
+    return get(null, key, args);
+  }
+
+  /**
+   * Get a message in a locale from its key.
+   *
+   * @param locale the locale, null for the current one
+   * @param key to search
+   * @param args the args
+   * @return the message value or the key if nothing is found
+   */
+  public static String get(Locale locale, String key, String... args)
+  {
+    XBundleRegistry catalog = (locale == null) ? getCatalog() : registry.forLocale(locale);
+
+    // search in registered bundles
+    XMessageTemplate template = catalog.getTemplate(key);
+    if (template == null)
+    {
+      if ((args.length == 0) || (key == null))
+      {
+        return key;
+      }
+      template = new XMessageTemplate(key);
+    }
+
+    // replace arguments
+    return template.format(catalog, args);
+  }
+
+  /**
+   * Gets the locale of the current thread : the one given to withLocale, or the default one.
+   *
+   * @return the locale
+   */
+  public static Locale getLocale()
+  {
+    Locale ret = threadLocale.get();
+    return (ret == null) ? locale : ret;
+  }
+
+  /**
+   * Use a locale in the current thread, until the returned scope is closed. Messages got without
+   * explicit locale are then taken from the bundles of this locale.
+   * <pre>
+   * try (XLocaleScope scope = XMessages.withLocale(userLocale))
+   * {
+   *   ...
+   * }
+   * </pre>
+   *
+   * @param locale the locale, null for the default one
+   * @return the scope, restoring the previous locale when closed
+   */
+  public static XLocaleScope withLocale(Locale locale)
+  {
+    XLocaleScope ret = new XLocaleScope(threadLocale.get());
+    setThreadLocale(locale);
+    return ret;
+  }
+
+  /**
+   * Sets the locale of the current thread.
+   *
+   * @param locale the locale, null for the default one
+   */
+  static void setThreadLocale(Locale locale)
+  {
+    if (locale == null)
+    {
+      threadLocale.remove();
+    }
+    else
+    {
+      threadLocale.set(locale);
+    }
+  }
+
+  /**
+   * Gets the catalog of the current thread locale.
+   *
+   * @return the catalog
+   */
+  private static XBundleRegistry getCatalog()
+  {
+    Locale current = threadLocale.get();
+    XBundleRegistry ret = registry;
+    return (current == null) ? ret : ret.forLocale(current);
+  }
+  
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key)
+  {
+    return appendMessage(out, key, 0, 0, null, null, null, null, 0, 0);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, CharSequence arg1)
+  {
+    return appendMessage(out, key, 1, 0, arg1, null, null, null, 0, 0);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @param arg2 the second argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, CharSequence arg1, CharSequence arg2)
+  {
+    return appendMessage(out, key, 2, 0, arg1, arg2, null, null, 0, 0);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @param arg2 the second argument
+   * @param arg3 the third argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, CharSequence arg1, CharSequence arg2, CharSequence arg3)
+  {
+    return appendMessage(out, key, 3, 0, arg1, arg2, arg3, null, 0, 0);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @param arg2 the second argument
+   * @param arg3 the third argument
+   * @param arg4 the fourth argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, CharSequence arg1, CharSequence arg2, CharSequence arg3,
+      CharSequence arg4)
+  {
+    return appendMessage(out, key, 4, 0, arg1, arg2, arg3, arg4, 0, 0);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings, an int or long argument being written without boxing.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, long arg1)
+  {
+    return appendMessage(out, key, 1, 1, null, null, null, null, arg1, 0);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings, int or long arguments being written without boxing.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @param arg2 the second argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, long arg1, long arg2)
+  {
+    return appendMessage(out, key, 2, 3, null, null, null, null, arg1, arg2);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings, an int or long argument being written without boxing.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @param arg2 the second argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, CharSequence arg1, long arg2)
+  {
+    return appendMessage(out, key, 2, 2, arg1, null, null, null, 0, arg2);
+  }
+
+  /**
+   * Append a message to a StringBuilder, a CharBuffer or any Appendable, without creating
+   * intermediate strings, an int or long argument being written without boxing.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param arg1 the first argument
+   * @param arg2 the second argument
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  public static <A extends Appendable> A append(A out, String key, long arg1, CharSequence arg2)
+  {
+    return appendMessage(out, key, 2, 1, null, arg2, null, null, arg1, 0);
+  }
+
+  /**
+   * Append a message with up to 4 arguments.
+   *
+   * @param <A> the appendable type
+   * @param out where to append
+   * @param key to search
+   * @param count the number of arguments
+   * @param numeric the numeric flags, bit 0 for the first argument
+   * @param arg1 the first argument, if not numeric
+   * @param arg2 the second argument, if not numeric
+   * @param arg3 the third argument
+   * @param arg4 the fourth argument
+   * @param number1 the first argument, if numeric
+   * @param number2 the second argument, if numeric
+   * @return the appendable
+   * @throws UncheckedIOException if the append failed
+   */
+  private static <A extends Appendable> A appendMessage(A out, String key, int count, int numeric,
+      CharSequence arg1, CharSequence arg2, CharSequence arg3, CharSequence arg4, long number1, long number2)
+  {
+    try
+    {
+      XBundleRegistry catalog = getCatalog();
+      XMessageTemplate template = catalog.getTemplate(key);
+      if (template != null)
+      {
+        template.appendTo(catalog, out, count, numeric, arg1, arg2, arg3, arg4, number1, number2);
+      }
+      else if ((count == 0) || (key == null))
+      {
+        out.append(key);
+      }
+      else
+      {
+        new XMessageTemplate(key).appendTo(catalog, out, count, numeric, arg1, arg2, arg3, arg4, number1, number2);
+      }
+      return out;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The Class XMessagesKey.
+   */
+  static class XMessagesKey implements Comparable<Object>
+  {
+   
+   /** The name. */
+   String name;
+     
+     /** The level. */
+     int level;
+     
+     /**
+      * Instantiates a new key.
+      *
+      * @param name the name
+      * @param level the level
+      */
+     public XMessagesKey(String name, int level)
+   {
+      this.name = name;
+      this.level = level;
+   }
+
+     /**
+      * Compare to.
+      *
+      * @param object the object
+      * @return the int
+      */
+     @Override
+     public int compareTo(Object object)
+     {
+        if (!(object instanceof XMessagesKey))
+        {
+           return -1;
+        }
+        
+        XMessagesKey other = (XMessagesKey) object;
+        if ((other.level == level) || (other.level == -1 || (level == -1)))
+        {
+           return other.name.compareTo(name);
+        }
+        else if (other.level < level)
+        {
+           return -1;
+        }
+        else
+        {
+           return 1;
+        }
+     }
+  }
+}
+
+/**
+ * Control for getting bundle from an UTF-8 file. This work is got from the
+ * article "How to use UTF-8 in resource properties with ResourceBundle" found
+ * on internet at :
+ * http://stackoverflow.com/questions/4659929/how-to-use-utf-8-in
+ * -resource-properties-with-resourcebundle
+ *
+ */
+class UTF8Control extends Control
+{
+  /**
+   * Bundle creation.
+   * 
+   * @throws IllegalAccessException
+   *           when raised.
+   * @throws InstantiationException
+   *           when raised.
+   * @throws IOException
+   *           when raised.
+   */
+  public ResourceBundle new1Bundle(String baseName, Locale locale,
+      String format, ClassLoader loader, boolean reload)
+      throws IllegalAccessException, InstantiationException, IOException
+  {
+    // The below is a copy of the default implementation.
+    String bundleName = toBundleName(baseName, locale);
+    String resourceName = "/" + toResourceName(bundleName, "properties");
+    ResourceBundle bundle = null;
+    InputStream stream = null;
+
+    stream = XMessages.class.getResourceAsStream(resourceName);
+
+    if (stream == null)
+    {
+      resourceName = "/" + toResourceName(baseName, "properties");
+      stream = XMessages.class.getResourceAsStream(resourceName);
+
+    }
+
+    if (stream != null)
+    {
+      try
+      {
+        // Only this line is changed to make it to read properties files as
+        // UTF-8.
+        bundle = new PropertyResourceBundle(new InputStreamReader(stream,
+            "UTF-8"));
+      }
+      finally
+      {
+        stream.close();
+      }
+    }
+    return bundle;
+  }
+
+  /**
+   * No fallback to the default locale : a bundle loaded for another locale falls back to the base
+   * bundle, whatever the default locale of the JVM.
+   *
+   * @param baseName the base name
+   * @param locale the locale
+   * @return null
+   */
+  @Override
+  public Locale getFallbackLocale(String baseName, Locale locale)
+  {
+    return null;
+  }
+}
@@ -1,7 +1,7 @@
-/**
- * This package contains a mechanism to manage internationalization through jars in Java.
- * 
- * @author Jean Rbillat
- *
- */
+/**
+ * This package contains a mechanism to manage internationalization through jars in Java.
+ * 
+ * @author Jean Rbillat
+ *
+ */
 package net.alantea.xmessages;
\ No newline at end of file
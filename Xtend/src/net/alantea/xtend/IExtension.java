@@ -1,24 +1,52 @@
-package net.alantea.xtend;
-
-/**
- * The IExtension Interface.
- */
-public interface IExtension
-{
-  
-  /**
-   * Gets the extended interface.
-   *
-   * @return the extended interface
-   */
-  public Class<?> getExtendedInterface();
-  
-  /**
-   * Adds an implementation.
-   *
-   * @param object the extension object
-   * @throws Xception the xception
-   */
-  public void addImplementation(Object object) throws Xception;
-
-}
+package net.alantea.xtend;
+
+import java.util.List;
+
+/**
+ * The IExtension Interface.
+ */
+public interface IExtension
+{
+  
+  /**
+   * Gets the extended interface.
+   *
+   * @return the extended interface
+   */
+  public Class<?> getExtendedInterface();
+  
+  /**
+   * Adds an implementation.
+   *
+   * @param object the extension object
+   * @throws Xception the xception
+   */
+  public void addImplementation(Object object) throws Xception;
+
+  /**
+   * Adds a batch of implementations, in a stable order. Calls addImplementation for each one by
+   * default.
+   *
+   * @param objects the extension objects
+   * @throws Xception the xception
+   */
+  public default void addImplementations(List<Object> objects) throws Xception
+  {
+    for (Object object : objects)
+    {
+      addImplementation(object);
+    }
+  }
+
+  /**
+   * Removes an implementation, when the plugin it comes from has been removed. Does nothing by
+   * default.
+   *
+   * @param object the extension object, previously given to addImplementation
+   * @throws Xception the xception
+   */
+  public default void removeImplementation(Object object) throws Xception
+  {
+  }
+
+}
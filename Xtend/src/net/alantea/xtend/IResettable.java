@@ -0,0 +1,15 @@
+package net.alantea.xtend;
+
+/**
+ * The IResettable Interface. Pooled extensions implementing it are reset each time they are given
+ * back to their pool.
+ */
+public interface IResettable
+{
+
+  /**
+   * Reset the object state, before it is borrowed again.
+   */
+  public void reset();
+
+}
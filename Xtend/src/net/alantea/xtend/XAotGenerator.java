@@ -0,0 +1,526 @@
+package net.alantea.xtend;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import net.alantea.xmessages.XMessages;
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Build-time generator resolving the whole extension graph of an application. It writes in a
+ * classes directory :
+ * <ul>
+ * <li>a compiled XRegistry implementation, registered as a service, that XManager uses instead of
+ * the indexes or class path scans of the resolved entries ;</li>
+ * <li>META-INF/native-image/xtend/reflect-config.json, declaring the implementor constructors for
+ * GraalVM native images ;</li>
+ * <li>META-INF/xtend/classlist, the classes to put in an AppCDS archive.</li>
+ * </ul>
+ * It must be run with the application runtime class path, after compilation :
+ * <code>java -cp &lt;class path&gt; net.alantea.xtend.XAotGenerator &lt;classes directory&gt;
+ * &lt;registry class name&gt; [entries...]</code>. When no entry is given, the whole class path is
+ * resolved. Implementors are registered under all their super types but java.lang.Object, concrete
+ * classes and JDK or third-party interfaces included, so that the registry answers for any base
+ * class. A JDK is needed, to compile the registry.
+ *
+ * @author Alantea
+ *
+ */
+public final class XAotGenerator
+{
+
+   /** The registry service resource. */
+   static final String SERVICE_RESOURCE = "META-INF/services/" + XRegistry.class.getName();
+
+   /** The reflection configuration resource. */
+   static final String REFLECT_CONFIG_RESOURCE = "META-INF/native-image/xtend/reflect-config.json";
+
+   /** The AppCDS class list resource. */
+   static final String CLASS_LIST_RESOURCE = "META-INF/xtend/classlist";
+
+   /**
+    * Maximum number of names registered by a single generated class, far below the code size and
+    * constant pool limits.
+    */
+   private static final int NAMES_PER_CLASS = 1000;
+
+   /** The packages of the Xtend classes used at runtime, put in the class list. */
+   private static final String[] RUNTIME_PACKAGES = { XManager.class.getPackage().getName(),
+         XMessages.class.getPackage().getName() };
+
+   /** The Xtend classes only used at build time, kept out of the class list. */
+   private static final String[] BUILD_TIME_CLASSES = { XAotGenerator.class.getName(),
+         XIndexProcessor.class.getName() };
+
+   /** The implementors, by base class name. */
+   private Map<String, Set<String>> implementors = new TreeMap<>();
+
+   /** The generated classes registering the names, in registration order. */
+   private List<String> parts = new ArrayList<>();
+
+   /** A class name from each resolved entry. */
+   private List<String> markers = new ArrayList<>();
+
+   /** The classes to archive. */
+   private Set<String> archived = new TreeSet<>();
+
+   /**
+    * Private constructor : use generate().
+    */
+   private XAotGenerator()
+   {
+   }
+
+   /**
+    * The main method.
+    *
+    * @param args the classes directory, the registry class name and optionally the entries to resolve
+    * @throws Xception if the generation failed
+    */
+   public static void main(String[] args) throws Xception
+   {
+      if (args.length < 2)
+      {
+         System.err.println("usage : XAotGenerator <classes directory> <registry class name> "
+               + "[entries...]");
+         System.exit(1);
+      }
+      List<String> entries = new ArrayList<>();
+      for (int i = 2; i < args.length; i++)
+      {
+         entries.add(new File(args[i]).toPath().toAbsolutePath().normalize().toString());
+      }
+      if (entries.isEmpty())
+      {
+         entries = XIndex.getClassPathEntries();
+      }
+      generate(new File(args[0]), args[1], entries);
+   }
+
+   /**
+    * Resolve the extension graph of class path entries and write the registry and metadata.
+    * Implementors are registered under all their super types.
+    *
+    * @param directory the classes directory to write in
+    * @param registryName the registry class binary name
+    * @param entries the class path entries to resolve
+    * @throws Xception if the generation failed
+    */
+   public static void generate(File directory, String registryName, List<String> entries) throws Xception
+   {
+      XAotGenerator generator = new XAotGenerator();
+      generator.resolve(entries);
+      generator.archived.add(registryName);
+      try
+      {
+         generator.compileRegistry(directory, registryName);
+         generator.archived.addAll(generator.parts);
+         write(new File(directory, SERVICE_RESOURCE), Collections.singletonList(registryName));
+         generator.writeReflectConfig(new File(directory, REFLECT_CONFIG_RESOURCE), registryName);
+         List<String> classList = new ArrayList<>();
+         for (String name : generator.archived)
+         {
+            classList.add(name.replace('.', '/'));
+         }
+         write(new File(directory, CLASS_LIST_RESOURCE), classList);
+      }
+      catch (IOException e)
+      {
+         throw new Xception(Why.EXTENSION_ERROR, "unable to write in " + directory, e);
+      }
+   }
+
+   /**
+    * Resolve the implementors found in the entries, by super type. Classes are loaded without being
+    * initialized.
+    *
+    * @param entries the class path entries
+    * @throws Xception if the scan failed
+    */
+   private void resolve(List<String> entries) throws Xception
+   {
+      List<Xception> errors = Collections.synchronizedList(new ArrayList<>());
+      Map<String, List<XClassHeader>> headers = XScanner.scan(entries,
+            Runtime.getRuntime().availableProcessors(), (entry, e) -> errors.add(e));
+      if (!errors.isEmpty())
+      {
+         // the registry would miss the classes of the unreadable files
+         Xception failure = new Xception(Why.EXTENSION_ERROR,
+               "unable to read " + errors.size() + " class files or entries");
+         for (Xception e : errors)
+         {
+            failure.addSuppressed(e);
+         }
+         throw failure;
+      }
+      ClassLoader loader = getLoader(entries);
+      Set<String> declared = new HashSet<>();
+      for (String entry : entries)
+      {
+         boolean marked = false;
+         for (XClassHeader header : headers.get(entry))
+         {
+            // a class also declared by a previous entry would locate that entry instead
+            if ((declared.add(header.getName())) && (!marked))
+            {
+               markers.add(header.getName());
+               marked = true;
+            }
+         }
+      }
+
+      Set<String> seen = new HashSet<>();
+      for (String entry : entries)
+      {
+         for (XClassHeader header : headers.get(entry))
+         {
+            if ((!header.isConcrete()) || (!seen.add(header.getName())))
+            {
+               continue;
+            }
+            Class<?> cl;
+            try
+            {
+               cl = Class.forName(header.getName(), false, loader);
+            }
+            catch (ClassNotFoundException | LinkageError e)
+            {
+               // missing optional dependency : the class could not be an extension at runtime either
+               continue;
+            }
+            // every super type : any of them may be given to loadExtension, and the registry is the
+            // only source for its entries
+            Set<Class<?>> superTypes = getSuperTypes(cl);
+            for (Class<?> superType : superTypes)
+            {
+               implementors.computeIfAbsent(superType.getName(), k -> new LinkedHashSet<>()).add(cl.getName());
+               archived.add(superType.getName());
+            }
+            if (!superTypes.isEmpty())
+            {
+               archived.add(cl.getName());
+            }
+         }
+      }
+      archived.addAll(getRuntimeClassNames());
+   }
+
+   /**
+    * Gets the names of the Xtend classes used at runtime, read from the class path entry holding
+    * Xtend, so that no class is forgotten.
+    *
+    * @return the class names
+    * @throws Xception if the Xtend entry cannot be located or read
+    */
+   static Set<String> getRuntimeClassNames() throws Xception
+   {
+      String resource = XManager.class.getName().replace('.', '/') + ".class";
+      URL url = XManager.class.getClassLoader().getResource(resource);
+      String entry = (url == null) ? null : XIndex.getEntry(url, resource);
+      if (entry == null)
+      {
+         throw new Xception(Why.EXTENSION_ERROR, "unable to locate the Xtend classes");
+      }
+      List<Xception> errors = new ArrayList<>();
+      List<XClassHeader> headers = XScanner.scanEntry(entry, XFilter.packages(RUNTIME_PACKAGES),
+            (path, e) -> errors.add(e));
+      if (!errors.isEmpty())
+      {
+         throw errors.get(0);
+      }
+
+      Set<String> ret = new TreeSet<>();
+      for (XClassHeader header : headers)
+      {
+         String name = header.getName();
+         boolean buildTime = false;
+         for (String excluded : BUILD_TIME_CLASSES)
+         {
+            buildTime |= (name.equals(excluded)) || (name.startsWith(excluded + "$"));
+         }
+         if (!buildTime)
+         {
+            ret.add(name);
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Gets the class loader for the entries : the system class loader if they are the class path.
+    *
+    * @param entries the entries
+    * @return the class loader
+    * @throws Xception if an entry is not a valid location
+    */
+   private static ClassLoader getLoader(List<String> entries) throws Xception
+   {
+      if (XIndex.getClassPathEntries().containsAll(entries))
+      {
+         return ClassLoader.getSystemClassLoader();
+      }
+      URL[] urls = new URL[entries.size()];
+      try
+      {
+         for (int i = 0; i < urls.length; i++)
+         {
+            urls[i] = new File(entries.get(i)).toURI().toURL();
+         }
+      }
+      catch (MalformedURLException e)
+      {
+         throw new Xception(Why.EXTENSION_ERROR, "bad class path entry", e);
+      }
+      return new URLClassLoader(urls, ClassLoader.getSystemClassLoader());
+   }
+
+   /**
+    * Gets all the super types of a class, excepting java.lang.Object.
+    *
+    * @param cl the class
+    * @return the super types
+    */
+   private static Set<Class<?>> getSuperTypes(Class<?> cl)
+   {
+      Set<Class<?>> ret = new LinkedHashSet<>();
+      Deque<Class<?>> toVisit = new ArrayDeque<>();
+      toVisit.add(cl);
+      while (!toVisit.isEmpty())
+      {
+         Class<?> current = toVisit.pop();
+         List<Class<?>> supers = new ArrayList<>(Arrays.asList(current.getInterfaces()));
+         if ((current.getSuperclass() != null) && (current.getSuperclass() != Object.class))
+         {
+            supers.add(current.getSuperclass());
+         }
+         for (Class<?> superType : supers)
+         {
+            if (ret.add(superType))
+            {
+               toVisit.add(superType);
+            }
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Write and compile the registry source.
+    *
+    * @param directory the classes directory
+    * @param registryName the registry class binary name
+    * @throws IOException Signals that an I/O exception has occurred.
+    * @throws Xception if no compiler is available or the compilation failed
+    */
+   private void compileRegistry(File directory, String registryName) throws IOException, Xception
+   {
+      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      if (compiler == null)
+      {
+         throw new Xception(Why.NOT_IMPLEMENTED, "a JDK is needed to compile the registry");
+      }
+
+      int pos = registryName.lastIndexOf('.');
+      String packageName = (pos < 0) ? null : registryName.substring(0, pos);
+      String simpleName = registryName.substring(pos + 1);
+      Path sources = Files.createTempDirectory("xtend-aot");
+      try
+      {
+         File source = new File(sources.toFile(), simpleName + ".java");
+         write(source, getRegistrySource(packageName, simpleName));
+         Files.createDirectories(directory.toPath());
+         // -proc:none : the index processor must not replace the index of the classes directory
+         int result = compiler.run(null, null, null, "-proc:none", "-nowarn", "-source", "1.8", "-target", "1.8",
+               "-Xlint:-options", "-classpath", System.getProperty("java.class.path"), "-d",
+               directory.getAbsolutePath(), source.getAbsolutePath());
+         if (result != 0)
+         {
+            throw new Xception(Why.EXTENSION_ERROR, "unable to compile " + registryName);
+         }
+      }
+      finally
+      {
+         try (Stream<Path> paths = Files.walk(sources))
+         {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+         }
+      }
+   }
+
+   /**
+    * Gets the registry source. Names are registered by chunks, each one in its own nested class, so
+    * that no class goes over the class file code size or constant pool limits.
+    *
+    * @param packageName the package name, null for the default package
+    * @param simpleName the class simple name
+    * @return the source lines
+    */
+   private List<String> getRegistrySource(String packageName, String simpleName)
+   {
+      List<List<String>> methods = new ArrayList<>();
+      List<String> method = new ArrayList<>();
+      int count = 0;
+      for (Map.Entry<String, Set<String>> entry : implementors.entrySet())
+      {
+         List<String> names = new ArrayList<>(entry.getValue());
+         for (int i = 0; i < names.size(); i += NAMES_PER_CLASS)
+         {
+            List<String> chunk = names.subList(i, Math.min(names.size(), i + NAMES_PER_CLASS));
+            if (count + chunk.size() > NAMES_PER_CLASS)
+            {
+               methods.add(method);
+               method = new ArrayList<>();
+               count = 0;
+            }
+            StringBuilder call = new StringBuilder("      add(\"").append(entry.getKey()).append('"');
+            for (String name : chunk)
+            {
+               call.append(",\n            \"").append(name).append('"');
+            }
+            method.add(call.append(");").toString());
+            count += chunk.size();
+         }
+      }
+      if (!method.isEmpty())
+      {
+         methods.add(method);
+      }
+
+      List<String> ret = new ArrayList<>();
+      if (packageName != null)
+      {
+         ret.add("package " + packageName + ";");
+         ret.add("");
+      }
+      ret.add("/**");
+      ret.add(" * Extension registry generated by XAotGenerator : do not edit.");
+      ret.add(" */");
+      ret.add("public final class " + simpleName + " implements net.alantea.xtend.XRegistry");
+      ret.add("{");
+      ret.add("");
+      ret.add("   /** The implementors, by base class name. */");
+      ret.add("   private static final java.util.Map<String, java.util.List<String>> IMPLEMENTORS = "
+            + "new java.util.HashMap<>();");
+      ret.add("");
+      ret.add("   static");
+      ret.add("   {");
+      for (int i = 0; i < methods.size(); i++)
+      {
+         ret.add("      Part" + i + ".register();");
+         parts.add(((packageName == null) ? "" : packageName + ".") + simpleName + "$Part" + i);
+      }
+      ret.add("   }");
+      ret.add("");
+      ret.add("   @Override");
+      ret.add("   public java.util.List<String> getImplementorNames(String baseClassName)");
+      ret.add("   {");
+      ret.add("      return IMPLEMENTORS.getOrDefault(baseClassName, java.util.Collections.emptyList());");
+      ret.add("   }");
+      ret.add("");
+      ret.add("   @Override");
+      ret.add("   public java.util.List<String> getEntryMarkers()");
+      ret.add("   {");
+      StringBuilder list = new StringBuilder("      return java.util.Arrays.asList(");
+      for (int i = 0; i < markers.size(); i++)
+      {
+         list.append((i == 0) ? "\n            \"" : ",\n            \"").append(markers.get(i)).append('"');
+      }
+      ret.add(list.append(");").toString());
+      ret.add("   }");
+      ret.add("");
+      ret.add("   static void add(String baseClassName, String... names)");
+      ret.add("   {");
+      ret.add("      IMPLEMENTORS.computeIfAbsent(baseClassName, k -> new java.util.ArrayList<>())"
+            + ".addAll(java.util.Arrays.asList(names));");
+      ret.add("   }");
+      for (int i = 0; i < methods.size(); i++)
+      {
+         ret.add("");
+         ret.add("   private static final class Part" + i);
+         ret.add("   {");
+         ret.add("");
+         ret.add("      static void register()");
+         ret.add("      {");
+         for (String line : methods.get(i))
+         {
+            ret.add("   " + line.replace("\n", "\n   "));
+         }
+         ret.add("      }");
+         ret.add("   }");
+      }
+      ret.add("}");
+      return ret;
+   }
+
+   /**
+    * Write the reflection configuration : public constructors of all the implementors, and of the
+    * registry for the service loader.
+    *
+    * @param file the file
+    * @param registryName the registry class binary name
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private void writeReflectConfig(File file, String registryName) throws IOException
+   {
+      Set<String> classes = new TreeSet<>();
+      classes.add(registryName);
+      for (Set<String> names : implementors.values())
+      {
+         classes.addAll(names);
+      }
+
+      List<String> lines = new ArrayList<>();
+      lines.add("[");
+      for (String name : classes)
+      {
+         lines.add("  { \"name\" : \"" + name + "\", \"allPublicConstructors\" : true },");
+      }
+      String last = lines.remove(lines.size() - 1);
+      lines.add(last.substring(0, last.length() - 1));
+      lines.add("]");
+      write(file, lines);
+   }
+
+   /**
+    * Write a text file.
+    *
+    * @param file the file
+    * @param lines the lines
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private static void write(File file, List<String> lines) throws IOException
+   {
+      Files.createDirectories(file.getParentFile().toPath());
+      try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)))
+      {
+         for (String line : lines)
+         {
+            out.println(line);
+         }
+      }
+   }
+}
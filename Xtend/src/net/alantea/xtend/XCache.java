@@ -0,0 +1,188 @@
+package net.alantea.xtend;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Thread-safe cache of the resolved implementation classes, by base class. Empty resolutions are
+ * cached as well, and concurrent callers asking for the same base class share a single resolution.
+ *
+ * @author Alantea
+ *
+ */
+final class XCache
+{
+
+   /**
+    * The resolver called on cache misses.
+    */
+   interface Resolver
+   {
+
+      /**
+       * Resolve the implementation classes of a base class.
+       *
+       * @param baseClass the base class
+       * @return the non abstract implementation classes, empty if none
+       * @throws Xception the xception
+       */
+      List<Class<?>> resolve(Class<?> baseClass) throws Xception;
+   }
+
+   /** The resolver. */
+   private Resolver resolver;
+
+   /** The resolutions, by base class. */
+   private ConcurrentMap<Class<?>, FutureTask<List<Class<?>>>> resolutions = new ConcurrentHashMap<>();
+
+   /** The hits count. */
+   private AtomicLong hits = new AtomicLong();
+
+   /** The misses count. */
+   private AtomicLong misses = new AtomicLong();
+
+   /**
+    * Instantiates a new cache.
+    *
+    * @param resolver the resolver
+    */
+   XCache(Resolver resolver)
+   {
+      this.resolver = resolver;
+   }
+
+   /**
+    * Gets the implementation classes of a base class.
+    *
+    * @param baseClass the base class
+    * @return the implementation classes, empty if none
+    * @throws Xception the xception
+    */
+   List<Class<?>> get(Class<?> baseClass) throws Xception
+   {
+      FutureTask<List<Class<?>>> task = resolutions.get(baseClass);
+      if (task == null)
+      {
+         FutureTask<List<Class<?>>> created = new FutureTask<>(() -> resolver.resolve(baseClass));
+         task = resolutions.putIfAbsent(baseClass, created);
+         if (task == null)
+         {
+            misses.incrementAndGet();
+            task = created;
+            task.run();
+         }
+         else
+         {
+            hits.incrementAndGet();
+         }
+      }
+      else
+      {
+         hits.incrementAndGet();
+      }
+
+      try
+      {
+         return task.get();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new Xception(Why.EXTENSION_ERROR, "interrupted while resolving " + baseClass.getName(), e);
+      }
+      catch (ExecutionException e)
+      {
+         // failures are not cached
+         resolutions.remove(baseClass, task);
+         Throwable cause = e.getCause();
+         if (cause instanceof Xception)
+         {
+            throw (Xception) cause;
+         }
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+         throw new Xception("error resolving " + baseClass.getName(), (Exception) cause);
+      }
+   }
+
+   /**
+    * Gets the implementation classes of a base class if they are already resolved.
+    *
+    * @param baseClass the base class
+    * @return the implementation classes, or null if not resolved
+    */
+   List<Class<?>> peek(Class<?> baseClass)
+   {
+      FutureTask<List<Class<?>>> task = resolutions.get(baseClass);
+      if ((task == null) || (!task.isDone()))
+      {
+         return null;
+      }
+      try
+      {
+         return task.get();
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Gets the base classes having a cached resolution.
+    *
+    * @return the base classes
+    */
+   Set<Class<?>> getBaseClasses()
+   {
+      return new HashSet<>(resolutions.keySet());
+   }
+
+   /**
+    * Invalidate a base class resolution.
+    *
+    * @param baseClass the base class
+    */
+   void invalidate(Class<?> baseClass)
+   {
+      resolutions.remove(baseClass);
+   }
+
+   /**
+    * Invalidate all the resolutions.
+    */
+   void clear()
+   {
+      resolutions.clear();
+   }
+
+   /**
+    * Gets the hits count.
+    *
+    * @return the hits count
+    */
+   long getHits()
+   {
+      return hits.get();
+   }
+
+   /**
+    * Gets the misses count.
+    *
+    * @return the misses count
+    */
+   long getMisses()
+   {
+      return misses.get();
+   }
+}
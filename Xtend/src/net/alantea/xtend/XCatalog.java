@@ -0,0 +1,217 @@
+package net.alantea.xtend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catalog of the class headers found in scanned class path entries. The inheritance graph is
+ * resolved from the headers only : candidate classes are never loaded. Only the types that are not
+ * in the catalog (JDK or indexed classes) are looked at through the class loader.
+ *
+ * @author Alantea
+ *
+ */
+final class XCatalog
+{
+
+   /** The class path entries, in class path order. */
+   private List<String> entries;
+
+   /** The headers, by entry. */
+   private Map<String, List<XClassHeader>> headersByEntry;
+
+   /** The entry fingerprints, taken before the entries were scanned. */
+   private Map<String, XFingerprint> fingerprints;
+
+   /** The entries that could not be scanned fully. */
+   private Set<String> failedEntries;
+
+   /** The headers, by class name. The first class path entry defining a class wins. */
+   private Map<String, XClassHeader> headers = new HashMap<>();
+
+   /**
+    * Instantiates a new catalog.
+    *
+    * @param entries the entries, in class path order
+    * @param headersByEntry the headers by entry
+    * @param fingerprints the entry fingerprints
+    */
+   XCatalog(List<String> entries, Map<String, List<XClassHeader>> headersByEntry,
+         Map<String, XFingerprint> fingerprints)
+   {
+      this(entries, headersByEntry, fingerprints, Collections.<String>emptySet());
+   }
+
+   /**
+    * Instantiates a new catalog, some entries having been scanned partially.
+    *
+    * @param entries the entries, in class path order
+    * @param headersByEntry the headers by entry
+    * @param fingerprints the entry fingerprints
+    * @param failedEntries the entries that could not be scanned fully
+    */
+   XCatalog(List<String> entries, Map<String, List<XClassHeader>> headersByEntry,
+         Map<String, XFingerprint> fingerprints, Set<String> failedEntries)
+   {
+      this.entries = entries;
+      this.headersByEntry = headersByEntry;
+      this.fingerprints = fingerprints;
+      this.failedEntries = failedEntries;
+      for (String entry : entries)
+      {
+         for (XClassHeader header : headersByEntry.get(entry))
+         {
+            headers.putIfAbsent(header.getName(), header);
+         }
+      }
+   }
+
+   /**
+    * Gets the entries.
+    *
+    * @return the entries, in class path order
+    */
+   List<String> getEntries()
+   {
+      return entries;
+   }
+
+   /**
+    * Gets the headers of an entry.
+    *
+    * @param entry the entry
+    * @return the headers, or null if the entry is not in the catalog
+    */
+   List<XClassHeader> getHeaders(String entry)
+   {
+      return headersByEntry.get(entry);
+   }
+
+   /**
+    * Gets the fingerprint of an entry.
+    *
+    * @param entry the entry
+    * @return the fingerprint, or null if the entry is not in the catalog
+    */
+   XFingerprint getFingerprint(String entry)
+   {
+      return fingerprints.get(entry);
+   }
+
+   /**
+    * Checks if an entry has been scanned fully. The headers of a partially scanned entry must be
+    * neither kept nor stored : the entry is scanned again next time.
+    *
+    * @param entry the entry
+    * @return true, if the scan of the entry did not fail
+    */
+   boolean isComplete(String entry)
+   {
+      return !failedEntries.contains(entry);
+   }
+
+   /**
+    * Checks if another catalog has been built from the same entries, with the same fingerprints.
+    *
+    * @param other the other catalog
+    * @return true, if both catalogs have the same content
+    */
+   boolean hasSameContent(XCatalog other)
+   {
+      return (entries.equals(other.entries)) && (fingerprints.equals(other.fingerprints));
+   }
+
+   /**
+    * Gets the names of the concrete classes derived from a base class, in class path order.
+    *
+    * @param baseClass the base class
+    * @param loader the class loader used for types outside of the catalog
+    * @return the implementor names
+    */
+   List<String> getImplementorNames(Class<?> baseClass, ClassLoader loader)
+   {
+      Map<String, Boolean> derived = new HashMap<>();
+      derived.put(baseClass.getName(), Boolean.TRUE);
+      Set<String> ret = new LinkedHashSet<>();
+      for (String entry : entries)
+      {
+         for (XClassHeader header : headersByEntry.get(entry))
+         {
+            if ((header.isConcrete()) && (!header.getName().equals(baseClass.getName()))
+                  && (derives(header.getName(), baseClass, loader, derived)))
+            {
+               ret.add(header.getName());
+            }
+         }
+      }
+      return new ArrayList<>(ret);
+   }
+
+   /**
+    * Checks if a type derives from a base class.
+    *
+    * @param name the type name
+    * @param baseClass the base class
+    * @param loader the class loader
+    * @param derived the already known answers
+    * @return true, if the type is the base class or derives from it
+    */
+   private boolean derives(String name, Class<?> baseClass, ClassLoader loader, Map<String, Boolean> derived)
+   {
+      Boolean known = derived.get(name);
+      if (known != null)
+      {
+         return known;
+      }
+
+      boolean ret = false;
+      XClassHeader header = headers.get(name);
+      if (header == null)
+      {
+         ret = isOutsideSubtype(name, baseClass, loader);
+      }
+      else
+      {
+         derived.put(name, Boolean.FALSE);
+         if (header.getSuperName() != null)
+         {
+            ret = derives(header.getSuperName(), baseClass, loader, derived);
+         }
+         for (String superInterface : header.getInterfaces())
+         {
+            ret = ret || derives(superInterface, baseClass, loader, derived);
+         }
+      }
+      derived.put(name, ret);
+      return ret;
+   }
+
+   /**
+    * Checks if a type outside of the catalog derives from a base class.
+    *
+    * @param name the type name
+    * @param baseClass the base class
+    * @param loader the class loader
+    * @return true, if derived
+    */
+   private static boolean isOutsideSubtype(String name, Class<?> baseClass, ClassLoader loader)
+   {
+      if (Object.class.getName().equals(name))
+      {
+         return false;
+      }
+      try
+      {
+         return baseClass.isAssignableFrom(Class.forName(name, false, loader));
+      }
+      catch (ClassNotFoundException | LinkageError e)
+      {
+         return false;
+      }
+   }
+}
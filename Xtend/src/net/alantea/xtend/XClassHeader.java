@@ -0,0 +1,247 @@
+package net.alantea.xtend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Header of a class file : access flags, class name, super class name and interface names. It is
+ * read straight from the class file bytes, without loading the class.
+ *
+ * @author Alantea
+ *
+ */
+final class XClassHeader
+{
+
+   /** The class file magic number. */
+   private static final int MAGIC = 0xCAFEBABE;
+
+   /** The interface access flag. */
+   private static final int ACC_INTERFACE = 0x0200;
+
+   /** The abstract access flag. */
+   private static final int ACC_ABSTRACT = 0x0400;
+
+   /** The no interfaces value. */
+   private static final String[] NO_INTERFACES = new String[0];
+
+   /** The access flags. */
+   private int access;
+
+   /** The class name. */
+   private String name;
+
+   /** The super class name, null for java.lang.Object. */
+   private String superName;
+
+   /** The interface names. */
+   private String[] interfaces;
+
+   /**
+    * Instantiates a new class header.
+    *
+    * @param access the access flags
+    * @param name the class name
+    * @param superName the super class name
+    * @param interfaces the interface names
+    */
+   XClassHeader(int access, String name, String superName, String[] interfaces)
+   {
+      this.access = access;
+      this.name = name;
+      this.superName = superName;
+      this.interfaces = interfaces;
+   }
+
+   /**
+    * Read a class header from a stream.
+    *
+    * @param stream the class file stream
+    * @return the header, or null if this is not a class file
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   static XClassHeader read(InputStream stream) throws IOException
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+      byte[] buffer = new byte[4096];
+      int n;
+      while ((n = stream.read(buffer)) > 0)
+      {
+         out.write(buffer, 0, n);
+      }
+      return parse(out.toByteArray());
+   }
+
+   /**
+    * Parse a class header from the class file bytes.
+    *
+    * @param bytes the class file bytes
+    * @return the header, or null if this is not a valid class file
+    */
+   static XClassHeader parse(byte[] bytes)
+   {
+      try
+      {
+         if (readInt(bytes, 0) != MAGIC)
+         {
+            return null;
+         }
+
+         // locate constant pool entries
+         int count = readUnsignedShort(bytes, 8);
+         int[] offsets = new int[count];
+         int pos = 10;
+         for (int i = 1; i < count; i++)
+         {
+            offsets[i] = pos + 1;
+            switch (bytes[pos])
+            {
+               case 1: // Utf8
+                  pos += 3 + readUnsignedShort(bytes, pos + 1);
+                  break;
+               case 7: // Class
+               case 8: // String
+               case 16: // MethodType
+               case 19: // Module
+               case 20: // Package
+                  pos += 3;
+                  break;
+               case 15: // MethodHandle
+                  pos += 4;
+                  break;
+               case 3: // Integer
+               case 4: // Float
+               case 9: // Fieldref
+               case 10: // Methodref
+               case 11: // InterfaceMethodref
+               case 12: // NameAndType
+               case 17: // Dynamic
+               case 18: // InvokeDynamic
+                  pos += 5;
+                  break;
+               case 5: // Long
+               case 6: // Double
+                  pos += 9;
+                  i++;
+                  break;
+               default:
+                  return null;
+            }
+         }
+
+         int access = readUnsignedShort(bytes, pos);
+         String name = className(bytes, offsets, readUnsignedShort(bytes, pos + 2));
+         String superName = className(bytes, offsets, readUnsignedShort(bytes, pos + 4));
+         int interfaceCount = readUnsignedShort(bytes, pos + 6);
+         String[] interfaces = (interfaceCount == 0) ? NO_INTERFACES : new String[interfaceCount];
+         for (int i = 0; i < interfaceCount; i++)
+         {
+            interfaces[i] = className(bytes, offsets, readUnsignedShort(bytes, pos + 8 + 2 * i));
+         }
+         return new XClassHeader(access, name, superName, interfaces);
+      }
+      catch (IndexOutOfBoundsException e)
+      {
+         // truncated class file
+         return null;
+      }
+   }
+
+   /**
+    * Get a class name from the constant pool.
+    *
+    * @param bytes the class file bytes
+    * @param offsets the constant pool entry offsets
+    * @param index the Class entry index
+    * @return the class binary name, or null for index 0
+    */
+   private static String className(byte[] bytes, int[] offsets, int index)
+   {
+      if (index == 0)
+      {
+         return null;
+      }
+      int utf8 = offsets[readUnsignedShort(bytes, offsets[index])];
+      int length = readUnsignedShort(bytes, utf8);
+
+      // class names are plain ASCII most of the time, modified UTF-8 otherwise
+      String internalName = new String(bytes, utf8 + 2, length, StandardCharsets.UTF_8);
+      return internalName.replace('/', '.');
+   }
+
+   /**
+    * Read an unsigned short.
+    *
+    * @param bytes the bytes
+    * @param pos the position
+    * @return the value
+    */
+   private static int readUnsignedShort(byte[] bytes, int pos)
+   {
+      return ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+   }
+
+   /**
+    * Read an int.
+    *
+    * @param bytes the bytes
+    * @param pos the position
+    * @return the value
+    */
+   private static int readInt(byte[] bytes, int pos)
+   {
+      return (readUnsignedShort(bytes, pos) << 16) | readUnsignedShort(bytes, pos + 2);
+   }
+
+   /**
+    * Checks if the class is concrete, i.e. neither abstract nor an interface.
+    *
+    * @return true, if concrete
+    */
+   boolean isConcrete()
+   {
+      return (access & (ACC_ABSTRACT | ACC_INTERFACE)) == 0;
+   }
+
+   /**
+    * Gets the access flags.
+    *
+    * @return the access flags
+    */
+   int getAccess()
+   {
+      return access;
+   }
+
+   /**
+    * Gets the class name.
+    *
+    * @return the name
+    */
+   String getName()
+   {
+      return name;
+   }
+
+   /**
+    * Gets the super class name.
+    *
+    * @return the super class name, null for java.lang.Object
+    */
+   String getSuperName()
+   {
+      return superName;
+   }
+
+   /**
+    * Gets the interface names.
+    *
+    * @return the interface names
+    */
+   String[] getInterfaces()
+   {
+      return interfaces;
+   }
+}
@@ -0,0 +1,146 @@
+package net.alantea.xtend;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Dependency graph of container extensions, built from their XDependsOn annotations. Containers
+ * are ordered so that each one comes after all the containers it depends on, keeping the load
+ * order between independent containers. Dependencies on containers initialized by previous loads
+ * are already met ; the ones matching no container at all are kept as unresolved.
+ *
+ * @author Alantea
+ *
+ */
+final class XContainerGraph
+{
+
+   /** The containers, in load order. */
+   private List<IExtension> containers;
+
+   /** The dependencies of each container. */
+   private Map<IExtension, List<IExtension>> dependencies = new IdentityHashMap<>();
+
+   /** The dependencies of each container matching no container, only for the containers having some. */
+   private Map<IExtension, List<Class<?>>> unresolved = new IdentityHashMap<>();
+
+   /**
+    * Instantiates a new graph.
+    *
+    * @param containers the containers, in load order
+    * @param initialized the classes of the containers initialized by previous loads
+    */
+   XContainerGraph(List<IExtension> containers, Collection<Class<?>> initialized)
+   {
+      this.containers = containers;
+      for (IExtension container : containers)
+      {
+         List<IExtension> list = new ArrayList<>();
+         XDependsOn annotation = container.getClass().getAnnotation(XDependsOn.class);
+         if (annotation != null)
+         {
+            for (Class<?> dependency : annotation.value())
+            {
+               boolean found = false;
+               for (IExtension other : containers)
+               {
+                  if ((other != container) && (dependency.isInstance(other)))
+                  {
+                     found = true;
+                     if (!list.contains(other))
+                     {
+                        list.add(other);
+                     }
+                  }
+               }
+               if ((!found) && (initialized.stream().noneMatch(dependency::isAssignableFrom)))
+               {
+                  unresolved.computeIfAbsent(container, k -> new ArrayList<>()).add(dependency);
+               }
+            }
+         }
+         dependencies.put(container, list);
+      }
+   }
+
+   /**
+    * Gets the containers a container depends on.
+    *
+    * @param container the container
+    * @return the dependencies
+    */
+   List<IExtension> getDependencies(IExtension container)
+   {
+      return dependencies.get(container);
+   }
+
+   /**
+    * Gets the dependencies matching no container, neither in the graph nor initialized before.
+    *
+    * @return the unresolved dependency classes, by container
+    */
+   Map<IExtension, List<Class<?>>> getUnresolved()
+   {
+      return unresolved;
+   }
+
+   /**
+    * Gets the containers in initialization order.
+    *
+    * @return the ordered containers
+    * @throws Xception if there is a dependency cycle
+    */
+   List<IExtension> getOrder() throws Xception
+   {
+      List<IExtension> ret = new ArrayList<>();
+      Map<IExtension, Boolean> visiting = new IdentityHashMap<>();
+      for (IExtension container : containers)
+      {
+         visit(container, visiting, new ArrayList<>(), ret);
+      }
+      return ret;
+   }
+
+   /**
+    * Visit a container, after its dependencies (depth first).
+    *
+    * @param container the container
+    * @param visiting the visit state : false while visiting, true when done
+    * @param path the current dependency path
+    * @param ordered the ordered containers
+    * @throws Xception if there is a dependency cycle
+    */
+   private void visit(IExtension container, Map<IExtension, Boolean> visiting, List<IExtension> path,
+         List<IExtension> ordered) throws Xception
+   {
+      Boolean done = visiting.get(container);
+      if (Boolean.TRUE.equals(done))
+      {
+         return;
+      }
+      path.add(container);
+      if (done != null)
+      {
+         List<String> names = new ArrayList<>();
+         for (IExtension item : path.subList(path.indexOf(container), path.size()))
+         {
+            names.add(item.getClass().getName());
+         }
+         throw new Xception(Why.CYCLIC_DEPENDENCY, "cyclic dependency : " + String.join(" -> ", names));
+      }
+
+      visiting.put(container, Boolean.FALSE);
+      for (IExtension dependency : dependencies.get(container))
+      {
+         visit(dependency, visiting, path, ordered);
+      }
+      visiting.put(container, Boolean.TRUE);
+      path.remove(path.size() - 1);
+      ordered.add(container);
+   }
+}
@@ -0,0 +1,33 @@
+package net.alantea.xtend;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the container extensions that must be initialized before the annotated one. When
+ * XManager.loadContainerExtensions loads several containers, a container is given its
+ * implementations only once all the containers it depends on have been given theirs. Each class
+ * given here stands for the loaded containers that are instances of it. A class matching no
+ * container of the same load is met by a container initialized before ; if there is none, it is
+ * reported as an unresolved dependency, like the scan errors, and the container is initialized
+ * anyway.
+ *
+ * @author Alantea
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface XDependsOn
+{
+
+  /**
+   * The classes or interfaces of the containers to initialize first.
+   *
+   * @return the dependencies
+   */
+  Class<?>[] value();
+}
@@ -0,0 +1,196 @@
+package net.alantea.xtend;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistent discovery cache : the class headers of each scanned class path entry, stored with the
+ * entry fingerprint and the package prefixes the scan was limited to. The file ends with a CRC32 of
+ * its content ; a file that cannot be read, has a bad checksum, another format version or other
+ * package prefixes is ignored and rewritten.
+ *
+ * @author Alantea
+ *
+ */
+final class XDiskCache
+{
+
+   /** The file magic number. */
+   private static final int MAGIC = 0x58544443;
+
+   /** The file format version. */
+   private static final int VERSION = 2;
+
+   /** Private singleton constructor. */
+   private XDiskCache()
+   {
+   }
+
+   /**
+    * A cached class path entry : its fingerprint and headers.
+    */
+   static final class Entry
+   {
+
+      /** The fingerprint. */
+      final XFingerprint fingerprint;
+
+      /** The headers. */
+      final List<XClassHeader> headers;
+
+      /**
+       * Instantiates a new entry.
+       *
+       * @param fingerprint the fingerprint
+       * @param headers the headers
+       */
+      Entry(XFingerprint fingerprint, List<XClassHeader> headers)
+      {
+         this.fingerprint = fingerprint;
+         this.headers = headers;
+      }
+   }
+
+   /**
+    * Read the cache file.
+    *
+    * @param file the file
+    * @param scanKey the key of the packages scanned, from XFilter.getScanKey()
+    * @return the cached entries by path, empty if the file is missing, corrupt or stale
+    */
+   static Map<String, Entry> read(File file, String scanKey)
+   {
+      Map<String, Entry> ret = new HashMap<>();
+      if (!file.isFile())
+      {
+         return ret;
+      }
+
+      CRC32 crc = new CRC32();
+      try (CheckedInputStream checked = new CheckedInputStream(
+            new BufferedInputStream(Files.newInputStream(file.toPath())), crc);
+            DataInputStream in = new DataInputStream(checked))
+      {
+         if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || (!in.readUTF().equals(scanKey)))
+         {
+            return ret;
+         }
+         int entryCount = in.readInt();
+         for (int i = 0; i < entryCount; i++)
+         {
+            String path = in.readUTF();
+            XFingerprint fingerprint = XFingerprint.read(in);
+            int headerCount = in.readInt();
+            List<XClassHeader> headers = new ArrayList<>(headerCount);
+            for (int j = 0; j < headerCount; j++)
+            {
+               int access = in.readInt();
+               String name = in.readUTF();
+               String superName = in.readBoolean() ? in.readUTF() : null;
+               String[] interfaces = new String[in.readUnsignedShort()];
+               for (int k = 0; k < interfaces.length; k++)
+               {
+                  interfaces[k] = in.readUTF();
+               }
+               headers.add(new XClassHeader(access, name, superName, interfaces));
+            }
+            ret.put(path, new Entry(fingerprint, headers));
+         }
+
+         long expected = crc.getValue();
+         if ((in.readLong() != expected) || (in.read() >= 0))
+         {
+            ret.clear();
+         }
+      }
+      catch (IOException | RuntimeException e)
+      {
+         // corrupt cache : rebuilt from scratch
+         ret.clear();
+      }
+      return ret;
+   }
+
+   /**
+    * Write the cache file. The file is written aside and then moved, so that readers never see a
+    * partial file.
+    *
+    * @param file the file
+    * @param catalog the catalog to store
+    * @param scanKey the key of the packages scanned, from XFilter.getScanKey()
+    */
+   static void write(File file, XCatalog catalog, String scanKey)
+   {
+      Path target = file.toPath().toAbsolutePath();
+      Path temp = null;
+      try
+      {
+         Files.createDirectories(target.getParent());
+         temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+         CRC32 crc = new CRC32();
+         try (CheckedOutputStream checked = new CheckedOutputStream(
+               new BufferedOutputStream(Files.newOutputStream(temp)), crc);
+               DataOutputStream out = new DataOutputStream(checked))
+         {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(scanKey);
+            List<String> entries = new ArrayList<>();
+            for (String entry : catalog.getEntries())
+            {
+               if (catalog.isComplete(entry))
+               {
+                  entries.add(entry);
+               }
+            }
+            out.writeInt(entries.size());
+            for (String entry : entries)
+            {
+               out.writeUTF(entry);
+               catalog.getFingerprint(entry).write(out);
+               out.writeInt(catalog.getHeaders(entry).size());
+               for (XClassHeader header : catalog.getHeaders(entry))
+               {
+                  out.writeInt(header.getAccess());
+                  out.writeUTF(header.getName());
+                  out.writeBoolean(header.getSuperName() != null);
+                  if (header.getSuperName() != null)
+                  {
+                     out.writeUTF(header.getSuperName());
+                  }
+                  out.writeShort(header.getInterfaces().length);
+                  for (String superInterface : header.getInterfaces())
+                  {
+                     out.writeUTF(superInterface);
+                  }
+               }
+            }
+            out.flush();
+            out.writeLong(crc.getValue());
+         }
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (IOException | RuntimeException e)
+      {
+         // the cache is only an optimization : discovery goes on without it
+         if (temp != null)
+         {
+            temp.toFile().delete();
+         }
+      }
+   }
+}
@@ -0,0 +1,95 @@
+package net.alantea.xtend;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used by XManager for background work. Virtual threads are used when the running Java
+ * version offers them, daemon platform threads otherwise.
+ *
+ * @author Alantea
+ *
+ */
+final class XExecutors
+{
+
+   /** The default executor, created on first use. */
+   private static volatile ExecutorService defaultExecutor;
+
+   /** Private singleton constructor. */
+   private XExecutors()
+   {
+   }
+
+   /**
+    * Gets the default executor.
+    *
+    * @return the default executor
+    */
+   static ExecutorService getDefault()
+   {
+      ExecutorService ret = defaultExecutor;
+      if (ret == null)
+      {
+         synchronized (XExecutors.class)
+         {
+            ret = defaultExecutor;
+            if (ret == null)
+            {
+               ret = createVirtualThreadExecutor();
+               if (ret == null)
+               {
+                  ret = Executors.newCachedThreadPool(new DaemonThreadFactory());
+               }
+               defaultExecutor = ret;
+            }
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Create a virtual thread per task executor, when available (Java 21 and later).
+    *
+    * @return the executor, or null if virtual threads are not available
+    */
+   private static ExecutorService createVirtualThreadExecutor()
+   {
+      try
+      {
+         Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+         return (ExecutorService) method.invoke(null);
+      }
+      catch (ReflectiveOperationException | RuntimeException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Factory for daemon threads, so that background loads never prevent the JVM from exiting.
+    */
+   private static final class DaemonThreadFactory implements ThreadFactory
+   {
+
+      /** The thread counter. */
+      private AtomicInteger counter = new AtomicInteger();
+
+      /**
+       * Create a new thread.
+       *
+       * @param runnable the runnable
+       * @return the thread
+       */
+      @Override
+      public Thread newThread(Runnable runnable)
+      {
+         Thread thread = new Thread(runnable, "xtend-" + counter.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      }
+   }
+}
@@ -0,0 +1,259 @@
+package net.alantea.xtend;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Precompiled constructor call for an extension class. The public constructors of a class are
+ * resolved once, on its first instantiation, and their method handles are kept with the class
+ * itself, grouped by number of parameters. Selecting the constructor for a call allocates nothing,
+ * and constructors with up to three parameters are called without spreading the arguments.
+ *
+ * @author Alantea
+ *
+ */
+final class XFactory
+{
+
+   /** Maximum number of parameters of a constructor called without spreading the arguments. */
+   private static final int MAX_DIRECT_ARITY = 3;
+
+   /** The factories of each class, by number of parameters. */
+   private static final ClassValue<XFactory[][]> FACTORIES = new ClassValue<XFactory[][]>()
+   {
+      @Override
+      protected XFactory[][] computeValue(Class<?> type)
+      {
+         XMetrics.Probe probe = XMetrics.start(XMetrics.Phase.CONSTRUCTOR_RESOLUTION, type);
+         try
+         {
+            return create(type);
+         }
+         finally
+         {
+            XMetrics.stop(probe);
+         }
+      }
+   };
+
+   /** The instantiated class. */
+   private Class<?> target;
+
+   /** The parameter types, primitive ones being wrapped. */
+   private Class<?>[] types;
+
+   /**
+    * The constructor handle, typed as (Object...)Object up to MAX_DIRECT_ARITY parameters and as
+    * (Object[])Object above. Null if the constructor is not accessible.
+    */
+   private MethodHandle handle;
+
+   /** Why the constructor is not accessible, null if it is. */
+   private Exception inaccessible;
+
+   /**
+    * Instantiates a new factory.
+    *
+    * @param target the instantiated class
+    * @param types the parameter types, wrapped
+    * @param handle the adapted constructor handle, null if not accessible
+    * @param inaccessible why the constructor is not accessible, null if it is
+    */
+   private XFactory(Class<?> target, Class<?>[] types, MethodHandle handle, Exception inaccessible)
+   {
+      this.target = target;
+      this.types = types;
+      this.handle = handle;
+      this.inaccessible = inaccessible;
+   }
+
+   /**
+    * Gets the factory for a class and the given arguments.
+    *
+    * @param cl the class to instantiate
+    * @param args the arguments
+    * @return the factory
+    * @throws Xception if no public constructor accepts the arguments
+    */
+   static XFactory get(Class<?> cl, Object... args) throws Xception
+   {
+      XFactory[][] byArity = FACTORIES.get(cl);
+      XFactory ret = null;
+      if (args.length < byArity.length)
+      {
+         for (XFactory factory : byArity[args.length])
+         {
+            if (factory.accepts(args))
+            {
+               ret = factory;
+            }
+         }
+      }
+      if (ret == null)
+      {
+         throw new Xception(Why.BAD_CONSTRUCTOR, "no constructor found for " + cl.getName());
+      }
+      if (ret.inaccessible != null)
+      {
+         throw new Xception(Why.BAD_CONSTRUCTOR, "constructor not accessible for " + cl.getName(), ret.inaccessible);
+      }
+      return ret;
+   }
+
+   /**
+    * Checks if the constructor accepts the arguments.
+    *
+    * @param args the arguments, as many as parameters
+    * @return true, if each argument is null or of its parameter type
+    */
+   private boolean accepts(Object[] args)
+   {
+      for (int i = 0; i < types.length; i++)
+      {
+         if ((args[i] != null) && (!types[i].isInstance(args[i])))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Create a new instance.
+    *
+    * @param args the arguments, matching the factory signature
+    * @return the instance
+    * @throws Xception if the constructor failed
+    */
+   Object newInstance(Object... args) throws Xception
+   {
+      XMetrics.Probe probe = XMetrics.start(XMetrics.Phase.CONSTRUCTION, target);
+      try
+      {
+         switch (types.length)
+         {
+            case 0:
+               return (Object) handle.invokeExact();
+            case 1:
+               return (Object) handle.invokeExact(args[0]);
+            case 2:
+               return (Object) handle.invokeExact(args[0], args[1]);
+            case 3:
+               return (Object) handle.invokeExact(args[0], args[1], args[2]);
+            default:
+               return (Object) handle.invokeExact(args);
+         }
+      }
+      catch (Error e)
+      {
+         throw e;
+      }
+      catch (Exception e)
+      {
+         throw new Xception(Why.BAD_CONSTRUCTOR, "error creating " + target.getName(), e);
+      }
+      catch (Throwable e)
+      {
+         throw new Xception(Why.BAD_CONSTRUCTOR, "error creating " + target.getName() + " : " + e);
+      }
+      finally
+      {
+         XMetrics.stop(probe);
+      }
+   }
+
+   /**
+    * Build the factories of all the public constructors of a class.
+    *
+    * @param cl the class
+    * @return the factories, by number of parameters
+    */
+   private static XFactory[][] create(Class<?> cl)
+   {
+      List<List<XFactory>> byArity = new ArrayList<>();
+      for (Constructor<?> constructor : cl.getConstructors())
+      {
+         Class<?>[] parms = constructor.getParameterTypes();
+         Class<?>[] types = new Class<?>[parms.length];
+         for (int i = 0; i < parms.length; i++)
+         {
+            types[i] = wrap(parms[i]);
+         }
+
+         MethodHandle handle = null;
+         Exception inaccessible = null;
+         try
+         {
+            handle = adapt(unreflect(constructor), parms.length);
+         }
+         catch (IllegalAccessException | SecurityException e)
+         {
+            inaccessible = e;
+         }
+
+         while (byArity.size() <= parms.length)
+         {
+            byArity.add(new ArrayList<>());
+         }
+         byArity.get(parms.length).add(new XFactory(cl, types, handle, inaccessible));
+      }
+
+      XFactory[][] ret = new XFactory[byArity.size()][];
+      for (int i = 0; i < ret.length; i++)
+      {
+         ret[i] = byArity.get(i).toArray(new XFactory[0]);
+      }
+      return ret;
+   }
+
+   /**
+    * Get the handle of a public constructor.
+    *
+    * @param constructor the constructor
+    * @return the handle
+    * @throws IllegalAccessException if the constructor is not accessible
+    */
+   private static MethodHandle unreflect(Constructor<?> constructor) throws IllegalAccessException
+   {
+      try
+      {
+         return MethodHandles.publicLookup().unreflectConstructor(constructor);
+      }
+      catch (IllegalAccessException e)
+      {
+         // public constructor of a non public class
+         constructor.setAccessible(true);
+         return MethodHandles.lookup().unreflectConstructor(constructor);
+      }
+   }
+
+   /**
+    * Adapt a constructor handle to generic arguments, spreading them above MAX_DIRECT_ARITY.
+    *
+    * @param handle the constructor handle
+    * @param arity the number of parameters
+    * @return the adapted handle
+    */
+   private static MethodHandle adapt(MethodHandle handle, int arity)
+   {
+      MethodHandle ret = handle.asType(MethodType.genericMethodType(arity));
+      return (arity <= MAX_DIRECT_ARITY) ? ret : ret.asSpreader(Object[].class, arity);
+   }
+
+   /**
+    * Get the wrapper type of a primitive type.
+    *
+    * @param type the type
+    * @return the wrapper type, or the type itself if not primitive
+    */
+   private static Class<?> wrap(Class<?> type)
+   {
+      return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+   }
+}
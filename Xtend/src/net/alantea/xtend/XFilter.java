@@ -0,0 +1,329 @@
+package net.alantea.xtend;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Discovery filter, limiting the extensions searched to some packages and some class path entries.
+ * Packages are given as prefixes ("com.ourshop.plugins" or "com.ourshop.plugins.*" both cover the
+ * package and its sub-packages). Entries are given as glob patterns, matched against the entry
+ * file name and against its whole path ("ourshop-plugins-*.jar"). A filter without packages accepts
+ * all packages, and a filter without entry patterns accepts all entries. Filters are immutable.
+ *
+ * @author Alantea
+ *
+ */
+public final class XFilter
+{
+
+   /** The filter accepting everything. */
+   public static final XFilter NONE = new XFilter(Collections.<String>emptyList(), Collections.<String>emptyList(),
+         null);
+
+   /** The package prefixes, ending with a dot. */
+   private List<String> packages;
+
+   /** The entry patterns. */
+   private List<String> entryPatterns;
+
+   /** The entry pattern matchers. */
+   private List<PathMatcher> matchers = new ArrayList<>();
+
+   /** The filter that must accept too, null if none. */
+   private XFilter outer;
+
+   /**
+    * Instantiates a new filter.
+    *
+    * @param packages the package prefixes
+    * @param entryPatterns the entry patterns
+    * @param outer the filter that must accept too, null if none
+    */
+   private XFilter(List<String> packages, List<String> entryPatterns, XFilter outer)
+   {
+      this.outer = outer;
+      List<String> prefixes = new ArrayList<>();
+      for (String prefix : packages)
+      {
+         String name = prefix.endsWith(".*") ? prefix.substring(0, prefix.length() - 2) : prefix;
+         prefixes.add(name.endsWith(".") ? name : name + ".");
+      }
+      this.packages = Collections.unmodifiableList(prefixes);
+      this.entryPatterns = Collections.unmodifiableList(new ArrayList<>(entryPatterns));
+      for (String pattern : entryPatterns)
+      {
+         matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+      }
+   }
+
+   /**
+    * Create a filter limited to package prefixes.
+    *
+    * @param prefixes the package prefixes
+    * @return the filter
+    */
+   public static XFilter packages(String... prefixes)
+   {
+      return NONE.andPackages(prefixes);
+   }
+
+   /**
+    * Create a filter limited to class path entry patterns.
+    *
+    * @param patterns the glob patterns
+    * @return the filter
+    */
+   public static XFilter entries(String... patterns)
+   {
+      return NONE.andEntries(patterns);
+   }
+
+   /**
+    * Create a filter accepting also the given package prefixes.
+    *
+    * @param prefixes the package prefixes
+    * @return the new filter
+    */
+   public XFilter andPackages(String... prefixes)
+   {
+      List<String> list = new ArrayList<>(packages);
+      list.addAll(Arrays.asList(prefixes));
+      return new XFilter(list, entryPatterns, outer);
+   }
+
+   /**
+    * Create a filter accepting also the given class path entry patterns.
+    *
+    * @param patterns the glob patterns
+    * @return the new filter
+    */
+   public XFilter andEntries(String... patterns)
+   {
+      List<String> list = new ArrayList<>(entryPatterns);
+      list.addAll(Arrays.asList(patterns));
+      return new XFilter(packages, list, outer);
+   }
+
+   /**
+    * Create a filter accepting only what both this filter and another one accept.
+    *
+    * @param other the other filter
+    * @return the new filter
+    */
+   XFilter within(XFilter other)
+   {
+      if (other.isNone())
+      {
+         return this;
+      }
+      if (isNone())
+      {
+         return other;
+      }
+      return new XFilter(packages, entryPatterns, (outer == null) ? other : outer.within(other));
+   }
+
+   /**
+    * Gets the package prefixes.
+    *
+    * @return the package prefixes, each one ending with a dot
+    */
+   public List<String> getPackages()
+   {
+      return packages;
+   }
+
+   /**
+    * Gets the entry patterns.
+    *
+    * @return the entry patterns
+    */
+   public List<String> getEntryPatterns()
+   {
+      return entryPatterns;
+   }
+
+   /**
+    * Checks if the filter accepts everything.
+    *
+    * @return true, if nothing is filtered
+    */
+   boolean isNone()
+   {
+      return packages.isEmpty() && entryPatterns.isEmpty() && ((outer == null) || (outer.isNone()));
+   }
+
+   /**
+    * Checks if a class name is in an accepted package.
+    *
+    * @param className the class binary name
+    * @return true, if accepted
+    */
+   boolean acceptsClass(String className)
+   {
+      if ((outer != null) && (!outer.acceptsClass(className)))
+      {
+         return false;
+      }
+      if (packages.isEmpty())
+      {
+         return true;
+      }
+      for (String prefix : packages)
+      {
+         if (className.startsWith(prefix))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Checks if a class file, given by its path in an entry, is in an accepted package. The class
+    * file does not need to be read.
+    *
+    * @param path the resource path, with slashes
+    * @return true, if accepted
+    */
+   boolean acceptsResource(String path)
+   {
+      return acceptsClass(path.replace('/', '.'));
+   }
+
+   /**
+    * Checks if a class path entry is accepted.
+    *
+    * @param entry the entry path, null if unknown
+    * @return true, if accepted
+    */
+   boolean acceptsEntry(String entry)
+   {
+      if ((outer != null) && (!outer.acceptsEntry(entry)))
+      {
+         return false;
+      }
+      if (matchers.isEmpty())
+      {
+         return true;
+      }
+      if (entry == null)
+      {
+         return false;
+      }
+      Path path = Paths.get(entry);
+      for (PathMatcher matcher : matchers)
+      {
+         if ((matcher.matches(path)) || ((path.getFileName() != null) && (matcher.matches(path.getFileName()))))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Checks if a loaded class is accepted : its package and the entry it has been loaded from.
+    *
+    * @param cl the class
+    * @return true, if accepted
+    */
+   boolean accepts(Class<?> cl)
+   {
+      if (!acceptsClass(cl.getName()))
+      {
+         return false;
+      }
+      if (!hasEntryPatterns())
+      {
+         return true;
+      }
+      CodeSource source = cl.getProtectionDomain().getCodeSource();
+      if ((source == null) || (source.getLocation() == null))
+      {
+         return false;
+      }
+      try
+      {
+         File entry = new File(source.getLocation().toURI());
+         return acceptsEntry(entry.toPath().toAbsolutePath().normalize().toString());
+      }
+      catch (URISyntaxException | IllegalArgumentException | SecurityException e)
+      {
+         // not a file location
+         return false;
+      }
+   }
+
+   /**
+    * Checks if the filter, or the one that must accept too, limits the entries.
+    *
+    * @return true, if entries are filtered
+    */
+   private boolean hasEntryPatterns()
+   {
+      return (!matchers.isEmpty()) || ((outer != null) && (outer.hasEntryPatterns()));
+   }
+
+   /**
+    * Gets the key of what is kept when scanning entries : the package prefixes.
+    *
+    * @return the scan key
+    */
+   String getScanKey()
+   {
+      String key = String.join(",", packages);
+      return (outer == null) ? key : key + ";" + outer.getScanKey();
+   }
+
+   /**
+    * Hash code.
+    *
+    * @return the hash code
+    */
+   @Override
+   public int hashCode()
+   {
+      return (packages.hashCode() * 31 + entryPatterns.hashCode()) * 31 + Objects.hashCode(outer);
+   }
+
+   /**
+    * Equals.
+    *
+    * @param object the object
+    * @return true, if equal
+    */
+   @Override
+   public boolean equals(Object object)
+   {
+      if (!(object instanceof XFilter))
+      {
+         return false;
+      }
+      XFilter other = (XFilter) object;
+      return packages.equals(other.packages) && entryPatterns.equals(other.entryPatterns)
+            && Objects.equals(outer, other.outer);
+   }
+
+   /**
+    * To string.
+    *
+    * @return the string
+    */
+   @Override
+   public String toString()
+   {
+      return "XFilter[packages=" + packages + ", entries=" + entryPatterns
+            + ((outer == null) ? "" : ", within=" + outer) + "]";
+   }
+}
@@ -0,0 +1,140 @@
+package net.alantea.xtend;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.stream.Stream;
+
+/**
+ * Fingerprint of a class path entry : size and last modification time for a jar, total size, class
+ * files count and latest modification time for a directory. An entry whose fingerprint did not
+ * change does not need to be scanned again.
+ *
+ * @author Alantea
+ *
+ */
+final class XFingerprint
+{
+
+   /** The size, in bytes. */
+   private long size;
+
+   /** The last modification time. */
+   private long modified;
+
+   /** The files count. */
+   private int count;
+
+   /**
+    * Instantiates a new fingerprint.
+    *
+    * @param size the size
+    * @param modified the last modification time
+    * @param count the files count
+    */
+   XFingerprint(long size, long modified, int count)
+   {
+      this.size = size;
+      this.modified = modified;
+      this.count = count;
+   }
+
+   /**
+    * Compute the fingerprint of a class path entry.
+    *
+    * @param entry the entry path
+    * @return the fingerprint, empty if the entry does not exist
+    */
+   static XFingerprint of(String entry)
+   {
+      File file = new File(entry);
+      if (file.isFile())
+      {
+         return new XFingerprint(file.length(), file.lastModified(), 1);
+      }
+      if (!file.isDirectory())
+      {
+         return new XFingerprint(0, 0, 0);
+      }
+
+      long[] values = new long[3];
+      try (Stream<Path> paths = Files.walk(file.toPath()))
+      {
+         paths.filter(path -> path.toString().endsWith(".class")).forEach(path -> {
+            try
+            {
+               BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+               values[0] += attributes.size();
+               values[1] = Math.max(values[1], attributes.lastModifiedTime().toMillis());
+               values[2]++;
+            }
+            catch (IOException e)
+            {
+               // vanished file : not counted
+            }
+         });
+      }
+      catch (IOException | RuntimeException e)
+      {
+         // unreadable directory : empty fingerprint
+      }
+      return new XFingerprint(values[0], values[1], (int) values[2]);
+   }
+
+   /**
+    * Read a fingerprint.
+    *
+    * @param in the input
+    * @return the fingerprint
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   static XFingerprint read(DataInput in) throws IOException
+   {
+      return new XFingerprint(in.readLong(), in.readLong(), in.readInt());
+   }
+
+   /**
+    * Write the fingerprint.
+    *
+    * @param out the output
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   void write(DataOutput out) throws IOException
+   {
+      out.writeLong(size);
+      out.writeLong(modified);
+      out.writeInt(count);
+   }
+
+   /**
+    * Hash code.
+    *
+    * @return the hash code
+    */
+   @Override
+   public int hashCode()
+   {
+      return (int) (size ^ (size >>> 32) ^ modified ^ (modified >>> 32)) + 31 * count;
+   }
+
+   /**
+    * Equals.
+    *
+    * @param object the object
+    * @return true, if equal
+    */
+   @Override
+   public boolean equals(Object object)
+   {
+      if (!(object instanceof XFingerprint))
+      {
+         return false;
+      }
+      XFingerprint other = (XFingerprint) object;
+      return (size == other.size) && (modified == other.modified) && (count == other.count);
+   }
+}
@@ -0,0 +1,184 @@
+package net.alantea.xtend;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Lazy handle on an extension. The handle knows the implementation class, and constructs the
+ * instance on first access only. Construction happens once, even when several threads access the
+ * handle at the same time ; a failed construction is tried again on next access.
+ *
+ * @author Alantea
+ *
+ * @param <T> the extension type
+ */
+public final class XHandle<T>
+{
+
+   /** The base class. */
+   private Class<?> baseClass;
+
+   /** The implementation class. */
+   private Class<? extends T> implementationClass;
+
+   /** The constructor arguments. */
+   private Object[] args;
+
+   /** The instance, null until constructed. */
+   private volatile T instance;
+
+   /**
+    * Instantiates a new handle.
+    *
+    * @param baseClass the base class
+    * @param implementationClass the implementation class
+    * @param args the constructor arguments
+    */
+   XHandle(Class<?> baseClass, Class<? extends T> implementationClass, Object[] args)
+   {
+      this.baseClass = baseClass;
+      this.implementationClass = implementationClass;
+      this.args = args;
+   }
+
+   /**
+    * Gets the base class the extension was searched for.
+    *
+    * @return the base class
+    */
+   public Class<?> getBaseClass()
+   {
+      return baseClass;
+   }
+
+   /**
+    * Gets the implementation class.
+    *
+    * @return the implementation class
+    */
+   public Class<? extends T> getImplementationClass()
+   {
+      return implementationClass;
+   }
+
+   /**
+    * Gets the implementation class name.
+    *
+    * @return the implementation class name
+    */
+   public String getName()
+   {
+      return implementationClass.getName();
+   }
+
+   /**
+    * Checks if the instance has already been constructed.
+    *
+    * @return true, if constructed
+    */
+   public boolean isLoaded()
+   {
+      return instance != null;
+   }
+
+   /**
+    * Gets the instance, constructing it on first access. The associated bundle is registered at
+    * the same time.
+    *
+    * @return the instance
+    * @throws Xception if the construction failed
+    */
+   public T get() throws Xception
+   {
+      T ret = instance;
+      if (ret == null)
+      {
+         synchronized (this)
+         {
+            ret = instance;
+            if (ret == null)
+            {
+               ret = XManager.loadSpecificExtension(implementationClass, args);
+               instance = ret;
+            }
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Gets a proxy implementing the base interface. The instance is constructed on the first call
+    * of an interface method on the proxy. If the construction fails, the call throws an
+    * UndeclaredThrowableException holding the Xception. The Object methods are answered by the
+    * proxy itself, without constructing the instance : equals and hashCode are those of the proxy
+    * identity, and toString describes the handle.
+    *
+    * @return the proxy
+    * @throws Xception if the base class is not an interface
+    */
+   @SuppressWarnings("unchecked")
+   public T proxy() throws Xception
+   {
+      if (!baseClass.isInterface())
+      {
+         throw new Xception(Why.BAD_EXTENSION, baseClass.getName() + " is not an interface");
+      }
+      // a non public interface can only be proxied from its own class loader, and called once accessible
+      boolean accessible = Modifier.isPublic(baseClass.getModifiers());
+      return (T) Proxy.newProxyInstance(baseClass.getClassLoader(), new Class<?>[] { baseClass },
+            (proxy, method, methodArgs) -> {
+               if (method.getDeclaringClass() == Object.class)
+               {
+                  return invokeObjectMethod(proxy, method, methodArgs);
+               }
+               if (!accessible)
+               {
+                  method.setAccessible(true);
+               }
+               try
+               {
+                  return method.invoke(get(), methodArgs);
+               }
+               catch (InvocationTargetException e)
+               {
+                  throw e.getCause();
+               }
+            });
+   }
+
+   /**
+    * Answer an Object method called on the proxy.
+    *
+    * @param proxy the proxy
+    * @param method equals, hashCode or toString
+    * @param methodArgs the method arguments
+    * @return the result
+    */
+   private Object invokeObjectMethod(Object proxy, Method method, Object[] methodArgs)
+   {
+      switch (method.getName())
+      {
+         case "equals":
+            return proxy == methodArgs[0];
+         case "hashCode":
+            return System.identityHashCode(proxy);
+         default:
+            return "proxy of " + toString();
+      }
+   }
+
+   /**
+    * To string.
+    *
+    * @return the string
+    */
+   @Override
+   public String toString()
+   {
+      return "XHandle[" + implementationClass.getName() + (isLoaded() ? ", loaded]" : "]");
+   }
+}
@@ -0,0 +1,358 @@
+package net.alantea.xtend;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Extension index read from the META-INF/xtend/extensions.index files written at build time by the
+ * XIndexProcessor. The index knows the class path entries it covers, so that only the other entries
+ * still have to be scanned. An index that does not list every named class of its jar or directory,
+ * as in a shaded jar or a directory partly compiled without the processor, is ignored and the entry
+ * is scanned.
+ *
+ * @author Alantea
+ *
+ */
+final class XIndex
+{
+
+   /** The index resource path, in each jar or class directory. */
+   static final String INDEX_RESOURCE = "META-INF/xtend/extensions.index";
+
+   /** The index file header. */
+   static final String INDEX_HEADER = "# Xtend extension index v2";
+
+   /** The class loader. */
+   private ClassLoader loader;
+
+   /** The implementors, by super type name. */
+   private Map<String, List<String>> implementors = new HashMap<>();
+
+   /** The indexed class path entry of each implementor. */
+   private Map<String, String> implementorEntries = new HashMap<>();
+
+   /** The indexed class path entries. */
+   private Set<String> indexedEntries = new HashSet<>();
+
+   /** The indexed class path entries fingerprints, at load time. */
+   private Map<String, XFingerprint> fingerprints = new HashMap<>();
+
+   /** The class path entries. */
+   private List<String> classPathEntries;
+
+   /** The class path entries without index, in class path order. */
+   private List<String> unindexedEntries = new ArrayList<>();
+
+   /**
+    * Instantiates a new index.
+    *
+    * @param loader the class loader to read indexes from
+    */
+   private XIndex(ClassLoader loader)
+   {
+      this.loader = loader;
+   }
+
+   /**
+    * Load all the indexes visible from a class loader.
+    *
+    * @param loader the class loader
+    * @return the index
+    */
+   static XIndex load(ClassLoader loader)
+   {
+      XIndex index = new XIndex(loader);
+      try
+      {
+         Enumeration<URL> urls = loader.getResources(INDEX_RESOURCE);
+         while (urls.hasMoreElements())
+         {
+            URL url = urls.nextElement();
+            String entry = getEntry(url, INDEX_RESOURCE);
+            if ((entry != null) && (!index.indexedEntries.contains(entry)) && (index.read(url, entry)))
+            {
+               index.indexedEntries.add(entry);
+               index.fingerprints.put(entry, XFingerprint.of(entry));
+            }
+         }
+      }
+      catch (IOException e)
+      {
+         // a broken index is ignored : entries will be scanned.
+         index.indexedEntries.clear();
+         index.implementors.clear();
+         index.implementorEntries.clear();
+      }
+
+      index.classPathEntries = getClassPathEntries();
+      for (String entry : index.classPathEntries)
+      {
+         if (!index.indexedEntries.contains(entry))
+         {
+            index.unindexedEntries.add(entry);
+         }
+      }
+      return index;
+   }
+
+   /**
+    * Read an index file. The index is used only if it has the current format and lists all the
+    * named classes of its jar or directory.
+    *
+    * @param url the index file URL
+    * @param entry the class path entry the index comes from
+    * @return true, if the index has been used
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private boolean read(URL url, String entry) throws IOException
+   {
+      Map<String, String[]> lines = new LinkedHashMap<>();
+      int types = 0;
+      try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)))
+      {
+         if (!INDEX_HEADER.equals(reader.readLine()))
+         {
+            return false;
+         }
+         String line;
+         while ((line = reader.readLine()) != null)
+         {
+            if ((line.startsWith("#")) || (line.isEmpty()))
+            {
+               continue;
+            }
+            types++;
+            int pos = line.indexOf('=');
+            if (pos > 0)
+            {
+               lines.put(line.substring(0, pos), line.substring(pos + 1).split(","));
+            }
+         }
+      }
+      if (countNamedClasses(new File(entry)) != types)
+      {
+         // partial index, as in a shaded jar or after an incremental build without the processor
+         return false;
+      }
+
+      for (Map.Entry<String, String[]> line : lines.entrySet())
+      {
+         String implementor = line.getKey();
+         implementorEntries.putIfAbsent(implementor, entry);
+         for (String superType : line.getValue())
+         {
+            if (!superType.isEmpty())
+            {
+               implementors.computeIfAbsent(superType, k -> new ArrayList<>()).add(implementor);
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Count the named class files of a class path entry : from its central directory only for a jar,
+    * from the file names for a directory.
+    *
+    * @param file the jar or directory
+    * @return the named class files count, -1 if the entry is unreadable
+    */
+   private static int countNamedClasses(File file)
+   {
+      if (file.isDirectory())
+      {
+         Path root = file.toPath();
+         try (Stream<Path> paths = Files.walk(root))
+         {
+            return (int) paths.filter(path -> XScanner.isNamedClass(
+                  root.relativize(path).toString().replace(File.separatorChar, '/'))).count();
+         }
+         catch (IOException | RuntimeException e)
+         {
+            return -1;
+         }
+      }
+
+      int ret = 0;
+      try (JarFile jarFile = new JarFile(file))
+      {
+         Enumeration<JarEntry> entries = jarFile.entries();
+         while (entries.hasMoreElements())
+         {
+            if (XScanner.isNamedClass(entries.nextElement().getName()))
+            {
+               ret++;
+            }
+         }
+      }
+      catch (IOException e)
+      {
+         return -1;
+      }
+      return ret;
+   }
+
+   /**
+    * Checks if the index is still up to date : the class path did not change and none of the
+    * indexed entries has been modified since the index was loaded.
+    *
+    * @return true, if up to date
+    */
+   boolean isUpToDate()
+   {
+      if (!classPathEntries.equals(getClassPathEntries()))
+      {
+         return false;
+      }
+      for (Map.Entry<String, XFingerprint> entry : fingerprints.entrySet())
+      {
+         if (!entry.getValue().equals(XFingerprint.of(entry.getKey())))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Gets the indexed implementor names for a base class.
+    *
+    * @param baseClass the base class
+    * @return the implementor names, never null
+    */
+   List<String> getImplementorNames(Class<?> baseClass)
+   {
+      List<String> ret = implementors.get(baseClass.getName());
+      return (ret == null) ? Collections.<String>emptyList() : ret;
+   }
+
+   /**
+    * Gets the class path entry whose index lists an implementor.
+    *
+    * @param implementor the implementor name
+    * @return the entry path, or null if the implementor is not indexed
+    */
+   String getImplementorEntry(String implementor)
+   {
+      return implementorEntries.get(implementor);
+   }
+
+   /**
+    * Checks if the class path has been split into entries. If not, indexes are the only known
+    * entries and the whole class path must still be scanned.
+    *
+    * @return true, if the class path entries are known
+    */
+   boolean hasClassPathEntries()
+   {
+      return !classPathEntries.isEmpty();
+   }
+
+   /**
+    * Gets the class path entries that are not indexed, and must still be scanned.
+    *
+    * @return the unindexed entries, in class path order
+    */
+   List<String> getUnindexedEntries()
+   {
+      return unindexedEntries;
+   }
+
+   /**
+    * Checks if a class comes from an indexed class path entry.
+    *
+    * @param className the class name
+    * @return true, if the class is covered by an index
+    */
+   boolean isIndexed(String className)
+   {
+      String resource = className.replace('.', '/') + ".class";
+      URL url = loader.getResource(resource);
+      return (url != null) && (indexedEntries.contains(getEntry(url, resource)));
+   }
+
+   /**
+    * Gets the class path entries.
+    *
+    * @return the class path entries, as absolute normalized paths
+    */
+   static List<String> getClassPathEntries()
+   {
+      List<String> ret = new ArrayList<>();
+      String classPath = System.getProperty("java.class.path", "");
+      for (String path : classPath.split(File.pathSeparator))
+      {
+         File file = new File(path);
+         if ((!path.isEmpty()) && (file.exists()))
+         {
+            ret.add(normalize(file));
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Gets the class path entry a resource has been found in.
+    *
+    * @param url the resource URL
+    * @param resource the resource path
+    * @return the entry path, or null if it cannot be determined
+    */
+   static String getEntry(URL url, String resource)
+   {
+      try
+      {
+         if ("jar".equals(url.getProtocol()))
+         {
+            String path = url.getPath();
+            int pos = path.indexOf("!/");
+            return (pos < 0) ? null : normalize(new File(new URL(path.substring(0, pos)).toURI()));
+         }
+         else if ("file".equals(url.getProtocol()))
+         {
+            File file = new File(url.toURI());
+            for (int i = resource.split("/").length; (i > 0) && (file != null); i--)
+            {
+               file = file.getParentFile();
+            }
+            return (file == null) ? null : normalize(file);
+         }
+      }
+      catch (IOException | URISyntaxException | IllegalArgumentException e)
+      {
+         // unknown location
+      }
+      return null;
+   }
+
+   /**
+    * Normalize a class path entry.
+    *
+    * @param file the file
+    * @return the normalized path
+    */
+   private static String normalize(File file)
+   {
+      return file.toPath().toAbsolutePath().normalize().toString();
+   }
+}
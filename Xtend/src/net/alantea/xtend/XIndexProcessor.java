@@ -0,0 +1,242 @@
+package net.alantea.xtend;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor writing the extension index of a compilation unit set. Every concrete class
+ * compiled with this processor on the class path is written in the index, along with all the
+ * classes and interfaces it derives from. The other named types are listed too, so that an index
+ * missing some classes of its entry can be detected. XManager reads those indexes instead of
+ * scanning the jars they come from.
+ *
+ * When the class output already holds an index, as in an incremental build, the types that were
+ * not compiled again and whose class file is still there are kept in the new index.
+ *
+ * The processor is registered as a service in the Xtend jar, so it runs automatically for any
+ * project compiled against Xtend.
+ *
+ * @author Alantea
+ *
+ */
+@SupportedAnnotationTypes("*")
+public class XIndexProcessor extends AbstractProcessor
+{
+
+   /** The indexed implementors, with their super types. */
+   private Map<String, Set<String>> implementors = new TreeMap<>();
+
+   /** The indexed named types, concrete or not. */
+   private Set<String> types = new TreeSet<>();
+
+   /**
+    * Gets the supported source version.
+    *
+    * @return the latest supported version
+    */
+   @Override
+   public SourceVersion getSupportedSourceVersion()
+   {
+      return SourceVersion.latestSupported();
+   }
+
+   /**
+    * Process a round.
+    *
+    * @param annotations the annotations
+    * @param roundEnv the round environment
+    * @return false, to let other processors work on annotations
+    */
+   @Override
+   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+   {
+      for (Element element : roundEnv.getRootElements())
+      {
+         registerType(element);
+      }
+
+      if (roundEnv.processingOver())
+      {
+         writeIndex();
+      }
+      return false;
+   }
+
+   /**
+    * Register a type and its member types.
+    *
+    * @param element the element
+    */
+   private void registerType(Element element)
+   {
+      if ((element.getKind().isClass()) || (element.getKind().isInterface()))
+      {
+         types.add(binaryName((TypeElement) element));
+      }
+      if ((element.getKind() == ElementKind.CLASS) && (!element.getModifiers().contains(Modifier.ABSTRACT)))
+      {
+         TypeElement type = (TypeElement) element;
+         implementors.put(binaryName(type), getSuperTypes(type));
+      }
+      for (Element enclosed : element.getEnclosedElements())
+      {
+         if ((enclosed.getKind().isClass()) || (enclosed.getKind().isInterface()))
+         {
+            registerType(enclosed);
+         }
+      }
+   }
+
+   /**
+    * Gets all the super types of a type, excepting java.lang.Object.
+    *
+    * @param type the type
+    * @return the super types binary names
+    */
+   private Set<String> getSuperTypes(TypeElement type)
+   {
+      Set<String> ret = new TreeSet<>();
+      Deque<TypeMirror> toVisit = new ArrayDeque<>(processingEnv.getTypeUtils().directSupertypes(type.asType()));
+      while (!toVisit.isEmpty())
+      {
+         TypeMirror mirror = toVisit.pop();
+         if (mirror.getKind() != TypeKind.DECLARED)
+         {
+            continue;
+         }
+         TypeElement superType = (TypeElement) ((DeclaredType) mirror).asElement();
+         String name = binaryName(superType);
+         if ((!Object.class.getName().equals(name)) && (ret.add(name)))
+         {
+            toVisit.addAll(processingEnv.getTypeUtils().directSupertypes(mirror));
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Get the binary name of a type, as used by class loaders.
+    *
+    * @param type the type
+    * @return the binary name
+    */
+   private String binaryName(TypeElement type)
+   {
+      return processingEnv.getElementUtils().getBinaryName(type).toString();
+   }
+
+   /**
+    * Add the types of the previous index of the class output that were not compiled again and
+    * whose class file still exists.
+    */
+   private void mergePreviousIndex()
+   {
+      try
+      {
+         FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+               XIndex.INDEX_RESOURCE);
+         try (BufferedReader reader = new BufferedReader(file.openReader(true)))
+         {
+            if (!XIndex.INDEX_HEADER.equals(reader.readLine()))
+            {
+               return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+               int pos = line.indexOf('=');
+               String name = (pos < 0) ? line : line.substring(0, pos);
+               if ((line.startsWith("#")) || (name.isEmpty()) || (types.contains(name)) || (!hasClassFile(name)))
+               {
+                  continue;
+               }
+               types.add(name);
+               if (pos > 0)
+               {
+                  implementors.put(name, new TreeSet<>(Arrays.asList(line.substring(pos + 1).split(","))));
+               }
+            }
+         }
+      }
+      catch (IOException | IllegalArgumentException e)
+      {
+         // no previous index
+      }
+   }
+
+   /**
+    * Checks if the class output holds the class file of a type.
+    *
+    * @param name the type binary name
+    * @return true, if the class file exists
+    */
+   private boolean hasClassFile(String name)
+   {
+      try
+      {
+         FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+               name.replace('.', '/') + ".class");
+         file.openInputStream().close();
+         return true;
+      }
+      catch (IOException | IllegalArgumentException e)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * Write the index in the class output, merged with the previous one.
+    */
+   private void writeIndex()
+   {
+      mergePreviousIndex();
+      if (types.isEmpty())
+      {
+         return;
+      }
+      try
+      {
+         FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+               XIndex.INDEX_RESOURCE);
+         try (Writer writer = file.openWriter(); PrintWriter out = new PrintWriter(writer))
+         {
+            out.println(XIndex.INDEX_HEADER);
+            for (String type : types)
+            {
+               Set<String> superTypes = implementors.get(type);
+               out.println((superTypes == null) ? type : type + "=" + String.join(",", superTypes));
+            }
+         }
+      }
+      catch (IOException e)
+      {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+               "Unable to write extension index : " + e.getMessage());
+      }
+   }
+}
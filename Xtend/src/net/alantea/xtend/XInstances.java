@@ -0,0 +1,186 @@
+package net.alantea.xtend;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Registry of named instances, by scope. Reads never lock. Loading a singleton is single-flight :
+ * when several threads load the same reference at the same time, only one constructs the instance
+ * and the others wait for it.
+ *
+ * @author Alantea
+ *
+ */
+final class XInstances
+{
+
+   /**
+    * The instance creation.
+    */
+   interface Creation
+   {
+
+      /**
+       * Create the instance.
+       *
+       * @return the instance
+       * @throws Xception the xception
+       */
+      Object create() throws Xception;
+   }
+
+   /** The singleton instances. */
+   private ConcurrentMap<String, Object> singletons = new ConcurrentHashMap<>();
+
+   /** The singleton loads in progress. */
+   private ConcurrentMap<String, FutureTask<Object>> pending = new ConcurrentHashMap<>();
+
+   /** The per thread instances, no map for the threads that never stored one. */
+   private ThreadLocal<Map<String, Object>> threadInstances = new ThreadLocal<>();
+
+   /**
+    * Gets a named instance. The thread scope is looked at first, then the singleton scope.
+    *
+    * @param reference the reference
+    * @return the instance or null
+    */
+   Object get(String reference)
+   {
+      Map<String, Object> map = threadInstances.get();
+      Object ret = (map == null) ? null : map.get(reference);
+      return (ret == null) ? singletons.get(reference) : ret;
+   }
+
+   /**
+    * Sets a named instance.
+    *
+    * @param reference the reference
+    * @param instance the instance, null to remove it
+    * @param scope the scope
+    */
+   void set(String reference, Object instance, XScope scope)
+   {
+      if (scope == XScope.PROTOTYPE)
+      {
+         return;
+      }
+      Map<String, Object> map = (scope == XScope.THREAD) ? getThreadInstances(instance != null) : singletons;
+      if (map == null)
+      {
+         // nothing to remove
+         return;
+      }
+      if (instance == null)
+      {
+         map.remove(reference);
+      }
+      else
+      {
+         map.put(reference, instance);
+      }
+   }
+
+   /**
+    * Gets the instances of the current thread.
+    *
+    * @param create true to create the map if the thread has none
+    * @return the map, null if none and not created
+    */
+   private Map<String, Object> getThreadInstances(boolean create)
+   {
+      Map<String, Object> ret = threadInstances.get();
+      if ((ret == null) && (create))
+      {
+         ret = new HashMap<>();
+         threadInstances.set(ret);
+      }
+      return ret;
+   }
+
+   /**
+    * Load a named instance : return it if it exists in the scope, create it otherwise.
+    *
+    * @param reference the reference
+    * @param scope the scope
+    * @param creation the creation
+    * @return the instance
+    * @throws Xception the xception
+    */
+   Object load(String reference, XScope scope, Creation creation) throws Xception
+   {
+      if ((reference == null) || (scope == XScope.PROTOTYPE))
+      {
+         return creation.create();
+      }
+      if (scope == XScope.THREAD)
+      {
+         Map<String, Object> map = getThreadInstances(false);
+         Object ret = (map == null) ? null : map.get(reference);
+         if (ret == null)
+         {
+            ret = creation.create();
+            getThreadInstances(true).put(reference, ret);
+         }
+         return ret;
+      }
+
+      Object ret = singletons.get(reference);
+      if (ret != null)
+      {
+         return ret;
+      }
+
+      FutureTask<Object> task = new FutureTask<>(() -> {
+         // another load may have completed in the meantime
+         Object object = singletons.get(reference);
+         if (object == null)
+         {
+            object = creation.create();
+            singletons.put(reference, object);
+         }
+         return object;
+      });
+      FutureTask<Object> running = pending.putIfAbsent(reference, task);
+      if (running == null)
+      {
+         running = task;
+         try
+         {
+            task.run();
+         }
+         finally
+         {
+            pending.remove(reference, task);
+         }
+      }
+
+      try
+      {
+         return running.get();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new Xception(Why.EXTENSION_ERROR, "interrupted while loading " + reference, e);
+      }
+      catch (ExecutionException e)
+      {
+         Throwable cause = e.getCause();
+         if (cause instanceof Xception)
+         {
+            throw (Xception) cause;
+         }
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+         throw new Xception("error loading " + reference, (Exception) cause);
+      }
+   }
+}
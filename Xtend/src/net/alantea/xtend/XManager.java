@@ -1,419 +1,1975 @@
-package net.alantea.xtend;
-
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import net.alantea.tools.scan.Scanner;
-import net.alantea.xmessages.XMessages;
-import net.alantea.xtend.Xception.Why;
-
-/**
- * Class to manage extensions. It has the ability to manage : - abstract extensions. These are
- * simple extensions. There should be an abstract base class with one or more abstract methods. Then
- * implementors will derive the base class, implementing the abstract methods as needed. Clients
- * will use the methods from the instances returned by XManager. - interfaced extensions (same
- * methods as raw extensions). As it may be simpler to implement interfaces in a class than deriving
- * classes from a base class, interfaced extensions are made of an interface and implementors will
- * implement the interface in their classes as needed. Clients will use the methods from the
- * instances returned by XManager. - container extensions. These extensions have a two-steps
- * implementation : first an extension class (same as for raw or interfaced) extending the
- * IExtension that offers some methods to clients, and an inner interface that the implementors
- * shall implement. The extension methods will call the implemented methods themselves, hiding it
- * from the client. - remote extensions
- * 
- * It also allows for every concerned extension class to register key/value pairs of properties.
- * 
- * @author Alantea
- * 
- */
-public class XManager
-{
-   
-   /** The extensions. */
-   private static List<? extends Class<?>> extensions = new ArrayList<Class<?>>();
-
-   /** The instances. */
-   private static Map<String, Object> instances = new HashMap<>();
-
-   /** Private singleton constructor. */
-   private XManager()
-   {
-   }
-
-   /**
-    * Load a container extension, instantiate all implementations and notify the container.
-    *
-    * @param <T> the generic type
-    * @param baseClass for extension to find
-    * @param forcedReload to force for reflective research even if a target is found in cache
-    * @param args the arguments, passed to extensions
-    * @return the instantiated extension
-    * @throws Xception when raised
-    */
-   public static <T> T loadContainerExtension(Class<?> baseClass, boolean forcedReload, Object... args) throws Xception
-   {
-      // Search for the extension itself
-      List<T> list = loadExtensions(baseClass, false, forcedReload, args);
-      if (list.isEmpty())
-      {
-         throw new Xception(Why.NO_EXTENSION);
-      }
-      if (list.size() > 1)
-      {
-         throw new Xception(Why.MULTIPLE_EXTENSION);
-      }
-      if (!(list.get(0) instanceof IExtension))
-      {
-         throw new Xception(Why.BAD_EXTENSION);
-      }
-
-      // get extension
-      IExtension extend = (IExtension) list.get(0);
-
-      // load implementations
-      loadImplementations(extend, forcedReload);
-
-      return (T) list.get(0);
-   }
-
-   /**
-    * Load a list of container extensions, instantiate all implementations and notify the container.
-    *
-    * @param <T> the generic type
-    * @param baseClass for extension to find
-    * @param acceptMultiple the accept multiple
-    * @param forcedReload to force for reflective research even if a target is found in cache
-    * @param args the arguments, passed to extensions
-    * @return the instantiated extension
-    * @throws Xception when raised
-    */
-   public static <T> List<T> loadContainerExtensions(Class<?> baseClass, boolean acceptMultiple, boolean forcedReload,
-         Object... args) throws Xception
-   {
-      // Search for the extensions
-      List<T> list = loadExtensions(baseClass, acceptMultiple, forcedReload, args);
-      if (list.isEmpty())
-      {
-         throw new Xception(Why.NO_EXTENSION);
-      }
-
-      for (T ext : list)
-      {
-         if (!(ext instanceof IExtension))
-         {
-            throw new Xception(Why.BAD_EXTENSION);
-         }
-         // load implementations
-         loadImplementations((IExtension) ext, forcedReload);
-      }
-
-      return list;
-   }
-
-   /**
-    * Given an object implementing IExtension, instantiate all implementations and notify the
-    * object.
-    *
-    * @param extend extension for which to instantiate implementations
-    * @param forcedReload to force for reflective research even if a target is found in cache
-    * @param args the args
-    * @throws Xception when raised
-    */
-   private static void loadImplementations(IExtension extend, boolean forcedReload, Object... args) throws Xception
-   {
-      // instantiate implementations
-      List<Object> impls = loadExtensions(extend.getExtendedInterface(), true, forcedReload, args);
-
-      // notify extension
-      for (Object impl : impls)
-      {
-         extend.addImplementation(impl);
-      }
-   }
-
-   /**
-    * Load an abstract extension, i.e. one implementation of it (the derived class)
-    *
-    * @param <T> the generic type
-    * @param baseClass for extension to find
-    * @param forcedReload to force for reflective research even if a target is found in cache
-    * @param args the arguments, passed to extensions
-    * @return the instantiated extension
-    * @throws Xception when raised
-    */
-   public static <T> T loadAbstractExtension(Class<?> baseClass, boolean forcedReload, Object... args) throws Xception
-   {
-      // get implementations
-      List<T> list = loadExtensions(baseClass, false, forcedReload, args);
-
-      // verify unicity
-      if (list.isEmpty())
-      {
-         throw new Xception(Why.NO_EXTENSION);
-      }
-      if (list.size() > 1)
-      {
-         throw new Xception(Why.MULTIPLE_EXTENSION);
-      }
-      return list.get(0);
-   }
-
-   /**
-    * Load an abstract extension, i.e. one specific implementation of it (a derived class)
-    *
-    * @param <T> the generic type
-    * @param implementationClass for extension to find
-    * @param forcedReload to force for reflective research even if a target is found in cache
-    * @param args the arguments, passed to extensions
-    * @return the instantiated extension
-    * @throws Xception when raised
-    */
-   @SuppressWarnings("unchecked")
-   public static <T> T loadSpecificAbstractExtension(Class<?> implementationClass, boolean forcedReload, Object... args)
-         throws Xception
-   {
-      // get implementations
-      try
-      {
-         return (T) loadSpecificExtension(implementationClass, args);
-      }
-      catch (SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException
-            | InvocationTargetException e)
-      {
-         throw new Xception(Why.NO_EXTENSION);
-      }
-   }
-
-   /**
-    * Load an abstract extension, i.e. all implementations of it (derived classes)
-    *
-    * @param <T> the generic type
-    * @param baseClass for extension to find
-    * @param forcedReload to force for reflective research even if a target is found in cache
-    * @param args the arguments, passed to extensions
-    * @return the instantiated extension
-    * @throws Xception when raised
-    */
-   public static <T> List<T> loadAbstractExtensions(Class<?> baseClass, boolean forcedReload, Object... args)
-         throws Xception
-   {
-      return loadExtensions(baseClass, true, forcedReload, args);
-   }
-
-   /**
-    * Gets the extension class for a base class.
-    *
-    * @param <T> the generic type
-    * @param baseClass the base class
-    * @return the extension class
-    * @throws Xception the exception
-    */
-   @SuppressWarnings("unchecked")
-   public static <T> Class<T> getExtensionClass(Class<T> baseClass) throws Xception
-   {
-      List<Class<?>> classes = loadExtensionClasses(baseClass, false, false);
-      return (Class<T>) classes.get(0);
-   }
-
-   /**
-    * Gets the named instance of something.
-    *
-    * @param <T> the generic type
-    * @param reference the reference
-    * @return single instance found or null
-    */
-   @SuppressWarnings("unchecked")
-   public static <T> T getInstance(String reference)
-   {
-      return (T) instances.get(reference);
-   }
-
-   /**
-    * Sets a named instance of something.
-    *
-    * @param reference the reference
-    * @param instance the instance to save
-    */
-   public static void setInstance(String reference, Object instance)
-   {
-      instances.put(reference, instance);
-   }
-
-   /**
-    * Load an instance of something with Xtend mechanism.
-    *
-    * @param <T> the generic type
-    * @param reference the reference
-    * @param cl the base class use as extension pattern
-    * @param args the arguments to give to instance for creation
-    * @return the loaded instance
-    * @throws Xception if something went wrong
-    */
-   @SuppressWarnings("unchecked")
-   public static <T> T loadInstance(String reference, Class<?> cl, Object... args) throws Xception
-   {
-         Object object = XManager.loadAbstractExtension(cl, false, args);
-         if ((reference != null) && (object != null))
-         {
-            instances.put(reference, object);
-         }
-         return (T) object;
-   }
-
-   /**
-    * Load extension classes.
-    *
-    * @param <T> the generic type
-    * @param baseClass the base class
-    * @param acceptMultiple the accept multiple
-    * @param forcedReload the forced reload
-    * @return the list
-    * @throws Xception the xception
-    */
-   @SuppressWarnings("unchecked")
-   private static <T> List<Class<?>> loadExtensionClasses(Class<T> baseClass, boolean acceptMultiple,
-         boolean forcedReload) throws Xception
-   {
-      List<Class<?>> classes = new ArrayList<Class<?>>();
-      if (!forcedReload)
-      {
-         for (Class<?> ext : extensions)
-         {
-            if (baseClass.isAssignableFrom(ext))
-            {
-               classes.add((Class<T>) ext);
-            }
-         }
-      }
-
-      if ((classes.isEmpty()) || forcedReload)
-      {
-         // list all classes derived from the base class.
-         List<String> set;
-         if (baseClass.isInterface())
-         {
-            set = Scanner.getNamesOfClassesImplementing(baseClass);
-         }
-         else
-         {
-            set = Scanner.getNamesOfSubclassesOf(baseClass);
-         }
-
-         for (String o : set)
-         {
-            Class<T> cl;
-            try
-            {
-               cl = (Class<T>) ClassLoader.getSystemClassLoader().loadClass(o);
-            }
-            catch (ClassNotFoundException e)
-            {
-               throw new Xception(Why.BAD_EXTENSION);
-            }
-            if (!Modifier.isAbstract(cl.getModifiers()))
-            {
-               classes.add(cl);
-            }
-         }
-      }
-      if (classes.isEmpty())
-      {
-         throw new Xception(Why.NO_EXTENSION);
-      }
-
-      if ((!acceptMultiple) && (classes.size() > 1))
-      {
-         throw new Xception(Why.MULTIPLE_EXTENSION);
-      }
-
-      return classes;
-   }
-
-   /**
-    * Load extensions.
-    *
-    * @param <T> the generic type
-    * @param baseClass the base class
-    * @param acceptMultiple the accept multiple
-    * @param forcedReload the forced reload
-    * @param args the args
-    * @return the list
-    * @throws Xception the xception
-    */
-   private static <T> List<T> loadExtensions(Class<?> baseClass, boolean acceptMultiple, boolean forcedReload,
-         Object... args) throws Xception
-   {
-      ArrayList<T> ret = new ArrayList<T>();
-
-      List<Class<?>> classes = loadExtensionClasses(baseClass, acceptMultiple, forcedReload);
-
-      // load instances.
-      for (Class<?> obj : classes)
-      {
-         @SuppressWarnings("unchecked")
-         Class<? extends T> cl = (Class<? extends T>) obj;
-         try
-         {
-            // create instance
-            T t = loadSpecificExtension(cl, args);
-            XMessages.addAssociatedBundle(t);
-            ret.add(t);
-         }
-         catch (SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException
-               | InvocationTargetException e)
-         {
-            System.out.println(e);
-            throw new Xception(Why.BAD_CONSTRUCTOR);
-         }
-      }
-      return ret;
-   }
-
-   /**
-    * Load specific extension.
-    *
-    * @param <T> the generic type
-    * @param cl the cl
-    * @param args the args
-    * @return the extension instance
-    * @throws InstantiationException the instantiation exception
-    * @throws IllegalAccessException the illegal access exception
-    * @throws IllegalArgumentException the illegal argument exception
-    * @throws InvocationTargetException the invocation target exception
-    * @throws Xception the xception
-    */
-   private static <T> T loadSpecificExtension(Class<? extends T> cl, Object... args) throws InstantiationException,
-         IllegalAccessException, IllegalArgumentException, InvocationTargetException, Xception
-   {
-      // search constructor
-      Constructor<?> constructor = null;
-      Constructor<?>[] cons = cl.getConstructors();
-      for (Constructor<?> con : cons)
-      {
-         Class<?>[] parms = con.getParameterTypes();
-         if (parms.length == args.length)
-         {
-            boolean ok = true;
-            for (int i = 0; i < parms.length; i++)
-            {
-               ok &= ((args[i] == null) || (parms[i].isAssignableFrom(args[i].getClass())));
-            }
-            if (ok)
-            {
-               constructor = con;
-            }
-         }
-      }
-
-      // create instance
-      @SuppressWarnings("unchecked")
-      T t = (T) constructor.newInstance();
-      XMessages.addAssociatedBundle(t);
-      return t;
-   }
-}
\ No newline at end of file
+package net.alantea.xtend;
+
+import java.io.File;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.alantea.tools.scan.Scanner;
+import net.alantea.xmessages.XMessages;
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Class to manage extensions. It has the ability to manage : - abstract extensions. These are
+ * simple extensions. There should be an abstract base class with one or more abstract methods. Then
+ * implementors will derive the base class, implementing the abstract methods as needed. Clients
+ * will use the methods from the instances returned by XManager. - interfaced extensions (same
+ * methods as raw extensions). As it may be simpler to implement interfaces in a class than deriving
+ * classes from a base class, interfaced extensions are made of an interface and implementors will
+ * implement the interface in their classes as needed. Clients will use the methods from the
+ * instances returned by XManager. - container extensions. These extensions have a two-steps
+ * implementation : first an extension class (same as for raw or interfaced) extending the
+ * IExtension that offers some methods to clients, and an inner interface that the implementors
+ * shall implement. The extension methods will call the implemented methods themselves, hiding it
+ * from the client. - remote extensions
+ * 
+ * It also allows for every concerned extension class to register key/value pairs of properties.
+ * 
+ * @author Alantea
+ * 
+ */
+public class XManager
+{
+   
+   /** The resolved extension classes, by base class. */
+   private static XCache cache = new XCache(XManager::resolveExtensionClasses);
+
+   /** The static registries generated at build time, null until first search. */
+   private static List<XRegistry> registries;
+
+   /** The class path entries covered by the static registries. */
+   private static Set<String> registryEntries;
+
+   /** The build-time extension index. */
+   private static XIndex index;
+
+   /** The catalog of the scanned class path entries. */
+   private static XCatalog catalog;
+
+   /** The maximum number of catalogs kept for the filters given to single calls. */
+   private static final int MAX_NARROWED_CATALOGS = 8;
+
+   /**
+    * The catalogs of the scanned class path entries for the filters given to single calls while
+    * nothing was resolved yet, least recently used first.
+    */
+   private static Map<XFilter, XCatalog> narrowedCatalogs = new LinkedHashMap<XFilter, XCatalog>(16, 0.75f, true)
+   {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<XFilter, XCatalog> eldest)
+      {
+         return size() > MAX_NARROWED_CATALOGS;
+      }
+   };
+
+   /** The persistent discovery cache file, null if none. */
+   private static volatile File discoveryCacheFile = getDefaultDiscoveryCacheFile();
+
+   /** The discovery filter, limiting the packages and class path entries searched. */
+   private static volatile XFilter discoveryFilter = XFilter.NONE;
+
+   /** The maximum number of class path entries scanned in parallel, 1 for sequential scans. */
+   private static volatile int discoveryParallelism = 1;
+
+   /** The plugin directory, null if none. */
+   private static volatile XPlugins plugins;
+
+   /** The classes of the container extensions already given their implementations. */
+   private static Set<Class<?>> initializedContainers = Collections.newSetFromMap(
+         Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>()));
+
+   /** The loaded container extensions, with the implementations they got from plugins. */
+   private static Map<IExtension, Set<Object>> containers = new WeakHashMap<>();
+
+   /** The executor for asynchronous loads, null for the default one. */
+   private static volatile Executor asyncExecutor;
+
+   /** Whether container implementations are constructed concurrently. */
+   private static volatile boolean parallelInstantiation;
+
+   /** Whether missing or multiple extensions are reported with shared stackless exceptions. */
+   private static volatile boolean stacklessLookupFailures;
+
+   /** The listener of the errors that do not stop a discovery, null to log them. */
+   private static volatile Consumer<Xception> errorListener;
+
+   /** The logger of the errors that do not stop a discovery. */
+   private static final Logger LOGGER = Logger.getLogger(XManager.class.getName());
+
+   /** The instances. */
+   private static XInstances instances = new XInstances();
+
+   /** Private singleton constructor. */
+   private XManager()
+   {
+   }
+
+   /**
+    * Load a container extension, instantiate all implementations and notify the container.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extension
+    * @throws Xception when raised
+    */
+   public static <T> T loadContainerExtension(Class<?> baseClass, boolean forcedReload, Object... args) throws Xception
+   {
+      // Search for the extension itself
+      List<T> list = loadExtensions(baseClass, false, forcedReload, args);
+      if (list.isEmpty())
+      {
+         throw lookupFailure(Why.NO_EXTENSION, baseClass);
+      }
+      if (list.size() > 1)
+      {
+         throw lookupFailure(Why.MULTIPLE_EXTENSION, baseClass);
+      }
+      if (!(list.get(0) instanceof IExtension))
+      {
+         throw new Xception(Why.BAD_EXTENSION);
+      }
+
+      // get extension
+      IExtension extend = (IExtension) list.get(0);
+
+      // load implementations
+      initializeContainers(newContainerGraph(Collections.singletonList(extend)), forcedReload);
+
+      return (T) list.get(0);
+   }
+
+   /**
+    * Load a list of container extensions, instantiate all implementations and notify the container.
+    * Containers are notified after the containers they depend on (see XDependsOn). With parallel
+    * instantiation, containers that do not depend on each other are initialized concurrently.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param acceptMultiple the accept multiple
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extension
+    * @throws Xception when raised
+    */
+   public static <T> List<T> loadContainerExtensions(Class<?> baseClass, boolean acceptMultiple, boolean forcedReload,
+         Object... args) throws Xception
+   {
+      // Search for the extensions
+      List<T> list = loadExtensions(baseClass, acceptMultiple, forcedReload, args);
+      if (list.isEmpty())
+      {
+         throw lookupFailure(Why.NO_EXTENSION, baseClass);
+      }
+
+      List<IExtension> extensions = new ArrayList<>();
+      for (T ext : list)
+      {
+         if (!(ext instanceof IExtension))
+         {
+            throw new Xception(Why.BAD_EXTENSION);
+         }
+         extensions.add((IExtension) ext);
+      }
+
+      // load implementations
+      initializeContainers(newContainerGraph(extensions), forcedReload);
+
+      return list;
+   }
+
+   /**
+    * Create the dependency graph of containers, the containers initialized before meeting the
+    * dependencies on them.
+    *
+    * @param extensions the containers, in load order
+    * @return the graph
+    */
+   private static XContainerGraph newContainerGraph(List<IExtension> extensions)
+   {
+      List<Class<?>> initialized;
+      synchronized (initializedContainers)
+      {
+         initialized = new ArrayList<>(initializedContainers);
+      }
+      return new XContainerGraph(extensions, initialized);
+   }
+
+   /**
+    * Initialize containers in dependency order. With parallel instantiation, each container is
+    * initialized as soon as the containers it depends on are, concurrently with the other ones.
+    *
+    * @param graph the containers dependency graph
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @throws Xception if there is a dependency cycle or a container could not be initialized
+    */
+   private static void initializeContainers(XContainerGraph graph, boolean forcedReload) throws Xception
+   {
+      List<IExtension> order = graph.getOrder();
+      for (Map.Entry<IExtension, List<Class<?>>> entry : graph.getUnresolved().entrySet())
+      {
+         for (Class<?> dependency : entry.getValue())
+         {
+            reportError(new Xception(Why.EXTENSION_ERROR, "unresolved dependency of "
+                  + entry.getKey().getClass().getName() + " : no " + dependency.getName() + " container is loaded"));
+         }
+      }
+      if ((!parallelInstantiation) || (order.size() <= 1))
+      {
+         for (IExtension extend : order)
+         {
+            loadImplementations(extend, forcedReload);
+         }
+         return;
+      }
+
+      // reload once, before concurrent initializations
+      if (forcedReload)
+      {
+         refreshDiscovery();
+         for (IExtension extend : order)
+         {
+            cache.invalidate(extend.getExtendedInterface());
+         }
+      }
+      ExecutorService executor = XExecutors.getDefault();
+      Map<IExtension, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+      for (IExtension extend : order)
+      {
+         List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+         for (IExtension dependency : graph.getDependencies(extend))
+         {
+            dependencies.add(futures.get(dependency));
+         }
+         futures.put(extend, CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+               .thenRunAsync(() -> {
+                  try
+                  {
+                     loadImplementations(extend, false);
+                  }
+                  catch (Xception e)
+                  {
+                     throw new CompletionException(e);
+                  }
+               }, executor));
+      }
+
+      // a failure is reported once, even if dependent containers failed because of it
+      Set<Throwable> failures = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (IExtension extend : order)
+      {
+         try
+         {
+            futures.get(extend).join();
+         }
+         catch (CompletionException e)
+         {
+            if (e.getCause() instanceof Error)
+            {
+               throw (Error) e.getCause();
+            }
+            failures.add(e.getCause());
+         }
+      }
+      if (failures.size() == 1)
+      {
+         Throwable failure = failures.iterator().next();
+         throw (failure instanceof Xception) ? (Xception) failure
+               : new Xception(Why.EXTENSION_ERROR, failure.getMessage(), (Exception) failure);
+      }
+      if (!failures.isEmpty())
+      {
+         Xception failure = new Xception(Why.EXTENSION_ERROR, failures.size() + " containers could not be initialized");
+         for (Throwable e : failures)
+         {
+            failure.addSuppressed(e);
+         }
+         throw failure;
+      }
+   }
+
+   /**
+    * Given an object implementing IExtension, instantiate all implementations and notify the
+    * object.
+    *
+    * @param extend extension for which to instantiate implementations
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the args
+    * @throws Xception when raised
+    */
+   private static void loadImplementations(IExtension extend, boolean forcedReload, Object... args) throws Xception
+   {
+      // instantiate implementations
+      List<Object> impls;
+      if (parallelInstantiation)
+      {
+         impls = loadExtensionsInParallel(extend.getExtendedInterface(), forcedReload, args);
+      }
+      else
+      {
+         impls = loadExtensions(extend.getExtendedInterface(), true, forcedReload, args);
+      }
+
+      // notify extension
+      extend.addImplementations(impls);
+      initializedContainers.add(extend.getClass());
+      trackContainer(extend, impls);
+   }
+
+   /**
+    * Load all the extensions of a base class, constructing them concurrently. Instances are
+    * returned in the same order as the classes, and constructor failures are all collected in one
+    * Xception, the individual failures being suppressed exceptions of it.
+    *
+    * @param baseClass the base class
+    * @param forcedReload the forced reload
+    * @param args the args
+    * @return the list
+    * @throws Xception the xception
+    */
+   private static List<Object> loadExtensionsInParallel(Class<?> baseClass, boolean forcedReload, Object... args)
+         throws Xception
+   {
+      List<Class<?>> classes = loadExtensionClasses(baseClass, true, forcedReload);
+      List<Future<Object>> futures = new ArrayList<>();
+      ExecutorService executor = XExecutors.getDefault();
+      for (Class<?> cl : classes)
+      {
+         futures.add(executor.submit(() -> XFactory.get(cl, args).newInstance(args)));
+      }
+
+      List<Object> ret = new ArrayList<>();
+      List<Exception> failures = new ArrayList<>();
+      for (int i = 0; i < futures.size(); i++)
+      {
+         try
+         {
+            ret.add(futures.get(i).get());
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new Xception(Why.EXTENSION_ERROR, "interrupted while creating " + baseClass.getName(), e);
+         }
+         catch (ExecutionException e)
+         {
+            if (e.getCause() instanceof Error)
+            {
+               throw (Error) e.getCause();
+            }
+            failures.add((Exception) e.getCause());
+         }
+      }
+      if (!failures.isEmpty())
+      {
+         Xception failure = new Xception(Why.BAD_CONSTRUCTOR,
+               failures.size() + " implementation(s) of " + baseClass.getName() + " could not be created");
+         for (Exception e : failures)
+         {
+            failure.addSuppressed(e);
+         }
+         throw failure;
+      }
+
+      // bundles are associated from the calling thread, in one batch
+      associateBundles(baseClass, ret);
+      return ret;
+   }
+
+   /**
+    * Track a container extension, so that it can be told about implementations coming from plugins
+    * added or removed later. Implementations are tracked by identity, so that a container loaded
+    * again does not get the same one removed twice. Nothing is tracked while no plugin directory is
+    * set.
+    *
+    * @param extend the container extension
+    * @param impls the implementations given to the container
+    */
+   private static void trackContainer(IExtension extend, List<Object> impls)
+   {
+      XPlugins current = plugins;
+      if (current == null)
+      {
+         return;
+      }
+      List<Object> pluginImpls = new ArrayList<>();
+      Set<ClassLoader> loaders = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (XPlugins.Plugin plugin : current.getPlugins())
+      {
+         loaders.add(plugin.getLoader());
+      }
+      for (Object impl : impls)
+      {
+         if (loaders.contains(impl.getClass().getClassLoader()))
+         {
+            pluginImpls.add(impl);
+         }
+      }
+
+      synchronized (containers)
+      {
+         containers.computeIfAbsent(extend, k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+               .addAll(pluginImpls);
+      }
+   }
+
+   /**
+    * Load an abstract extension, i.e. one implementation of it (the derived class)
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extension
+    * @throws Xception when raised
+    */
+   public static <T> T loadAbstractExtension(Class<?> baseClass, boolean forcedReload, Object... args) throws Xception
+   {
+      // get implementations
+      List<T> list = loadExtensions(baseClass, false, forcedReload, args);
+
+      // verify unicity
+      if (list.isEmpty())
+      {
+         throw lookupFailure(Why.NO_EXTENSION, baseClass);
+      }
+      if (list.size() > 1)
+      {
+         throw lookupFailure(Why.MULTIPLE_EXTENSION, baseClass);
+      }
+      return list.get(0);
+   }
+
+   /**
+    * Load an abstract extension, i.e. one specific implementation of it (a derived class)
+    *
+    * @param <T> the generic type
+    * @param implementationClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extension
+    * @throws Xception when raised
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> T loadSpecificAbstractExtension(Class<?> implementationClass, boolean forcedReload, Object... args)
+         throws Xception
+   {
+      // get implementations
+      try
+      {
+         return (T) loadSpecificExtension(implementationClass, args);
+      }
+      catch (Xception e)
+      {
+         throw new Xception(Why.NO_EXTENSION, e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Create a pool of instances of a specific implementation. The pool is meant to be created once
+    * and kept : instances are then taken from it with XPool.borrow (or acquire and release), and
+    * are constructed only when the pool has no idle one, so that hot paths do not allocate nor
+    * register bundles again. A given back instance is reset if it implements IResettable. Pooled
+    * implementations should be stateless. All the instances of a pool are constructed with its
+    * arguments.
+    *
+    * @param <T> the generic type
+    * @param implementationClass the implementation class
+    * @param capacity the maximum number of idle instances kept
+    * @param args the arguments, passed to the implementation when a new instance is constructed
+    * @return the pool
+    */
+   public static <T> XPool<T> pool(Class<? extends T> implementationClass, int capacity, Object... args)
+   {
+      return new XPool<T>(implementationClass, args.clone(), capacity);
+   }
+
+   /**
+    * Load an abstract extension, i.e. all implementations of it (derived classes)
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extension
+    * @throws Xception when raised
+    */
+   public static <T> List<T> loadAbstractExtensions(Class<?> baseClass, boolean forcedReload, Object... args)
+         throws Xception
+   {
+      return loadExtensions(baseClass, true, forcedReload, args);
+   }
+
+   /**
+    * Load an abstract extension, i.e. the implementation of it accepted by a filter. The filter
+    * narrows the extensions found under the global discovery filter.
+    *
+    * @param <T> the generic type
+    * @param filter the filter
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extension
+    * @throws Xception when raised
+    */
+   public static <T> T loadAbstractExtension(XFilter filter, Class<?> baseClass, boolean forcedReload,
+         Object... args) throws Xception
+   {
+      return XManager.<T>loadExtensions(filter, baseClass, false, forcedReload, args).get(0);
+   }
+
+   /**
+    * Load an abstract extension, i.e. all the implementations of it accepted by a filter. The
+    * filter narrows the extensions found under the global discovery filter.
+    *
+    * @param <T> the generic type
+    * @param filter the filter
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extensions
+    * @throws Xception when raised
+    */
+   public static <T> List<T> loadAbstractExtensions(XFilter filter, Class<?> baseClass, boolean forcedReload,
+         Object... args) throws Xception
+   {
+      return loadExtensions(filter, baseClass, true, forcedReload, args);
+   }
+
+   /**
+    * Checks if a base class has at least one extension accepted by a filter.
+    *
+    * @param filter the filter
+    * @param baseClass the base class
+    * @return true, if an extension exists
+    * @throws Xception if the discovery itself failed
+    */
+   public static boolean hasExtension(XFilter filter, Class<?> baseClass) throws Xception
+   {
+      return !getExtensionClasses(baseClass, filter).isEmpty();
+   }
+
+   /**
+    * Checks if a base class has at least one extension. No exception is involved, and nothing is
+    * instantiated.
+    *
+    * @param baseClass the base class
+    * @return true, if an extension exists
+    * @throws Xception if the discovery itself failed
+    */
+   public static boolean hasExtension(Class<?> baseClass) throws Xception
+   {
+      return !getExtensionClasses(baseClass).isEmpty();
+   }
+
+   /**
+    * Find the single implementation of an abstract extension, if any. Unlike loadAbstractExtension,
+    * the absence of extension is not an error and costs no exception.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extension, or an empty optional if there is none
+    * @throws Xception if there are several extensions or the construction failed
+    */
+   public static <T> Optional<T> findAbstractExtension(Class<?> baseClass, Object... args) throws Xception
+   {
+      List<Class<?>> classes = getExtensionClasses(baseClass);
+      if (classes.isEmpty())
+      {
+         return Optional.empty();
+      }
+      if (classes.size() > 1)
+      {
+         throw lookupFailure(Why.MULTIPLE_EXTENSION, baseClass);
+      }
+      return Optional.of(loadSpecificExtension(XManager.<T>cast(classes.get(0)), args));
+   }
+
+   /**
+    * Find all the implementations of an abstract extension. Unlike loadAbstractExtensions, the
+    * absence of extension is not an error and costs no exception.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param args the arguments, passed to extensions
+    * @return the instantiated extensions, empty if there is none
+    * @throws Xception if a construction failed
+    */
+   public static <T> List<T> findAbstractExtensions(Class<?> baseClass, Object... args) throws Xception
+   {
+      List<T> ret = new ArrayList<>();
+      for (Class<?> cl : getExtensionClasses(baseClass))
+      {
+         ret.add(createExtension(XManager.<T>cast(cl), args));
+      }
+      associateBundles(baseClass, ret);
+      return ret;
+   }
+
+   /**
+    * Sets the stackless lookup failures mode. When set, NO_EXTENSION and MULTIPLE_EXTENSION are
+    * thrown as shared, preallocated exceptions (see Xception.stackless), without message nor stack
+    * trace : this is meant for code using these failures as control flow in hot paths. By default,
+    * a new exception is thrown, naming the base class.
+    *
+    * @param stackless true to throw stackless exceptions, false (the default) otherwise
+    */
+   public static void setStacklessLookupFailures(boolean stackless)
+   {
+      stacklessLookupFailures = stackless;
+   }
+
+   /**
+    * Checks if lookup failures are thrown as stackless exceptions.
+    *
+    * @return true, if stackless lookup failures are set
+    */
+   public static boolean isStacklessLookupFailures()
+   {
+      return stacklessLookupFailures;
+   }
+
+   /**
+    * Create the exception reporting a missing or multiple extension.
+    *
+    * @param why NO_EXTENSION or MULTIPLE_EXTENSION
+    * @param baseClass the base class searched
+    * @return the exception to throw
+    */
+   private static Xception lookupFailure(Why why, Class<?> baseClass)
+   {
+      if (stacklessLookupFailures)
+      {
+         return Xception.stackless(why);
+      }
+      return new Xception(why, ((why == Why.NO_EXTENSION) ? "no extension for " : "multiple extensions for ")
+            + baseClass.getName());
+   }
+
+   /**
+    * Cast a class to an extension class.
+    *
+    * @param <T> the generic type
+    * @param cl the class
+    * @return the cast class
+    */
+   @SuppressWarnings("unchecked")
+   private static <T> Class<? extends T> cast(Class<?> cl)
+   {
+      return (Class<? extends T>) cl;
+   }
+
+   /**
+    * Get lazy handles on all the implementations of an extension. Implementation classes are
+    * searched, but instances are constructed (and their bundles registered) only when the handles
+    * are accessed.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions on construction
+    * @return the handles
+    * @throws Xception when raised
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> List<XHandle<T>> loadLazyExtensions(Class<?> baseClass, boolean forcedReload, Object... args)
+         throws Xception
+   {
+      List<XHandle<T>> ret = new ArrayList<>();
+      for (Class<?> cl : loadExtensionClasses(baseClass, true, forcedReload))
+      {
+         ret.add(new XHandle<T>(baseClass, (Class<? extends T>) cl, args));
+      }
+      return ret;
+   }
+
+   /**
+    * Get a lazy handle on the single implementation of an extension. See loadLazyExtensions.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to the extension on construction
+    * @return the handle
+    * @throws Xception when raised
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> XHandle<T> loadLazyExtension(Class<?> baseClass, boolean forcedReload, Object... args)
+         throws Xception
+   {
+      List<Class<?>> classes = loadExtensionClasses(baseClass, false, forcedReload);
+      return new XHandle<T>(baseClass, (Class<? extends T>) classes.get(0), args);
+   }
+
+   /**
+    * Gets the extension class for a base class.
+    *
+    * @param <T> the generic type
+    * @param baseClass the base class
+    * @return the extension class
+    * @throws Xception the exception
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> Class<T> getExtensionClass(Class<T> baseClass) throws Xception
+   {
+      List<Class<?>> classes = loadExtensionClasses(baseClass, false, false);
+      return (Class<T>) classes.get(0);
+   }
+
+   /**
+    * Load a container extension in the background. See loadContainerExtension.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the future instantiated extension, completed exceptionally with an Xception on error
+    */
+   public static <T> CompletableFuture<T> loadContainerExtensionAsync(Class<?> baseClass, boolean forcedReload,
+         Object... args)
+   {
+      return async(() -> loadContainerExtension(baseClass, forcedReload, args));
+   }
+
+   /**
+    * Load a list of container extensions in the background. See loadContainerExtensions.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param acceptMultiple the accept multiple
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the future instantiated extensions, completed exceptionally with an Xception on error
+    */
+   public static <T> CompletableFuture<List<T>> loadContainerExtensionsAsync(Class<?> baseClass,
+         boolean acceptMultiple, boolean forcedReload, Object... args)
+   {
+      return async(() -> loadContainerExtensions(baseClass, acceptMultiple, forcedReload, args));
+   }
+
+   /**
+    * Load an abstract extension in the background. See loadAbstractExtension.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the future instantiated extension, completed exceptionally with an Xception on error
+    */
+   public static <T> CompletableFuture<T> loadAbstractExtensionAsync(Class<?> baseClass, boolean forcedReload,
+         Object... args)
+   {
+      return async(() -> loadAbstractExtension(baseClass, forcedReload, args));
+   }
+
+   /**
+    * Load a specific abstract extension in the background. See loadSpecificAbstractExtension.
+    *
+    * @param <T> the generic type
+    * @param implementationClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the future instantiated extension, completed exceptionally with an Xception on error
+    */
+   public static <T> CompletableFuture<T> loadSpecificAbstractExtensionAsync(Class<?> implementationClass,
+         boolean forcedReload, Object... args)
+   {
+      return async(() -> loadSpecificAbstractExtension(implementationClass, forcedReload, args));
+   }
+
+   /**
+    * Load all the implementations of an abstract extension in the background. See
+    * loadAbstractExtensions.
+    *
+    * @param <T> the generic type
+    * @param baseClass for extension to find
+    * @param forcedReload to force for reflective research even if a target is found in cache
+    * @param args the arguments, passed to extensions
+    * @return the future instantiated extensions, completed exceptionally with an Xception on error
+    */
+   public static <T> CompletableFuture<List<T>> loadAbstractExtensionsAsync(Class<?> baseClass,
+         boolean forcedReload, Object... args)
+   {
+      return async(() -> loadAbstractExtensions(baseClass, forcedReload, args));
+   }
+
+   /**
+    * Load an instance of something in the background. See loadInstance.
+    *
+    * @param <T> the generic type
+    * @param reference the reference
+    * @param cl the base class use as extension pattern
+    * @param args the arguments to give to instance for creation
+    * @return the future loaded instance, completed exceptionally with an Xception on error
+    */
+   public static <T> CompletableFuture<T> loadInstanceAsync(String reference, Class<?> cl, Object... args)
+   {
+      return async(() -> loadInstance(reference, cl, args));
+   }
+
+   /**
+    * Sets the executor running the asynchronous loads. By default, a virtual thread is started for
+    * each load when the Java version allows it, and daemon threads are used otherwise.
+    *
+    * @param executor the executor, null to use the default one
+    */
+   public static void setAsyncExecutor(Executor executor)
+   {
+      asyncExecutor = executor;
+   }
+
+   /**
+    * Gets the executor running the asynchronous loads.
+    *
+    * @return the executor
+    */
+   public static Executor getAsyncExecutor()
+   {
+      Executor executor = asyncExecutor;
+      return (executor == null) ? XExecutors.getDefault() : executor;
+   }
+
+   /**
+    * Run a load on the asynchronous executor.
+    *
+    * @param <T> the generic type
+    * @param load the load
+    * @return the future result
+    */
+   private static <T> CompletableFuture<T> async(Load<T> load)
+   {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      try
+      {
+         getAsyncExecutor().execute(() -> {
+            try
+            {
+               future.complete(load.run());
+            }
+            catch (Xception | RuntimeException | Error e)
+            {
+               future.completeExceptionally(e);
+            }
+         });
+      }
+      catch (RejectedExecutionException e)
+      {
+         future.completeExceptionally(new Xception("load rejected by executor", e));
+      }
+      return future;
+   }
+
+   /**
+    * A load to run in the background.
+    *
+    * @param <T> the generic type
+    */
+   private interface Load<T>
+   {
+
+      /**
+       * Run the load.
+       *
+       * @return the result
+       * @throws Xception the xception
+       */
+      T run() throws Xception;
+   }
+
+   /**
+    * Gets the number of extension class lookups answered from the cache.
+    *
+    * @return the cache hits count
+    */
+   public static long getCacheHits()
+   {
+      return cache.getHits();
+   }
+
+   /**
+    * Gets the number of extension class lookups that needed a resolution.
+    *
+    * @return the cache misses count
+    */
+   public static long getCacheMisses()
+   {
+      return cache.getMisses();
+   }
+
+   /**
+    * Clear the extension classes cache. Next lookups will resolve classes again, and absent bundles
+    * will be searched again.
+    */
+   public static void clearCache()
+   {
+      cache.clear();
+      XMessages.clearMissingBundles();
+   }
+
+   /**
+    * Sets the discovery parallelism. When the class path has to be scanned, its entries (jars and
+    * directories) are scanned in parallel, with at most this number of threads. Results do not
+    * depend on this setting.
+    *
+    * @param parallelism the maximum number of entries scanned at the same time : 1 (the default) for
+    *           sequential scans, 0 for one thread per available processor
+    */
+   public static void setDiscoveryParallelism(int parallelism)
+   {
+      discoveryParallelism = (parallelism <= 0) ? Runtime.getRuntime().availableProcessors() : parallelism;
+   }
+
+   /**
+    * Gets the discovery parallelism.
+    *
+    * @return the maximum number of class path entries scanned at the same time
+    */
+   public static int getDiscoveryParallelism()
+   {
+      return discoveryParallelism;
+   }
+
+   /**
+    * Enable or disable the instrumentation. When enabled, each discovery and instantiation phase is
+    * timed and counted : counters are exposed by the "net.alantea.xtend:type=XManager" MBean, and
+    * "net.alantea.xtend.Phase" events are emitted for Flight Recorder recordings. Instrumentation
+    * may also be enabled with the xtend.instrumentation system property, or through the MBean once
+    * registered. Disabled instrumentation costs nothing.
+    *
+    * @param instrumented true to enable (disabled by default)
+    */
+   public static void setInstrumentation(boolean instrumented)
+   {
+      XMetrics.setInstrumented(instrumented);
+   }
+
+   /**
+    * Checks if the instrumentation is enabled.
+    *
+    * @return true, if enabled
+    */
+   public static boolean isInstrumentation()
+   {
+      return XMetrics.isInstrumented();
+   }
+
+   /**
+    * Sets the discovery filter. Only the class path entries and plugin jars accepted by the filter
+    * are searched, and only the class files in the accepted packages are read. The discovery is
+    * done again on next search.
+    *
+    * @param filter the filter, XFilter.NONE (the default) to search everything
+    */
+   public static synchronized void setDiscoveryFilter(XFilter filter)
+   {
+      discoveryFilter = (filter == null) ? XFilter.NONE : filter;
+      catalog = null;
+      narrowedCatalogs.clear();
+      cache.clear();
+   }
+
+   /**
+    * Gets the discovery filter.
+    *
+    * @return the filter
+    */
+   public static XFilter getDiscoveryFilter()
+   {
+      return discoveryFilter;
+   }
+
+   /**
+    * Sets the parallel instantiation mode. When set, the implementations of a container extension
+    * are constructed concurrently, then given to the container in a stable order through
+    * IExtension.addImplementations. All the constructor failures are reported in a single Xception.
+    *
+    * @param parallel true to construct implementations concurrently, false (the default) otherwise
+    */
+   public static void setParallelInstantiation(boolean parallel)
+   {
+      parallelInstantiation = parallel;
+   }
+
+   /**
+    * Checks if container implementations are constructed concurrently.
+    *
+    * @return true, if parallel instantiation is set
+    */
+   public static boolean isParallelInstantiation()
+   {
+      return parallelInstantiation;
+   }
+
+   /**
+    * Sets the listener of the errors that do not stop a discovery, such as an unreadable class file
+    * in a scanned jar : the rest of the discovery goes on without it. By default, these errors are
+    * logged as warnings with java.util.logging.
+    *
+    * @param listener the listener, null to log the errors
+    */
+   public static void setErrorListener(Consumer<Xception> listener)
+   {
+      errorListener = listener;
+   }
+
+   /**
+    * Report an error that does not stop the discovery.
+    *
+    * @param error the error
+    */
+   static void reportError(Xception error)
+   {
+      Consumer<Xception> listener = errorListener;
+      if (listener != null)
+      {
+         listener.accept(error);
+      }
+      else
+      {
+         LOGGER.log(Level.WARNING, error.getMessage(), error);
+      }
+   }
+
+   /**
+    * Sets the persistent discovery cache file. Scanned class path entries are stored in this file
+    * with their fingerprint (path, size and modification time), so that next runs only scan the
+    * entries that changed. A corrupt or outdated file is silently rebuilt. The default file is given
+    * by the "xtend.discovery.cache" system property, if set.
+    *
+    * @param file the cache file, null to disable the persistent cache
+    */
+   public static synchronized void setDiscoveryCacheFile(File file)
+   {
+      discoveryCacheFile = file;
+   }
+
+   /**
+    * Gets the persistent discovery cache file.
+    *
+    * @return the cache file, or null if disabled
+    */
+   public static File getDiscoveryCacheFile()
+   {
+      return discoveryCacheFile;
+   }
+
+   /**
+    * Gets the default discovery cache file, from the system properties.
+    *
+    * @return the default discovery cache file, or null if none
+    */
+   private static File getDefaultDiscoveryCacheFile()
+   {
+      String path = System.getProperty("xtend.discovery.cache");
+      return ((path == null) || (path.isEmpty())) ? null : new File(path);
+   }
+
+   /**
+    * Sets the plugin directory. Each jar in this directory is loaded with its own class loader, and
+    * its classes are found as extensions like the ones from the class path. The directory is watched
+    * : when a jar is added, the extensions it contains are discovered and given to the loaded
+    * container extensions ; when a jar is removed, the containers are told to remove the
+    * implementations it provided, and its class loader is closed. A replaced jar is removed then
+    * added again. Only the containers loaded after the directory is set are told about plugins.
+    *
+    * @param directory the plugin directory, null to stop using plugins
+    * @throws Xception if the directory cannot be watched
+    */
+   public static synchronized void setPluginDirectory(File directory) throws Xception
+   {
+      XPlugins previous = plugins;
+      if (previous != null)
+      {
+         previous.stop();
+         plugins = null;
+      }
+      if (directory != null)
+      {
+         XPlugins created = new XPlugins(directory, ClassLoader.getSystemClassLoader(), new XPlugins.Listener()
+         {
+            @Override
+            public void pluginAdded(XPlugins.Plugin plugin)
+            {
+               XManager.pluginAdded(plugin);
+            }
+
+            @Override
+            public void pluginRemoved(XPlugins.Plugin plugin)
+            {
+               XManager.pluginRemoved(plugin);
+            }
+         });
+         try
+         {
+            created.start();
+         }
+         catch (Xception | RuntimeException e)
+         {
+            created.stop();
+            throw e;
+         }
+         plugins = created;
+         // resolutions made while the plugins were loading could not see them
+         cache.clear();
+      }
+   }
+
+   /**
+    * Gets the plugin directory.
+    *
+    * @return the plugin directory, or null if none
+    */
+   public static File getPluginDirectory()
+   {
+      XPlugins current = plugins;
+      return (current == null) ? null : current.getDirectory();
+   }
+
+   /**
+    * A plugin has been added : drop the cached resolutions it changes and give its implementations
+    * to the loaded container extensions. The discovery filter applies to plugins as to the class
+    * path.
+    *
+    * @param plugin the plugin
+    */
+   private static void pluginAdded(XPlugins.Plugin plugin)
+   {
+      XMessages.clearMissingBundles();
+      XFilter filter = discoveryFilter;
+      if (!filter.acceptsEntry(plugin.getPath()))
+      {
+         return;
+      }
+      for (Class<?> baseClass : cache.getBaseClasses())
+      {
+         if (plugin.getImplementorNames(baseClass).stream().anyMatch(filter::acceptsClass))
+         {
+            cache.invalidate(baseClass);
+         }
+      }
+
+      List<IExtension> extensions;
+      synchronized (containers)
+      {
+         extensions = new ArrayList<>(containers.keySet());
+      }
+      for (IExtension extend : extensions)
+      {
+         for (String name : plugin.getImplementorNames(extend.getExtendedInterface()))
+         {
+            if (!filter.acceptsClass(name))
+            {
+               continue;
+            }
+            try
+            {
+               Object impl = loadSpecificExtension(plugin.getLoader().loadClass(name));
+               extend.addImplementation(impl);
+               synchronized (containers)
+               {
+                  containers.get(extend).add(impl);
+               }
+            }
+            catch (ClassNotFoundException | Xception e)
+            {
+               reportError(new Xception(Why.BAD_EXTENSION, "unable to add " + name + " from " + plugin.getPath(), e));
+            }
+            catch (LinkageError e)
+            {
+               reportError(new Xception(Why.BAD_EXTENSION, "unable to add " + name + " from " + plugin.getPath()
+                     + " : " + e));
+            }
+         }
+      }
+   }
+
+   /**
+    * A plugin has been removed : drop the cached resolutions holding its classes and remove its
+    * implementations from the container extensions.
+    *
+    * @param plugin the plugin
+    */
+   private static void pluginRemoved(XPlugins.Plugin plugin)
+   {
+      XMessages.clearMissingBundles();
+      for (Class<?> baseClass : cache.getBaseClasses())
+      {
+         List<Class<?>> classes = cache.peek(baseClass);
+         if ((classes == null) || (classes.stream().anyMatch(cl -> cl.getClassLoader() == plugin.getLoader())))
+         {
+            cache.invalidate(baseClass);
+         }
+      }
+
+      Map<IExtension, List<Object>> removed = new HashMap<>();
+      synchronized (containers)
+      {
+         for (Map.Entry<IExtension, Set<Object>> entry : containers.entrySet())
+         {
+            List<Object> impls = new ArrayList<>();
+            for (Iterator<Object> iterator = entry.getValue().iterator(); iterator.hasNext();)
+            {
+               Object impl = iterator.next();
+               if (impl.getClass().getClassLoader() == plugin.getLoader())
+               {
+                  impls.add(impl);
+                  iterator.remove();
+               }
+            }
+            removed.put(entry.getKey(), impls);
+         }
+      }
+      for (Map.Entry<IExtension, List<Object>> entry : removed.entrySet())
+      {
+         for (Object impl : entry.getValue())
+         {
+            try
+            {
+               entry.getKey().removeImplementation(impl);
+            }
+            catch (Xception e)
+            {
+               reportError(new Xception(Why.EXTENSION_ERROR, "unable to remove " + impl.getClass().getName(), e));
+            }
+         }
+      }
+   }
+
+   /**
+    * Gets the named instance of something. The instances of the current thread are looked at first,
+    * then the application wide ones. This never locks.
+    *
+    * @param <T> the generic type
+    * @param reference the reference
+    * @return single instance found or null
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> T getInstance(String reference)
+   {
+      return (T) instances.get(reference);
+   }
+
+   /**
+    * Sets a named instance of something, application wide.
+    *
+    * @param reference the reference
+    * @param instance the instance to save
+    */
+   public static void setInstance(String reference, Object instance)
+   {
+      setInstance(reference, instance, XScope.SINGLETON);
+   }
+
+   /**
+    * Sets a named instance of something in a scope.
+    *
+    * @param reference the reference
+    * @param instance the instance to save, null to remove it
+    * @param scope the scope. Nothing is saved for the prototype scope.
+    */
+   public static void setInstance(String reference, Object instance, XScope scope)
+   {
+      instances.set(reference, instance, scope);
+   }
+
+   /**
+    * Load an instance of something with Xtend mechanism, application wide. If the instance already
+    * exists, it is returned. When several threads load the same reference at the same time, only one
+    * of them creates the instance.
+    *
+    * @param <T> the generic type
+    * @param reference the reference
+    * @param cl the base class use as extension pattern
+    * @param args the arguments to give to instance for creation
+    * @return the loaded instance
+    * @throws Xception if something went wrong
+    */
+   public static <T> T loadInstance(String reference, Class<?> cl, Object... args) throws Xception
+   {
+      return loadInstance(reference, XScope.SINGLETON, cl, args);
+   }
+
+   /**
+    * Load an instance of something with Xtend mechanism in a scope : application wide (singleton),
+    * per thread, or a new one each time (prototype). If the instance already exists in the scope,
+    * it is returned.
+    *
+    * @param <T> the generic type
+    * @param reference the reference
+    * @param scope the scope
+    * @param cl the base class use as extension pattern
+    * @param args the arguments to give to instance for creation
+    * @return the loaded instance
+    * @throws Xception if something went wrong
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> T loadInstance(String reference, XScope scope, Class<?> cl, Object... args) throws Xception
+   {
+      return (T) instances.load(reference, scope, () -> XManager.loadAbstractExtension(cl, false, args));
+   }
+
+   /**
+    * Load extension classes.
+    *
+    * @param <T> the generic type
+    * @param baseClass the base class
+    * @param acceptMultiple the accept multiple
+    * @param forcedReload the forced reload
+    * @return the list
+    * @throws Xception the xception
+    */
+   private static <T> List<Class<?>> loadExtensionClasses(Class<T> baseClass, boolean acceptMultiple,
+         boolean forcedReload) throws Xception
+   {
+      return loadExtensionClasses(XFilter.NONE, baseClass, acceptMultiple, forcedReload);
+   }
+
+   /**
+    * Load the extension classes accepted by a filter.
+    *
+    * @param filter the filter
+    * @param baseClass the base class
+    * @param acceptMultiple the accept multiple
+    * @param forcedReload the forced reload
+    * @return the list
+    * @throws Xception the xception
+    */
+   private static List<Class<?>> loadExtensionClasses(XFilter filter, Class<?> baseClass, boolean acceptMultiple,
+         boolean forcedReload) throws Xception
+   {
+      if (forcedReload)
+      {
+         refreshDiscovery();
+         cache.invalidate(baseClass);
+      }
+      List<Class<?>> classes = getExtensionClasses(baseClass, filter);
+      if (classes.isEmpty())
+      {
+         throw lookupFailure(Why.NO_EXTENSION, baseClass);
+      }
+
+      if ((!acceptMultiple) && (classes.size() > 1))
+      {
+         throw lookupFailure(Why.MULTIPLE_EXTENSION, baseClass);
+      }
+
+      return classes;
+   }
+
+   /**
+    * Gets the extension classes of a base class, from the cache.
+    *
+    * @param baseClass the base class
+    * @return the classes, empty if none
+    * @throws Xception if the discovery failed
+    */
+   private static List<Class<?>> getExtensionClasses(Class<?> baseClass) throws Xception
+   {
+      return cache.get(baseClass);
+   }
+
+   /**
+    * Gets the extension classes of a base class accepted by a filter. When the base class is not
+    * resolved yet, only the entries and packages accepted by both the filter and the discovery
+    * filter are searched, and the result is not cached.
+    *
+    * @param baseClass the base class
+    * @param filter the filter
+    * @return the classes, empty if none
+    * @throws Xception if the discovery failed
+    */
+   private static List<Class<?>> getExtensionClasses(Class<?> baseClass, XFilter filter) throws Xception
+   {
+      if (filter.isNone())
+      {
+         return cache.get(baseClass);
+      }
+      List<Class<?>> classes = cache.peek(baseClass);
+      if (classes == null)
+      {
+         classes = resolveExtensionClasses(baseClass, discoveryFilter.within(filter));
+      }
+      List<Class<?>> ret = new ArrayList<>();
+      for (Class<?> cl : classes)
+      {
+         if (filter.accepts(cl))
+         {
+            ret.add(cl);
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Resolve the non abstract extension classes of a base class. This is called by the cache on
+    * misses only.
+    *
+    * @param baseClass the base class
+    * @return the classes, empty if none
+    * @throws Xception the xception
+    */
+   private static List<Class<?>> resolveExtensionClasses(Class<?> baseClass) throws Xception
+   {
+      return resolveExtensionClasses(baseClass, discoveryFilter);
+   }
+
+   /**
+    * Resolve the non abstract extension classes of a base class accepted by a filter.
+    *
+    * @param baseClass the base class
+    * @param filter the filter, including the discovery filter
+    * @return the classes, empty if none
+    * @throws Xception the xception
+    */
+   private static List<Class<?>> resolveExtensionClasses(Class<?> baseClass, XFilter filter) throws Xception
+   {
+      List<Class<?>> classes = new ArrayList<Class<?>>();
+
+      // list all classes derived from the base class.
+      List<String> set;
+      XMetrics.Probe probe = XMetrics.start(XMetrics.Phase.SCAN, baseClass);
+      try
+      {
+         set = getImplementorNames(baseClass, filter);
+      }
+      finally
+      {
+         XMetrics.stop(probe);
+      }
+
+      probe = XMetrics.start(XMetrics.Phase.CLASS_LOAD, baseClass);
+      try
+      {
+         loadClasses(baseClass, set, classes, filter);
+      }
+      finally
+      {
+         XMetrics.stop(probe);
+      }
+      return Collections.unmodifiableList(classes);
+   }
+
+   /**
+    * Load the extension classes of a base class : the implementors found on the class path, then
+    * the implementors from plugins.
+    *
+    * @param baseClass the base class
+    * @param set the implementor names found on the class path
+    * @param classes the list to add the classes to
+    * @param filter the filter
+    * @throws Xception the xception
+    */
+   private static void loadClasses(Class<?> baseClass, List<String> set, List<Class<?>> classes, XFilter filter)
+         throws Xception
+   {
+      for (String o : set)
+      {
+         Class<?> cl;
+         try
+         {
+            cl = ClassLoader.getSystemClassLoader().loadClass(o);
+         }
+         catch (ClassNotFoundException e)
+         {
+            throw new Xception(Why.BAD_EXTENSION);
+         }
+         if (!Modifier.isAbstract(cl.getModifiers()))
+         {
+            classes.add(cl);
+         }
+      }
+
+      // then plugins, each one with its own class loader
+      XPlugins current = plugins;
+      if (current != null)
+      {
+         for (XPlugins.Plugin plugin : current.getPlugins())
+         {
+            if (!filter.acceptsEntry(plugin.getPath()))
+            {
+               continue;
+            }
+            for (String name : plugin.getImplementorNames(baseClass))
+            {
+               if (!filter.acceptsClass(name))
+               {
+                  continue;
+               }
+               try
+               {
+                  classes.add(plugin.getLoader().loadClass(name));
+               }
+               catch (ClassNotFoundException | LinkageError e)
+               {
+                  throw new Xception(Why.BAD_EXTENSION, "unable to load " + name + " from " + plugin.getPath());
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Gets the names of the classes derived from a base class. Names are taken from the static
+    * registries generated at build time for the entries they cover, then from the build-time
+    * indexes, and only the class path entries that are neither registered nor indexed are scanned.
+    *
+    * @param baseClass the base class
+    * @param filter the filter
+    * @return the implementor names
+    * @throws Xception the xception
+    */
+   private static List<String> getImplementorNames(Class<?> baseClass, XFilter filter) throws Xception
+   {
+      Set<String> names = new LinkedHashSet<>();
+      List<XRegistry> generated = getRegistries();
+      for (XRegistry registry : generated)
+      {
+         for (String name : registry.getImplementorNames(baseClass.getName()))
+         {
+            if (filter.acceptsClass(name))
+            {
+               names.add(name);
+            }
+         }
+      }
+
+      XIndex index = getIndex();
+      Set<String> covered = getRegistryEntries();
+      for (String name : index.getImplementorNames(baseClass))
+      {
+         String entry = index.getImplementorEntry(name);
+         if ((filter.acceptsClass(name)) && (filter.acceptsEntry(entry)) && (!covered.contains(entry)))
+         {
+            names.add(name);
+         }
+      }
+      if (index.hasClassPathEntries())
+      {
+         names.addAll(getCatalog(filter).getImplementorNames(baseClass, ClassLoader.getSystemClassLoader()));
+      }
+      else if ((generated.isEmpty()) || (!covered.isEmpty()))
+      {
+         // class path entries are unknown : scan it all. When registries exist but their entries
+         // cannot be located, as in a native image, they are the only source.
+         List<String> scanned;
+         if (baseClass.isInterface())
+         {
+            scanned = Scanner.getNamesOfClassesImplementing(baseClass);
+         }
+         else
+         {
+            scanned = Scanner.getNamesOfSubclassesOf(baseClass);
+         }
+
+         // indexed and registered entries already answered
+         for (String name : scanned)
+         {
+            if ((filter.acceptsClass(name)) && (!index.isIndexed(name)) && (!isRegistered(name)))
+            {
+               names.add(name);
+            }
+         }
+      }
+      return new ArrayList<>(names);
+   }
+
+   /**
+    * Gets the static registries generated by XAotGenerator, loading them on first use.
+    *
+    * @return the registries, empty if none
+    */
+   private static synchronized List<XRegistry> getRegistries()
+   {
+      if (registries == null)
+      {
+         ClassLoader loader = ClassLoader.getSystemClassLoader();
+         List<XRegistry> found = new ArrayList<>();
+         Set<String> entries = new HashSet<>();
+         for (XRegistry registry : ServiceLoader.load(XRegistry.class, loader))
+         {
+            found.add(registry);
+            for (String marker : registry.getEntryMarkers())
+            {
+               String entry = getClassEntry(marker, loader);
+               if (entry != null)
+               {
+                  entries.add(entry);
+               }
+            }
+         }
+         registryEntries = Collections.unmodifiableSet(entries);
+         registries = Collections.unmodifiableList(found);
+      }
+      return registries;
+   }
+
+   /**
+    * Gets the class path entries covered by the static registries.
+    *
+    * @return the covered entries, empty if none
+    */
+   private static synchronized Set<String> getRegistryEntries()
+   {
+      getRegistries();
+      return registryEntries;
+   }
+
+   /**
+    * Checks if a class comes from a class path entry covered by the static registries.
+    *
+    * @param className the class name
+    * @return true, if the class is registered
+    */
+   private static boolean isRegistered(String className)
+   {
+      Set<String> covered = getRegistryEntries();
+      return (!covered.isEmpty()) && (covered.contains(getClassEntry(className, ClassLoader.getSystemClassLoader())));
+   }
+
+   /**
+    * Gets the class path entry a class is found in.
+    *
+    * @param className the class name
+    * @param loader the class loader
+    * @return the entry path, or null if it cannot be located
+    */
+   private static String getClassEntry(String className, ClassLoader loader)
+   {
+      String resource = className.replace('.', '/') + ".class";
+      URL url = loader.getResource(resource);
+      return (url == null) ? null : XIndex.getEntry(url, resource);
+   }
+
+   /**
+    * Gets the class path entries to scan : the ones neither indexed nor covered by the static
+    * registries.
+    *
+    * @param index the index
+    * @return the entries, in class path order
+    */
+   private static List<String> getScannedEntries(XIndex index)
+   {
+      Set<String> covered = getRegistryEntries();
+      List<String> ret = new ArrayList<>();
+      for (String entry : index.getUnindexedEntries())
+      {
+         if (!covered.contains(entry))
+         {
+            ret.add(entry);
+         }
+      }
+      return ret;
+   }
+
+   /**
+    * Gets the extension index, loading it on first use.
+    *
+    * @return the index
+    */
+   private static synchronized XIndex getIndex()
+   {
+      if (index == null)
+      {
+         index = XIndex.load(ClassLoader.getSystemClassLoader());
+      }
+      return index;
+   }
+
+   /**
+    * Gets the catalog of the class path entries that are neither indexed nor registered, scanning them on first use.
+    *
+    * @return the catalog
+    * @throws Xception the xception
+    */
+   private static synchronized XCatalog getCatalog() throws Xception
+   {
+      if (catalog == null)
+      {
+         catalog = buildCatalog(getScannedEntries(getIndex()), null, discoveryFilter);
+      }
+      return catalog;
+   }
+
+   /**
+    * Gets the catalog of the class path entries that are neither indexed nor registered, for a
+    * filter : the catalog of the discovery filter, or one scanning only what a narrower filter
+    * accepts.
+    *
+    * @param filter the filter
+    * @return the catalog
+    * @throws Xception the xception
+    */
+   private static synchronized XCatalog getCatalog(XFilter filter) throws Xception
+   {
+      if ((catalog != null) || (filter.equals(discoveryFilter)))
+      {
+         // once the whole catalog is built, narrower scans would only repeat it
+         return getCatalog();
+      }
+      XCatalog ret = narrowedCatalogs.get(filter);
+      if (ret == null)
+      {
+         ret = buildCatalog(getScannedEntries(getIndex()), null, filter);
+         narrowedCatalogs.put(filter, ret);
+      }
+      return ret;
+   }
+
+   /**
+    * Build a catalog of the class path entries accepted by a filter. Entries whose fingerprint did
+    * not change are taken from the previous catalog or from the persistent cache, and only the other
+    * ones are scanned. The persistent cache is updated if needed, for the discovery filter only.
+    * Entries whose scan failed are neither stored nor reused : they are scanned again next time.
+    *
+    * @param classPathEntries the class path entries
+    * @param previous the previous catalog, null if none
+    * @param filter the filter
+    * @return the catalog
+    * @throws Xception the xception
+    */
+   private static XCatalog buildCatalog(List<String> classPathEntries, XCatalog previous, XFilter filter)
+         throws Xception
+   {
+      List<String> entries = new ArrayList<>();
+      for (String entry : classPathEntries)
+      {
+         if (filter.acceptsEntry(entry))
+         {
+            entries.add(entry);
+         }
+      }
+
+      // a narrower catalog must not replace the persistent one
+      File cacheFile = (filter.equals(discoveryFilter)) ? discoveryCacheFile : null;
+      Map<String, XDiskCache.Entry> stored = null;
+      Map<String, List<XClassHeader>> headers = new HashMap<>();
+      Map<String, XFingerprint> fingerprints = new HashMap<>();
+      List<String> toScan = new ArrayList<>();
+      for (String entry : entries)
+      {
+         XFingerprint fingerprint = XFingerprint.of(entry);
+         fingerprints.put(entry, fingerprint);
+         if ((previous != null) && (previous.isComplete(entry))
+               && (fingerprint.equals(previous.getFingerprint(entry))))
+         {
+            headers.put(entry, previous.getHeaders(entry));
+            continue;
+         }
+
+         if ((cacheFile != null) && (stored == null))
+         {
+            stored = XDiskCache.read(cacheFile, filter.getScanKey());
+         }
+         XDiskCache.Entry storedEntry = (stored == null) ? null : stored.get(entry);
+         if ((storedEntry != null) && (storedEntry.fingerprint.equals(fingerprint)))
+         {
+            headers.put(entry, storedEntry.headers);
+         }
+         else
+         {
+            toScan.add(entry);
+         }
+      }
+
+      Set<String> failed = ConcurrentHashMap.newKeySet();
+      headers.putAll(XScanner.scan(toScan, discoveryParallelism, filter, (entry, e) -> {
+         failed.add(entry);
+         reportError(e);
+      }));
+      XCatalog ret = new XCatalog(entries, headers, fingerprints, failed);
+      if ((cacheFile != null) && ((!toScan.isEmpty()) || ((stored != null) && (stored.size() != entries.size()))))
+      {
+         XDiskCache.write(cacheFile, ret, filter.getScanKey());
+      }
+      return ret;
+   }
+
+   /**
+    * Refresh the discovery after a change in the class path : the index is read again if an
+    * indexed entry changed, and only the entries added or modified since the last scan are scanned.
+    * Cached resolutions of all the base classes are dropped only if something changed ; the caller
+    * drops the one of the base class it reloads.
+    * Absent bundles are forgotten, to be searched again.
+    *
+    * @throws Xception the xception
+    */
+   private static synchronized void refreshDiscovery() throws Xception
+   {
+      XMessages.clearMissingBundles();
+      if (index == null)
+      {
+         // nothing discovered yet
+         return;
+      }
+
+      narrowedCatalogs.clear();
+      boolean changed = false;
+      if (!index.isUpToDate())
+      {
+         index = XIndex.load(ClassLoader.getSystemClassLoader());
+         changed = true;
+      }
+      if (catalog != null)
+      {
+         XCatalog updated = buildCatalog(getScannedEntries(index), catalog, discoveryFilter);
+         changed |= !updated.hasSameContent(catalog);
+         catalog = updated;
+      }
+      if (changed)
+      {
+         cache.clear();
+      }
+   }
+
+   /**
+    * Load extensions.
+    *
+    * @param <T> the generic type
+    * @param baseClass the base class
+    * @param acceptMultiple the accept multiple
+    * @param forcedReload the forced reload
+    * @param args the args
+    * @return the list
+    * @throws Xception the xception
+    */
+   private static <T> List<T> loadExtensions(Class<?> baseClass, boolean acceptMultiple, boolean forcedReload,
+         Object... args) throws Xception
+   {
+      return loadExtensions(XFilter.NONE, baseClass, acceptMultiple, forcedReload, args);
+   }
+
+   /**
+    * Load the extensions accepted by a filter.
+    *
+    * @param <T> the generic type
+    * @param filter the filter
+    * @param baseClass the base class
+    * @param acceptMultiple the accept multiple
+    * @param forcedReload the forced reload
+    * @param args the args
+    * @return the list
+    * @throws Xception the xception
+    */
+   private static <T> List<T> loadExtensions(XFilter filter, Class<?> baseClass, boolean acceptMultiple,
+         boolean forcedReload, Object... args) throws Xception
+   {
+      ArrayList<T> ret = new ArrayList<T>();
+
+      List<Class<?>> classes = loadExtensionClasses(filter, baseClass, acceptMultiple, forcedReload);
+
+      // load instances.
+      for (Class<?> obj : classes)
+      {
+         @SuppressWarnings("unchecked")
+         Class<? extends T> cl = (Class<? extends T>) obj;
+         // create instance
+         ret.add(createExtension(cl, args));
+      }
+      associateBundles(baseClass, ret);
+      return ret;
+   }
+
+   /**
+    * Load specific extension. The constructor is selected once per class and argument types, and
+    * the arguments are given to it.
+    *
+    * @param <T> the generic type
+    * @param cl the cl
+    * @param args the args
+    * @return the extension instance
+    * @throws Xception the xception
+    */
+   static <T> T loadSpecificExtension(Class<? extends T> cl, Object... args) throws Xception
+   {
+      T t = createExtension(cl, args);
+      associateBundle(t);
+      return t;
+   }
+
+   /**
+    * Create an extension instance, without associating its message bundle.
+    *
+    * @param <T> the generic type
+    * @param cl the cl
+    * @param args the args
+    * @return the extension instance
+    * @throws Xception the xception
+    */
+   private static <T> T createExtension(Class<? extends T> cl, Object... args) throws Xception
+   {
+      @SuppressWarnings("unchecked")
+      T t = (T) XFactory.get(cl, args).newInstance(args);
+      return t;
+   }
+
+   /**
+    * Associate the message bundle of an extension instance.
+    *
+    * @param extension the extension instance
+    * @throws Xception the xception
+    */
+   private static void associateBundle(Object extension) throws Xception
+   {
+      XMetrics.Probe probe = XMetrics.start(XMetrics.Phase.BUNDLE_ASSOCIATION, extension.getClass());
+      try
+      {
+         XMessages.addAssociatedBundle(extension);
+      }
+      finally
+      {
+         XMetrics.stop(probe);
+      }
+   }
+
+   /**
+    * Associate the message bundles of the extension instances created by one load operation, in
+    * a single batch.
+    *
+    * @param baseClass the base class the extensions were loaded for
+    * @param extensions the extension instances
+    */
+   private static void associateBundles(Class<?> baseClass, List<?> extensions)
+   {
+      if (extensions.isEmpty())
+      {
+         return;
+      }
+      XMetrics.Probe probe = XMetrics.start(XMetrics.Phase.BUNDLE_ASSOCIATION, baseClass);
+      try
+      {
+         XMessages.addAssociatedBundles(extensions);
+      }
+      finally
+      {
+         XMetrics.stop(probe);
+      }
+   }
+}
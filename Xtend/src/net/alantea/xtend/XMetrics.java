@@ -0,0 +1,401 @@
+package net.alantea.xtend;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Instrumentation of the XManager phases : cumulative counters exposed through JMX and, when the
+ * JVM has Flight Recorder, one event per phase run. When disabled, a probe costs one volatile read :
+ * nothing is allocated, and neither JMX nor Flight Recorder is initialized.
+ *
+ * @author Alantea
+ *
+ */
+final class XMetrics implements XMetricsMBean
+{
+
+   /** The MBean name. */
+   static final String OBJECT_NAME = "net.alantea.xtend:type=XManager";
+
+   /**
+    * The instrumented phases.
+    */
+   enum Phase
+   {
+
+      /** Search of the implementor names : registry, index or scan. */
+      SCAN,
+
+      /** Loading of the implementor classes. */
+      CLASS_LOAD,
+
+      /** Selection of the constructor matching the arguments. */
+      CONSTRUCTOR_RESOLUTION,
+
+      /** Constructor call. */
+      CONSTRUCTION,
+
+      /** Association of the message bundle, or of the bundles of a load operation. */
+      BUNDLE_ASSOCIATION
+   }
+
+   /** The number of phases. */
+   private static final int PHASES = Phase.values().length;
+
+   /** The instance. */
+   private static final XMetrics INSTANCE = new XMetrics();
+
+   /** The enabled flag. */
+   private static volatile boolean enabled;
+
+   /** The registered flag. */
+   private static boolean registered;
+
+   /** The flight recorder, set when instrumentation is enabled, null if not available. */
+   private static Recorder recorder;
+
+   /** The counters, by class name : counts then times for each phase. */
+   private Map<String, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+   static
+   {
+      if (Boolean.getBoolean("xtend.instrumentation"))
+      {
+         setInstrumented(true);
+      }
+   }
+
+   /** Private singleton constructor. */
+   private XMetrics()
+   {
+   }
+
+   /**
+    * Flight Recorder events. It is implemented by XFlightRecorder, which is compiled apart for
+    * Java 11 and is only loaded when the jdk.jfr API is there.
+    */
+   interface Recorder
+   {
+
+      /**
+       * Begin an event, if the event type is enabled in a recording.
+       *
+       * @return the event, or null if not recorded
+       */
+      Object begin();
+
+      /**
+       * End and commit an event.
+       *
+       * @param event the event returned by begin
+       * @param phase the phase name
+       * @param className the class name
+       */
+      void commit(Object event, String phase, String className);
+   }
+
+   /**
+    * A running phase.
+    */
+   static final class Probe
+   {
+
+      /** The phase. */
+      private Phase phase;
+
+      /** The class name. */
+      private String className;
+
+      /** The start time. */
+      private long start;
+
+      /** The flight recorder, null if none. */
+      private Recorder recorder;
+
+      /** The flight recorder event, null if none. */
+      private Object event;
+
+      /**
+       * Instantiates a new probe.
+       *
+       * @param phase the phase
+       * @param className the class name
+       */
+      private Probe(Phase phase, String className)
+      {
+         this.phase = phase;
+         this.className = className;
+         this.recorder = XMetrics.recorder;
+         this.event = (recorder == null) ? null : recorder.begin();
+         this.start = System.nanoTime();
+      }
+   }
+
+   /**
+    * Enable or disable the instrumentation. The MBean is registered the first time it is enabled.
+    *
+    * @param instrumented true to enable
+    */
+   static synchronized void setInstrumented(boolean instrumented)
+   {
+      if ((instrumented) && (!registered))
+      {
+         recorder = createRecorder();
+         try
+         {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new StandardMBean(INSTANCE, XMetricsMBean.class), new ObjectName(OBJECT_NAME));
+         }
+         catch (JMException | SecurityException e)
+         {
+            // counters and events still work without JMX
+         }
+         registered = true;
+      }
+      enabled = instrumented;
+   }
+
+   /**
+    * Checks if the instrumentation is enabled.
+    *
+    * @return true, if enabled
+    */
+   static boolean isInstrumented()
+   {
+      return enabled;
+   }
+
+   /**
+    * Start a phase.
+    *
+    * @param phase the phase
+    * @param cl the class the phase runs for
+    * @return the probe to stop, null if the instrumentation is disabled
+    */
+   static Probe start(Phase phase, Class<?> cl)
+   {
+      return enabled ? new Probe(phase, cl.getName()) : null;
+   }
+
+   /**
+    * Stop a phase and record it.
+    *
+    * @param probe the probe, may be null
+    */
+   static void stop(Probe probe)
+   {
+      if (probe == null)
+      {
+         return;
+      }
+      long duration = System.nanoTime() - probe.start;
+      LongAdder[] adders = INSTANCE.counters.computeIfAbsent(probe.className, k -> newAdders());
+      adders[probe.phase.ordinal()].increment();
+      adders[PHASES + probe.phase.ordinal()].add(duration);
+      if (probe.event != null)
+      {
+         probe.recorder.commit(probe.event, probe.phase.name(), probe.className);
+      }
+   }
+
+   /**
+    * Create the counters of a class.
+    *
+    * @return the counters
+    */
+   private static LongAdder[] newAdders()
+   {
+      LongAdder[] ret = new LongAdder[2 * PHASES];
+      for (int i = 0; i < ret.length; i++)
+      {
+         ret[i] = new LongAdder();
+      }
+      return ret;
+   }
+
+   /**
+    * Create the flight recorder, if its API is there. XFlightRecorder is looked up by name : it is
+    * missing from builds made with a JDK older than 11, and cannot be loaded by older JVMs.
+    *
+    * @return the recorder, or null if not available
+    */
+   private static Recorder createRecorder()
+   {
+      try
+      {
+         Class.forName("jdk.jfr.Event");
+         return (Recorder) Class.forName(XMetrics.class.getPackage().getName() + ".XFlightRecorder")
+               .getDeclaredConstructor().newInstance();
+      }
+      catch (ReflectiveOperationException | LinkageError | SecurityException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Gets the counter of a class and a phase.
+    *
+    * @param className the class name
+    * @param phase the phase name
+    * @param offset 0 for counts, the number of phases for times
+    * @return the counter value, 0 if unknown
+    */
+   private long getCounter(String className, String phase, int offset)
+   {
+      LongAdder[] adders = counters.get(className);
+      if (adders == null)
+      {
+         return 0;
+      }
+      try
+      {
+         return adders[offset + Phase.valueOf(phase).ordinal()].sum();
+      }
+      catch (IllegalArgumentException e)
+      {
+         return 0;
+      }
+   }
+
+   /**
+    * Checks if the instrumentation is enabled.
+    *
+    * @return true, if enabled
+    */
+   @Override
+   public boolean isEnabled()
+   {
+      return enabled;
+   }
+
+   /**
+    * Enable or disable the instrumentation.
+    *
+    * @param enabled true to enable
+    */
+   @Override
+   public void setEnabled(boolean enabled)
+   {
+      setInstrumented(enabled);
+   }
+
+   /**
+    * Gets the phase names.
+    *
+    * @return the phase names
+    */
+   @Override
+   public String[] getPhases()
+   {
+      String[] ret = new String[PHASES];
+      for (Phase phase : Phase.values())
+      {
+         ret[phase.ordinal()] = phase.name();
+      }
+      return ret;
+   }
+
+   /**
+    * Gets the names of the classes with counters.
+    *
+    * @return the class names, sorted
+    */
+   @Override
+   public String[] getClassNames()
+   {
+      return new TreeSet<>(counters.keySet()).toArray(new String[0]);
+   }
+
+   /**
+    * Gets the number of times a phase ran for a class.
+    *
+    * @param className the class name
+    * @param phase the phase name
+    * @return the count
+    */
+   @Override
+   public long getCount(String className, String phase)
+   {
+      return getCounter(className, phase, 0);
+   }
+
+   /**
+    * Gets the total time spent in a phase for a class.
+    *
+    * @param className the class name
+    * @param phase the phase name
+    * @return the total time, in nanoseconds
+    */
+   @Override
+   public long getTotalNanos(String className, String phase)
+   {
+      return getCounter(className, phase, PHASES);
+   }
+
+   /**
+    * Gets the total time spent in a phase, all classes included.
+    *
+    * @param phase the phase name
+    * @return the total time, in nanoseconds
+    */
+   @Override
+   public long getPhaseTotalNanos(String phase)
+   {
+      long ret = 0;
+      for (String className : counters.keySet())
+      {
+         ret += getTotalNanos(className, phase);
+      }
+      return ret;
+   }
+
+   /**
+    * Gets a report of all the counters, one line per class and phase, slowest first.
+    *
+    * @return the report
+    */
+   @Override
+   public String getReport()
+   {
+      List<Object[]> lines = new ArrayList<>();
+      for (String className : counters.keySet())
+      {
+         for (Phase phase : Phase.values())
+         {
+            long count = getCount(className, phase.name());
+            if (count > 0)
+            {
+               lines.add(new Object[] { className, phase.name(), count, getTotalNanos(className, phase.name()) });
+            }
+         }
+      }
+      lines.sort((line1, line2) -> Long.compare((Long) line2[3], (Long) line1[3]));
+
+      StringBuilder ret = new StringBuilder();
+      for (Object[] line : lines)
+      {
+         ret.append(String.format("%s %s count=%d time=%.3fms%n", line[0], line[1], line[2], (Long) line[3] / 1e6));
+      }
+      return ret.toString();
+   }
+
+   /**
+    * Reset all the counters.
+    */
+   @Override
+   public void reset()
+   {
+      counters.clear();
+   }
+}
@@ -0,0 +1,82 @@
+package net.alantea.xtend;
+
+/**
+ * Management interface of the XManager instrumentation, registered as
+ * "net.alantea.xtend:type=XManager" when instrumentation is enabled. Counters are cumulative since
+ * the last reset. Discovery phases (SCAN, CLASS_LOAD) are counted per base class, and
+ * construction phases (CONSTRUCTOR_RESOLUTION, CONSTRUCTION) per implementation class.
+ * BUNDLE_ASSOCIATION is counted per implementation class for single loads, and per base class for
+ * the batches of multiple loads.
+ *
+ * @author Alantea
+ *
+ */
+public interface XMetricsMBean
+{
+
+  /**
+   * Checks if the instrumentation is enabled.
+   *
+   * @return true, if enabled
+   */
+  boolean isEnabled();
+
+  /**
+   * Enable or disable the instrumentation.
+   *
+   * @param enabled true to enable
+   */
+  void setEnabled(boolean enabled);
+
+  /**
+   * Gets the phase names.
+   *
+   * @return the phase names
+   */
+  String[] getPhases();
+
+  /**
+   * Gets the names of the classes with counters.
+   *
+   * @return the class names, sorted
+   */
+  String[] getClassNames();
+
+  /**
+   * Gets the number of times a phase ran for a class.
+   *
+   * @param className the class name
+   * @param phase the phase name
+   * @return the count
+   */
+  long getCount(String className, String phase);
+
+  /**
+   * Gets the total time spent in a phase for a class.
+   *
+   * @param className the class name
+   * @param phase the phase name
+   * @return the total time, in nanoseconds
+   */
+  long getTotalNanos(String className, String phase);
+
+  /**
+   * Gets the total time spent in a phase, all classes included.
+   *
+   * @param phase the phase name
+   * @return the total time, in nanoseconds
+   */
+  long getPhaseTotalNanos(String phase);
+
+  /**
+   * Gets a report of all the counters, one line per class and phase, slowest first.
+   *
+   * @return the report
+   */
+  String getReport();
+
+  /**
+   * Reset all the counters.
+   */
+  void reset();
+}
@@ -0,0 +1,377 @@
+package net.alantea.xtend;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Plugin directory. Each jar in the directory is loaded by its own class loader, and the directory
+ * is watched : when jars are added, removed or replaced, the listener is told which plugins
+ * appeared and disappeared, so that only the affected extensions are discovered again.
+ *
+ * @author Alantea
+ *
+ */
+final class XPlugins
+{
+
+   /** Quiet delay, in milliseconds, before changes are taken into account : jars may still be copied. */
+   private static final long QUIET_DELAY = 500;
+
+   /**
+    * The plugins listener.
+    */
+   interface Listener
+   {
+
+      /**
+       * A plugin has been added.
+       *
+       * @param plugin the plugin
+       */
+      void pluginAdded(Plugin plugin);
+
+      /**
+       * A plugin has been removed. Its class loader is closed after this call.
+       *
+       * @param plugin the plugin
+       */
+      void pluginRemoved(Plugin plugin);
+   }
+
+   /**
+    * A plugin jar, with its class loader and catalog.
+    */
+   static final class Plugin
+   {
+
+      /** The jar path. */
+      private String path;
+
+      /** The class loader. */
+      private URLClassLoader loader;
+
+      /** The catalog. */
+      private XCatalog catalog;
+
+      /**
+       * Instantiates a new plugin.
+       *
+       * @param path the jar path
+       * @param loader the class loader
+       * @param catalog the catalog
+       */
+      private Plugin(String path, URLClassLoader loader, XCatalog catalog)
+      {
+         this.path = path;
+         this.loader = loader;
+         this.catalog = catalog;
+      }
+
+      /**
+       * Gets the jar path.
+       *
+       * @return the path
+       */
+      String getPath()
+      {
+         return path;
+      }
+
+      /**
+       * Gets the class loader.
+       *
+       * @return the class loader
+       */
+      ClassLoader getLoader()
+      {
+         return loader;
+      }
+
+      /**
+       * Gets the names of the plugin classes derived from a base class.
+       *
+       * @param baseClass the base class
+       * @return the implementor names
+       */
+      List<String> getImplementorNames(Class<?> baseClass)
+      {
+         return catalog.getImplementorNames(baseClass, loader);
+      }
+
+      /**
+       * Checks if the plugin jar changed since it was scanned.
+       *
+       * @return true, if changed
+       */
+      private boolean isModified()
+      {
+         return !catalog.getFingerprint(path).equals(XFingerprint.of(path));
+      }
+   }
+
+   /** The directory. */
+   private File directory;
+
+   /** The listener. */
+   private Listener listener;
+
+   /** The parent class loader of the plugin class loaders. */
+   private ClassLoader parent;
+
+   /** The plugins, by jar path, sorted. Replaced on each change, never modified. */
+   private volatile Map<String, Plugin> plugins = Collections.emptyMap();
+
+   /** The watch service. */
+   private WatchService watcher;
+
+   /**
+    * Instantiates a new plugin directory.
+    *
+    * @param directory the directory
+    * @param parent the parent class loader
+    * @param listener the listener
+    */
+   XPlugins(File directory, ClassLoader parent, Listener listener)
+   {
+      this.directory = directory;
+      this.parent = parent;
+      this.listener = listener;
+   }
+
+   /**
+    * Load the current plugins and start watching the directory.
+    *
+    * @throws Xception if the directory cannot be watched
+    */
+   void start() throws Xception
+   {
+      synchronize();
+      try
+      {
+         watcher = FileSystems.getDefault().newWatchService();
+         directory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+               StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+      }
+      catch (IOException e)
+      {
+         throw new Xception("unable to watch plugin directory " + directory, e);
+      }
+      Thread thread = new Thread(this::watch, "xtend-plugins");
+      thread.setDaemon(true);
+      thread.start();
+   }
+
+   /**
+    * Stop watching the directory and remove all the plugins.
+    */
+   void stop()
+   {
+      try
+      {
+         if (watcher != null)
+         {
+            watcher.close();
+         }
+      }
+      catch (IOException e)
+      {
+         // already closed
+      }
+      synchronized (this)
+      {
+         Map<String, Plugin> removed = plugins;
+         plugins = Collections.emptyMap();
+         for (Plugin plugin : removed.values())
+         {
+            remove(plugin);
+         }
+      }
+   }
+
+   /**
+    * Gets the plugins.
+    *
+    * @return the plugins, sorted by jar path
+    */
+   Iterable<Plugin> getPlugins()
+   {
+      return plugins.values();
+   }
+
+   /**
+    * Watch loop : wait for changes, then for a quiet delay, and synchronize. A failed
+    * synchronization is reported, and the directory is still watched.
+    */
+   private void watch()
+   {
+      try
+      {
+         while (true)
+         {
+            WatchKey key = watcher.take();
+            do
+            {
+               key.pollEvents();
+               key.reset();
+               key = watcher.poll(QUIET_DELAY, TimeUnit.MILLISECONDS);
+            }
+            while (key != null);
+            try
+            {
+               synchronize();
+            }
+            catch (RuntimeException e)
+            {
+               XManager.reportError(new Xception(Why.EXTENSION_ERROR,
+                     "unable to synchronize plugin directory " + directory, e));
+            }
+         }
+      }
+      catch (InterruptedException | ClosedWatchServiceException e)
+      {
+         // stopped
+      }
+   }
+
+   /**
+    * Synchronize the plugins with the jars in the directory.
+    */
+   synchronized void synchronize()
+   {
+      Map<String, Plugin> updated = new TreeMap<>(plugins);
+      List<Plugin> removed = new ArrayList<>();
+      List<String> added = new ArrayList<>();
+
+      Set<String> jars = new TreeSet<>();
+      File[] files = directory.listFiles((dir, name) -> name.endsWith(".jar"));
+      for (File file : (files == null) ? new File[0] : files)
+      {
+         jars.add(file.toPath().toAbsolutePath().normalize().toString());
+      }
+
+      for (Plugin plugin : plugins.values())
+      {
+         if ((!jars.contains(plugin.path)) || (plugin.isModified()))
+         {
+            removed.add(plugin);
+            updated.remove(plugin.path);
+         }
+      }
+      for (String path : jars)
+      {
+         if (!updated.containsKey(path))
+         {
+            added.add(path);
+         }
+      }
+      if ((removed.isEmpty()) && (added.isEmpty()))
+      {
+         return;
+      }
+
+      // removed plugins must not be found anymore when listeners are notified
+      plugins = Collections.unmodifiableMap(new TreeMap<>(updated));
+      for (Plugin plugin : removed)
+      {
+         remove(plugin);
+      }
+
+      List<Plugin> created = new ArrayList<>();
+      for (String path : added)
+      {
+         Plugin plugin = create(path);
+         if (plugin != null)
+         {
+            updated.put(path, plugin);
+            created.add(plugin);
+         }
+      }
+      plugins = Collections.unmodifiableMap(updated);
+      for (Plugin plugin : created)
+      {
+         try
+         {
+            listener.pluginAdded(plugin);
+         }
+         catch (RuntimeException e)
+         {
+            XManager.reportError(new Xception(Why.EXTENSION_ERROR, "unable to add plugin " + plugin.path, e));
+         }
+      }
+   }
+
+   /**
+    * Create a plugin : scan the jar and open its class loader.
+    *
+    * @param path the jar path
+    * @return the plugin, or null if the jar cannot be opened
+    */
+   private Plugin create(String path)
+   {
+      try
+      {
+         Map<String, XFingerprint> fingerprints = Collections.singletonMap(path, XFingerprint.of(path));
+         Map<String, List<XClassHeader>> headers = Collections.singletonMap(path, XScanner.scanEntry(path,
+               (entry, e) -> XManager.reportError(e)));
+         XCatalog catalog = new XCatalog(Collections.singletonList(path), headers, fingerprints);
+         URLClassLoader loader = new URLClassLoader(new URL[] { new File(path).toURI().toURL() }, parent);
+         return new Plugin(path, loader, catalog);
+      }
+      catch (IOException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Remove a plugin : notify the listener and close the class loader.
+    *
+    * @param plugin the plugin
+    */
+   private void remove(Plugin plugin)
+   {
+      try
+      {
+         listener.pluginRemoved(plugin);
+      }
+      catch (RuntimeException e)
+      {
+         XManager.reportError(new Xception(Why.EXTENSION_ERROR, "unable to remove plugin " + plugin.path, e));
+      }
+      try
+      {
+         plugin.loader.close();
+      }
+      catch (IOException e)
+      {
+         // nothing more to release
+      }
+   }
+
+   /**
+    * Gets the directory.
+    *
+    * @return the directory
+    */
+   File getDirectory()
+   {
+      return directory;
+   }
+}
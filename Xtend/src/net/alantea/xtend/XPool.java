@@ -0,0 +1,113 @@
+package net.alantea.xtend;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free pool of instances of an implementation class, created once by
+ * XManager.pool and kept by its user. Idle instances are kept in an array of slots ; each thread
+ * starts looking at its own slot, so that threads seldom compete for the same one. When no idle
+ * instance is found a new one is constructed with the pool arguments, and when all slots are full a
+ * released instance is simply dropped. Taking an idle instance and giving it back allocate nothing.
+ *
+ * @author Alantea
+ *
+ * @param <T> the extension type
+ */
+public final class XPool<T>
+{
+
+   /** The implementation class. */
+   private Class<? extends T> implementationClass;
+
+   /** The constructor arguments. */
+   private Object[] args;
+
+   /** The idle instances. */
+   private AtomicReferenceArray<T> slots;
+
+   /**
+    * Instantiates a new pool.
+    *
+    * @param implementationClass the implementation class
+    * @param args the constructor arguments, not shared
+    * @param capacity the maximum number of idle instances
+    */
+   XPool(Class<? extends T> implementationClass, Object[] args, int capacity)
+   {
+      this.implementationClass = implementationClass;
+      this.args = args;
+      slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+   }
+
+   /**
+    * Take an instance, constructing it with the pool arguments if none is idle. It must be given
+    * back with release.
+    *
+    * @return the instance
+    * @throws Xception if the construction failed
+    */
+   public T acquire() throws Xception
+   {
+      int length = slots.length();
+      int start = stripe(length);
+      for (int i = 0; i < length; i++)
+      {
+         int index = (start + i) % length;
+         if (slots.get(index) != null)
+         {
+            T instance = slots.getAndSet(index, null);
+            if (instance != null)
+            {
+               return instance;
+            }
+         }
+      }
+      return XManager.loadSpecificExtension(implementationClass, args);
+   }
+
+   /**
+    * Borrow an instance, to be given back by closing the returned object, best in a
+    * try-with-resources statement.
+    *
+    * @return the borrowed instance
+    * @throws Xception if the construction failed
+    */
+   public XPooled<T> borrow() throws Xception
+   {
+      return new XPooled<>(this, acquire());
+   }
+
+   /**
+    * Give an instance back : reset it and keep it if a slot is free.
+    *
+    * @param instance the instance, taken from this pool
+    */
+   public void release(T instance)
+   {
+      if (instance instanceof IResettable)
+      {
+         ((IResettable) instance).reset();
+      }
+      int length = slots.length();
+      int start = stripe(length);
+      for (int i = 0; i < length; i++)
+      {
+         if (slots.compareAndSet((start + i) % length, null, instance))
+         {
+            return;
+         }
+      }
+   }
+
+   /**
+    * Get the current thread starting slot.
+    *
+    * @param length the slots count
+    * @return the starting slot index
+    */
+   private static int stripe(int length)
+   {
+      long id = Thread.currentThread().getId();
+      return (int) ((id ^ (id >>> 16)) & Integer.MAX_VALUE) % length;
+   }
+}
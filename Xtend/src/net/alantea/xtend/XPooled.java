@@ -0,0 +1,60 @@
+package net.alantea.xtend;
+
+/**
+ * An extension instance borrowed from a pool. Closing it gives the instance back to the pool, so
+ * it is best used in a try-with-resources statement. The instance must not be used after that.
+ *
+ * @author Alantea
+ *
+ * @param <T> the extension type
+ */
+public final class XPooled<T> implements AutoCloseable
+{
+
+   /** The pool. */
+   private XPool<T> pool;
+
+   /** The instance, null once given back. */
+   private T instance;
+
+   /**
+    * Instantiates a new borrowed instance.
+    *
+    * @param pool the pool
+    * @param instance the instance
+    */
+   XPooled(XPool<T> pool, T instance)
+   {
+      this.pool = pool;
+      this.instance = instance;
+   }
+
+   /**
+    * Gets the instance.
+    *
+    * @return the instance
+    * @throws IllegalStateException if the instance has been given back
+    */
+   public T get()
+   {
+      if (instance == null)
+      {
+         throw new IllegalStateException("pooled instance already released");
+      }
+      return instance;
+   }
+
+   /**
+    * Give the instance back to the pool. Does nothing if already done.
+    */
+   @Override
+   public void close()
+   {
+      T released = instance;
+      instance = null;
+      if (released != null)
+      {
+         pool.release(released);
+      }
+   }
+}
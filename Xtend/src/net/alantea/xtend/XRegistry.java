@@ -0,0 +1,33 @@
+package net.alantea.xtend;
+
+import java.util.List;
+
+/**
+ * Static extension registry, generated at build time by XAotGenerator. When a registry is found
+ * through the ServiceLoader mechanism, XManager takes from it the implementors of the class path
+ * entries it was generated from, and neither reads the indexes of those entries nor scans them. The
+ * other entries are still discovered as usual. This is what makes Xtend usable in a native image or
+ * with a class data sharing archive.
+ *
+ * @author Alantea
+ *
+ */
+public interface XRegistry
+{
+
+  /**
+   * Gets the names of the concrete classes derived from a base class.
+   *
+   * @param baseClassName the base class binary name
+   * @return the implementor binary names, empty if none
+   */
+  List<String> getImplementorNames(String baseClassName);
+
+  /**
+   * Gets the name of a class from each class path entry the registry was generated from. XManager
+   * locates the covered entries with them.
+   *
+   * @return the marker class binary names
+   */
+  List<String> getEntryMarkers();
+}
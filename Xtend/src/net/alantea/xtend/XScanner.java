@@ -0,0 +1,255 @@
+package net.alantea.xtend;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Class path scanner, working entry by entry. Entries (jars and directories) may be scanned one
+ * after the other or in parallel on a fork-join pool. In both cases, results are merged in class
+ * path order and sorted by name inside each entry, so that the same classes are found in the same
+ * order whatever the mode. Only the class file headers are read : no class is loaded. A class file
+ * or an entry that cannot be read is reported, and the rest of the entry is still scanned.
+ *
+ * @author Alantea
+ *
+ */
+final class XScanner
+{
+
+   /** Private singleton constructor. */
+   private XScanner()
+   {
+   }
+
+   /**
+    * Scan class path entries and read the headers of the classes they contain.
+    *
+    * @param entries the class path entries to scan
+    * @param parallelism the maximum number of entries scanned at the same time, 1 for sequential
+    * @param errors receives the entries that could not be read fully, with the reason
+    * @return the headers, by entry
+    * @throws Xception if the scan has been interrupted
+    */
+   static Map<String, List<XClassHeader>> scan(List<String> entries, int parallelism,
+         BiConsumer<String, Xception> errors) throws Xception
+   {
+      return scan(entries, parallelism, XFilter.NONE, errors);
+   }
+
+   /**
+    * Scan class path entries and read the headers of the classes they contain, in the packages
+    * accepted by a filter. The class files of the other packages are not read.
+    *
+    * @param entries the class path entries to scan
+    * @param parallelism the maximum number of entries scanned at the same time, 1 for sequential
+    * @param filter the filter
+    * @param errors receives the entries that could not be read fully, with the reason ; it may be
+    *           called concurrently
+    * @return the headers, by entry
+    * @throws Xception if the scan has been interrupted
+    */
+   static Map<String, List<XClassHeader>> scan(List<String> entries, int parallelism, XFilter filter,
+         BiConsumer<String, Xception> errors) throws Xception
+   {
+      Map<String, List<XClassHeader>> ret = new HashMap<>();
+      if ((parallelism <= 1) || (entries.size() <= 1))
+      {
+         for (String entry : entries)
+         {
+            ret.put(entry, scanEntry(entry, filter, errors));
+         }
+         return ret;
+      }
+
+      ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, entries.size()));
+      try
+      {
+         List<ForkJoinTask<List<XClassHeader>>> tasks = new ArrayList<>();
+         for (String entry : entries)
+         {
+            tasks.add(pool.submit(() -> scanEntry(entry, filter, errors)));
+         }
+
+         for (int i = 0; i < entries.size(); i++)
+         {
+            ret.put(entries.get(i), tasks.get(i).get());
+         }
+         return ret;
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new Xception(Why.EXTENSION_ERROR, "interrupted while scanning class path", e);
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof Error)
+         {
+            throw (Error) e.getCause();
+         }
+         throw new Xception("error scanning class path", (Exception) e.getCause());
+      }
+      finally
+      {
+         pool.shutdownNow();
+      }
+   }
+
+   /**
+    * Read the class headers of a class path entry, excepting anonymous and local classes.
+    *
+    * @param entry the class path entry
+    * @param errors receives the entry if it could not be read fully, with the reason
+    * @return the class headers, sorted by name
+    */
+   static List<XClassHeader> scanEntry(String entry, BiConsumer<String, Xception> errors)
+   {
+      return scanEntry(entry, XFilter.NONE, errors);
+   }
+
+   /**
+    * Read the class headers of a class path entry, excepting anonymous and local classes and the
+    * classes out of the packages accepted by a filter. Each unreadable class file is reported, and
+    * the other ones are still read.
+    *
+    * @param entry the class path entry
+    * @param filter the filter
+    * @param errors receives the entry if it could not be read fully, with the reason
+    * @return the class headers, sorted by name
+    */
+   static List<XClassHeader> scanEntry(String entry, XFilter filter, BiConsumer<String, Xception> errors)
+   {
+      List<XClassHeader> ret = new ArrayList<>();
+      File file = new File(entry);
+      try
+      {
+         if (file.isDirectory())
+         {
+            Path root = file.toPath();
+            try (Stream<Path> paths = Files.walk(root))
+            {
+               for (Path path : (Iterable<Path>) paths::iterator)
+               {
+                  String name = root.relativize(path).toString().replace(File.separatorChar, '/');
+                  if ((isNamedClass(name)) && (filter.acceptsResource(name)))
+                  {
+                     addHeader(ret, entry, name, () -> Files.newInputStream(path), errors);
+                  }
+               }
+            }
+         }
+         else if (file.isFile())
+         {
+            try (JarFile jar = new JarFile(file))
+            {
+               Enumeration<JarEntry> jarEntries = jar.entries();
+               while (jarEntries.hasMoreElements())
+               {
+                  JarEntry jarEntry = jarEntries.nextElement();
+                  if ((isNamedClass(jarEntry.getName())) && (filter.acceptsResource(jarEntry.getName())))
+                  {
+                     addHeader(ret, entry, jarEntry.getName(), () -> jar.getInputStream(jarEntry), errors);
+                  }
+               }
+            }
+         }
+      }
+      catch (IOException | RuntimeException e)
+      {
+         errors.accept(entry, new Xception(Why.EXTENSION_ERROR, "unable to scan " + entry,
+               (e instanceof UncheckedIOException) ? ((UncheckedIOException) e).getCause() : e));
+      }
+      ret.sort((h1, h2) -> h1.getName().compareTo(h2.getName()));
+      return ret;
+   }
+
+   /**
+    * Class file opening.
+    */
+   private interface Opening
+   {
+
+      /**
+       * Open the class file.
+       *
+       * @return the class file stream
+       * @throws IOException Signals that an I/O exception has occurred.
+       */
+      InputStream open() throws IOException;
+   }
+
+   /**
+    * Read and add a class header. An unreadable class file is reported and skipped.
+    *
+    * @param headers the headers
+    * @param entry the class path entry
+    * @param name the class file path in the entry
+    * @param opening the class file opening
+    * @param errors receives the entry if the class file could not be read, with the reason
+    */
+   private static void addHeader(List<XClassHeader> headers, String entry, String name, Opening opening,
+         BiConsumer<String, Xception> errors)
+   {
+      XClassHeader header;
+      try (InputStream stream = opening.open())
+      {
+         header = XClassHeader.read(stream);
+      }
+      catch (IOException | RuntimeException e)
+      {
+         errors.accept(entry, new Xception(Why.BAD_EXTENSION, "unable to read " + name + " in " + entry, e));
+         return;
+      }
+      if (header == null)
+      {
+         errors.accept(entry, new Xception(Why.BAD_EXTENSION, name + " in " + entry + " is not a valid class file"));
+      }
+      else
+      {
+         headers.add(header);
+      }
+   }
+
+   /**
+    * Checks if a resource path is a named class file.
+    *
+    * @param path the resource path
+    * @return true, if this is neither an anonymous or local class nor a module or package info
+    */
+   static boolean isNamedClass(String path)
+   {
+      if ((!path.endsWith(".class")) || (path.endsWith("module-info.class"))
+            || (path.endsWith("package-info.class")) || (path.startsWith("META-INF/")))
+      {
+         return false;
+      }
+      int pos = path.indexOf('$');
+      while (pos >= 0)
+      {
+         if ((pos + 1 < path.length()) && (Character.isDigit(path.charAt(pos + 1))))
+         {
+            return false;
+         }
+         pos = path.indexOf('$', pos + 1);
+      }
+      return true;
+   }
+}
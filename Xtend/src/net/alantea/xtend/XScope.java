@@ -0,0 +1,20 @@
+package net.alantea.xtend;
+
+/**
+ * Scope of a named instance.
+ *
+ * @author Alantea
+ *
+ */
+public enum XScope
+{
+
+   /** One instance for the whole application. */
+   SINGLETON,
+
+   /** One instance for each thread. */
+   THREAD,
+
+   /** A new instance each time it is loaded : nothing is kept. */
+   PROTOTYPE
+}
@@ -1,106 +1,145 @@
-package net.alantea.xtend;
-
-/**
- * The Class Xception.
- */
-public class Xception extends Exception
-{
-  private static final long serialVersionUID = 1L;
-
-  /**
-   * Why this exception was raised.
-   */
-  public enum Why
-  {
-    
-    /** no extension. */
-    NO_EXTENSION,
-    
-    /** multiple extension. */
-    MULTIPLE_EXTENSION,
-    
-    /** bad constructor. */
-    BAD_CONSTRUCTOR,
-    
-    /** not implemented. */
-    NOT_IMPLEMENTED,
-    
-    /** bad extension. */
-    BAD_EXTENSION,
-    
-    /** no bundle. */
-    NO_BUNDLE,
-    
-    /** extension error. */
-    EXTENSION_ERROR
-  }
-
-  /** The reason why. */
-  private Why why;
-
-  /**
-   * Instantiates a new exception.
-   *
-   * @param type the type
-   */
-  public Xception(Why type)
-  {
-    super();
-    why = type;
-  }
-
-  /**
-   * Instantiates a new exception.
-   *
-   * @param type the type
-   * @param message the message
-   */
-  public Xception(Why type, String message)
-  {
-    this(type, message, null);
-  }
-
-  /**
-   * Instantiates a new exception.
-   *
-   * @param message the message
-   */
-  public Xception(String message)
-  {
-    this(Why.EXTENSION_ERROR, message, null);
-  }
-
-  /**
-   * Instantiates a new exception.
-   *
-   * @param message the message
-   * @param root the root
-   */
-  public Xception(String message, Exception root)
-  {
-    this(Why.EXTENSION_ERROR, message, root);
-  }
-
-  /**
-   * Instantiates a new exception.
-   *
-   * @param type the type
-   * @param message the message
-   * @param root the root
-   */
-  public Xception(Why type, String message, Exception root)
-  {
-    super(message, root);
-    why = type;
-  }
-
-  /**
-   * Gets the reason why.
-   *
-   * @return the why
-   */
-  Why getWhy()
-  {
-    return why;
-  }
-}
+package net.alantea.xtend;
+
+/**
+ * The Class Xception.
+ */
+public class Xception extends Exception
+{
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Why this exception was raised.
+   */
+  public enum Why
+  {
+    
+    /** no extension. */
+    NO_EXTENSION,
+    
+    /** multiple extension. */
+    MULTIPLE_EXTENSION,
+    
+    /** bad constructor. */
+    BAD_CONSTRUCTOR,
+    
+    /** not implemented. */
+    NOT_IMPLEMENTED,
+    
+    /** bad extension. */
+    BAD_EXTENSION,
+    
+    /** no bundle. */
+    NO_BUNDLE,
+    
+    /** extension error. */
+    EXTENSION_ERROR,
+    
+    /** cyclic dependency. */
+    CYCLIC_DEPENDENCY
+  }
+
+  /** The preallocated stackless exceptions, by reason. */
+  private static final Xception[] STACKLESS = new Xception[Why.values().length];
+
+  static
+  {
+    for (Why why : Why.values())
+    {
+      STACKLESS[why.ordinal()] = new Xception(why, false);
+    }
+  }
+
+  /** The reason why. */
+  private Why why;
+
+  /**
+   * Instantiates a new exception.
+   *
+   * @param type the type
+   */
+  public Xception(Why type)
+  {
+    super();
+    why = type;
+  }
+
+  /**
+   * Instantiates a new exception.
+   *
+   * @param type the type
+   * @param message the message
+   */
+  public Xception(Why type, String message)
+  {
+    this(type, message, null);
+  }
+
+  /**
+   * Instantiates a new exception.
+   *
+   * @param message the message
+   */
+  public Xception(String message)
+  {
+    this(Why.EXTENSION_ERROR, message, null);
+  }
+
+  /**
+   * Instantiates a new exception.
+   *
+   * @param message the message
+   * @param root the root
+   */
+  public Xception(String message, Exception root)
+  {
+    this(Why.EXTENSION_ERROR, message, root);
+  }
+
+  /**
+   * Instantiates a new exception.
+   *
+   * @param type the type
+   * @param message the message
+   * @param root the root
+   */
+  public Xception(Why type, String message, Exception root)
+  {
+    super(message, root);
+    why = type;
+  }
+
+  /**
+   * Instantiates a new exception without stack trace nor suppressed exceptions.
+   *
+   * @param type the type
+   * @param writableStackTrace always false
+   */
+  private Xception(Why type, boolean writableStackTrace)
+  {
+    super(null, null, false, writableStackTrace);
+    why = type;
+  }
+
+  /**
+   * Gets the preallocated exception for a reason. It has no stack trace and cannot get a cause or
+   * suppressed exceptions, so that it costs nothing to throw : it is meant for the reasons used as
+   * control flow, like NO_EXTENSION.
+   *
+   * @param type the type
+   * @return the shared stackless exception
+   */
+  public static Xception stackless(Why type)
+  {
+    return STACKLESS[type.ordinal()];
+  }
+
+  /**
+   * Gets the reason why.
+   *
+   * @return the why
+   */
+  public Why getWhy()
+  {
+    return why;
+  }
+}
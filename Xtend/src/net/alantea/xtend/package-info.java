@@ -1,7 +1,7 @@
-/**
- * This package contains a mechanism to manage extensions ans add-ons in Java.
- * 
- * @author Jean Rbillat
- *
- */
+/**
+ * This package contains a mechanism to manage extensions ans add-ons in Java.
+ * 
+ * @author Jean Rbillat
+ *
+ */
 package net.alantea.xtend;
\ No newline at end of file
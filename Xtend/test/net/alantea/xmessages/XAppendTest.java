@@ -0,0 +1,107 @@
+package net.alantea.xmessages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the append methods : same text as the get methods, numbers written without boxing, and
+ * append failures.
+ *
+ * @author Alantea
+ *
+ */
+public class XAppendTest
+{
+
+   /** The test bundle. */
+   private static final String APPEND = "net.alantea.xmessages.Append";
+
+   /**
+    * Register the test bundle.
+    */
+   @Before
+   public void setUp()
+   {
+      XMessages.addBundle(APPEND);
+   }
+
+   /**
+    * Appending gives the text given by get, for every argument combination.
+    */
+   @Test
+   public void appendMatchesGet()
+   {
+      assertEquals(XMessages.get("color"), XMessages.append(new StringBuilder(), "color").toString());
+      assertEquals(XMessages.get("count", "1"), XMessages.append(new StringBuilder(), "count", "1").toString());
+      assertEquals(XMessages.get("count", "3", "4"),
+            XMessages.append(new StringBuilder(), "count", "3", "4").toString());
+      assertEquals(XMessages.get("mixed", "x", "color"),
+            XMessages.append(new StringBuilder(), "mixed", "x", "color").toString());
+      assertEquals("1-2-3-4", XMessages.append(new StringBuilder(), "[1]-[2]-[3]-[4]", "1", "2", "3", "4").toString());
+      assertEquals("a b c", XMessages.append(new StringBuilder(), "[1] [2] [3]", "a", "b", "c").toString());
+   }
+
+   /**
+    * Numeric arguments are written as their decimal value, in any position.
+    */
+   @Test
+   public void numbersAreWritten()
+   {
+      assertEquals("3 of 10", XMessages.append(new StringBuilder(), "count", 3, 10).toString());
+      assertEquals("-7 of [2]", XMessages.append(new StringBuilder(), "count", -7).toString());
+      assertEquals("x of " + Long.MIN_VALUE,
+            XMessages.append(new StringBuilder(), "count", "x", Long.MIN_VALUE).toString());
+      assertEquals(Long.MAX_VALUE + " of y",
+            XMessages.append(new StringBuilder(), "count", Long.MAX_VALUE, "y").toString());
+      assertEquals("0 is red", XMessages.append(new StringBuilder(), "mixed", 0, "color").toString());
+
+      CharBuffer buffer = CharBuffer.allocate(32);
+      assertSame(buffer, XMessages.append(buffer, "count", 1, 2));
+      buffer.flip();
+      assertEquals("1 of 2", buffer.toString());
+   }
+
+   /**
+    * A failure of the appendable is thrown unchecked.
+    */
+   @Test
+   public void appendFailuresAreUnchecked()
+   {
+      Writer failing = new Writer()
+      {
+         @Override
+         public void write(char[] buffer, int offset, int length) throws IOException
+         {
+            throw new IOException("closed");
+         }
+
+         @Override
+         public void flush()
+         {
+         }
+
+         @Override
+         public void close()
+         {
+         }
+      };
+      try
+      {
+         XMessages.append(failing, "count", 1, 2);
+         fail("no failure");
+      }
+      catch (UncheckedIOException e)
+      {
+         assertEquals("closed", e.getCause().getMessage());
+      }
+   }
+}
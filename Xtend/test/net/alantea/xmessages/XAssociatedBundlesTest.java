@@ -0,0 +1,44 @@
+package net.alantea.xmessages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests of the association of several bundles at once : deduplication, absent bundles and bundles
+ * already registered.
+ *
+ * @author Alantea
+ *
+ */
+public class XAssociatedBundlesTest
+{
+
+   /** A bundle associated by name. */
+   private static final String BATCH = "net.alantea.xmessages.Batch";
+
+   /** An absent bundle. */
+   private static final String ABSENT = "net.alantea.xmessages.Absent";
+
+   /**
+    * Bundles are registered once each, absent ones being skipped, and registered ones are not
+    * counted again.
+    */
+   @Test
+   public void bundlesAreAssociatedOnce()
+   {
+      assertNull(XMessages.getOrNull("batch"));
+      assertNull(XMessages.getOrNull("associated"));
+
+      assertEquals(2, XMessages.addAssociatedBundles(Arrays.asList(BATCH, this, ABSENT, BATCH, this)));
+      assertEquals("Batch", XMessages.get("batch"));
+      assertEquals("Associated", XMessages.get("associated"));
+
+      assertEquals(0, XMessages.addAssociatedBundles(Arrays.asList(BATCH, this, ABSENT)));
+      assertEquals(0, XMessages.addAssociatedBundles(Collections.emptyList()));
+   }
+}
@@ -0,0 +1,164 @@
+package net.alantea.xmessages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.alantea.xmessages.XMessages.XMessagesKey;
+
+/**
+ * Tests of the per-locale catalogs : fallback from the most specific locale to the base bundle,
+ * never to the default locale, and catalogs kept up to date when bundles are added.
+ *
+ * @author Alantea
+ *
+ */
+public class XBundleRegistryTest
+{
+
+   /** The test bundle, with fr, fr_CA and de versions. */
+   private static final String FALLBACK = "net.alantea.xmessages.Fallback";
+
+   /** Another test bundle, with a fr version. */
+   private static final String SECOND = "net.alantea.xmessages.Second";
+
+   /** The default locale of the JVM, restored after each test. */
+   private Locale defaultLocale;
+
+   /** The registry, for German. */
+   private XBundleRegistry registry;
+
+   /**
+    * Make German the default locale, and register the test bundle for it.
+    */
+   @Before
+   public void setUp()
+   {
+      defaultLocale = Locale.getDefault();
+      Locale.setDefault(Locale.GERMAN);
+      registry = XBundleRegistry.empty(Locale.GERMAN).with(bundle(FALLBACK, 0));
+   }
+
+   /**
+    * Restore the default locale.
+    */
+   @After
+   public void tearDown()
+   {
+      Locale.setDefault(defaultLocale);
+   }
+
+   /**
+    * Values are taken from the most specific bundle having them : fr_CA, then fr, then the base one.
+    */
+   @Test
+   public void valuesFallBackToMoreGeneralLocales()
+   {
+      XBundleRegistry canadian = registry.forLocale(Locale.CANADA_FRENCH);
+      assertEquals("Allo", canadian.getValue("greeting"));
+      assertEquals("Au revoir", canadian.getValue("farewell"));
+      assertEquals("base only", canadian.getValue("base"));
+
+      XBundleRegistry french = registry.forLocale(Locale.FRANCE);
+      assertEquals("Bonjour", french.getValue("greeting"));
+      assertEquals("base only", french.getValue("base"));
+   }
+
+   /**
+    * A locale without bundle takes the base bundle, not the one of the default locale.
+    */
+   @Test
+   public void valuesNeverFallBackToDefaultLocale()
+   {
+      assertEquals("Hallo", registry.getValue("greeting"));
+
+      XBundleRegistry italian = registry.forLocale(Locale.ITALIAN);
+      assertEquals("Hello", italian.getValue("greeting"));
+      assertEquals("base only", italian.getValue("base"));
+      assertEquals("missing", italian.getValue("missing"));
+      assertNull(italian.getTemplate("missing"));
+   }
+
+   /**
+    * The registry is its own catalog for its locale, and other catalogs are built once.
+    */
+   @Test
+   public void catalogsAreBuiltOnce()
+   {
+      assertSame(registry, registry.forLocale(Locale.GERMAN));
+      assertSame(registry.forLocale(Locale.FRENCH), registry.forLocale(Locale.FRENCH));
+   }
+
+   /**
+    * Bundles added after a catalog was built are found in the catalog of the new registry, for its
+    * locale, and the older values are kept.
+    */
+   @Test
+   public void catalogsFollowAddedBundles()
+   {
+      assertEquals("second", registry.forLocale(Locale.FRENCH).getValue("second"));
+
+      XBundleRegistry updated = registry.with(bundle(SECOND, 0));
+
+      XBundleRegistry french = updated.forLocale(Locale.FRENCH);
+      assertEquals("Deuxieme", french.getValue("second"));
+      assertEquals("Bonjour", french.getValue("greeting"));
+      assertEquals("Second", updated.forLocale(Locale.ITALIAN).getValue("second"));
+      assertEquals("second", registry.forLocale(Locale.FRENCH).getValue("second"));
+   }
+
+   /**
+    * A bundle of higher level wins over the others, whatever the order in which they were added.
+    */
+   @Test
+   public void higherLevelBundlesWin()
+   {
+      Map<XMessagesKey, ResourceBundle> high = Collections.singletonMap(new XMessagesKey("override", 1),
+            constant("second", "Override"));
+      XBundleRegistry empty = XBundleRegistry.empty(Locale.GERMAN);
+
+      assertEquals("Override", empty.with(bundle(SECOND, 0)).with(high).getValue("second"));
+      assertEquals("Override", empty.with(high).with(bundle(SECOND, 0)).getValue("second"));
+   }
+
+   /**
+    * Gets a test bundle, loaded for German, keyed for registration.
+    *
+    * @param name the bundle name
+    * @param level the level
+    * @return the bundle, by key
+    */
+   private static Map<XMessagesKey, ResourceBundle> bundle(String name, int level)
+   {
+      return Collections.singletonMap(new XMessagesKey(name, level), XMessages.loadBundle(name, Locale.GERMAN));
+   }
+
+   /**
+    * Create a bundle with a single value.
+    *
+    * @param key the key
+    * @param value the value
+    * @return the bundle
+    */
+   private static ResourceBundle constant(String key, String value)
+   {
+      return new ListResourceBundle()
+      {
+         @Override
+         protected Object[][] getContents()
+         {
+            return new Object[][] { { key, value } };
+         }
+      };
+   }
+}
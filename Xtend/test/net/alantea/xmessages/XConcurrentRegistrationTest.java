@@ -0,0 +1,115 @@
+package net.alantea.xmessages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of bundles registered from several threads while messages are read.
+ *
+ * @author Alantea
+ *
+ */
+public class XConcurrentRegistrationTest
+{
+
+   /** The number of test bundles. */
+   private static final int BUNDLES = 4;
+
+   /** The registering threads. */
+   private static final int WRITERS = 8;
+
+   /** The reading threads. */
+   private static final int READERS = 4;
+
+   /**
+    * Bundles registered concurrently are each counted once, and readers only ever see a message
+    * missing or with its value.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void concurrentRegistrationsAreSeenWhole() throws Exception
+   {
+      List<String> names = new ArrayList<>();
+      for (int i = 1; i <= BUNDLES; i++)
+      {
+         assertNull(XMessages.getOrNull("concurrent" + i));
+         names.add("net.alantea.xmessages.Concurrent" + i);
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+      CountDownLatch start = new CountDownLatch(1);
+      AtomicBoolean writing = new AtomicBoolean(true);
+      AtomicInteger added = new AtomicInteger();
+      try
+      {
+         List<Future<?>> readers = new ArrayList<>();
+         for (int r = 0; r < READERS; r++)
+         {
+            readers.add(executor.submit(() -> {
+               start.await();
+               do
+               {
+                  for (int i = 1; i <= BUNDLES; i++)
+                  {
+                     String value = XMessages.getOrNull("concurrent" + i);
+                     assertTrue(value, (value == null) || (value.equals("Concurrent " + i)));
+                  }
+               }
+               while (writing.get());
+               return null;
+            }));
+         }
+         List<Future<?>> writers = new ArrayList<>();
+         for (int w = 0; w < WRITERS; w++)
+         {
+            List<String> rotated = new ArrayList<>(names);
+            Collections.rotate(rotated, w);
+            writers.add(executor.submit(() -> {
+               start.await();
+               for (String name : rotated)
+               {
+                  added.addAndGet(XMessages.addAssociatedBundles(Arrays.asList(name)));
+               }
+               return null;
+            }));
+         }
+
+         start.countDown();
+         for (Future<?> writer : writers)
+         {
+            writer.get(30, TimeUnit.SECONDS);
+         }
+         writing.set(false);
+         for (Future<?> reader : readers)
+         {
+            reader.get(30, TimeUnit.SECONDS);
+         }
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+
+      assertEquals(BUNDLES, added.get());
+      for (int i = 1; i <= BUNDLES; i++)
+      {
+         assertEquals("Concurrent " + i, XMessages.get("concurrent" + i));
+      }
+   }
+}
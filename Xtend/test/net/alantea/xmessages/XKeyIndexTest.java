@@ -0,0 +1,98 @@
+package net.alantea.xmessages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import net.alantea.xmessages.XMessages.XMessagesKey;
+
+/**
+ * Tests of the merged key index : the value of a key is the one of the first bundle having it, in
+ * bundle order, whatever the order in which bundles were added.
+ *
+ * @author Alantea
+ *
+ */
+public class XKeyIndexTest
+{
+
+   /** An empty registry. */
+   private XBundleRegistry empty = XBundleRegistry.empty(Locale.ROOT);
+
+   /**
+    * At the same level, the index gives the value of the first bundle in bundle order, as a search
+    * through the ordered bundles would.
+    */
+   @Test
+   public void indexFollowsBundleOrder()
+   {
+      Map<XMessagesKey, ResourceBundle> alpha = bundle("alpha", 0, "shared", "from alpha");
+      Map<XMessagesKey, ResourceBundle> beta = bundle("beta", 0, "shared", "from beta");
+      TreeMap<XMessagesKey, ResourceBundle> ordered = new TreeMap<>(alpha);
+      ordered.putAll(beta);
+      String expected = ordered.firstEntry().getValue().getString("shared");
+
+      assertEquals(expected, empty.with(alpha).with(beta).getValue("shared"));
+      assertEquals(expected, empty.with(beta).with(alpha).getValue("shared"));
+      assertEquals(expected, empty.with(ordered).getValue("shared"));
+   }
+
+   /**
+    * A value equal to its key is not a translation : the value of a lower bundle is taken.
+    */
+   @Test
+   public void valuesEqualToKeysAreSkipped()
+   {
+      XBundleRegistry registry = empty.with(bundle("low", 0, "key", "translated"))
+            .with(bundle("high", 1, "key", "key"));
+
+      assertEquals("translated", registry.getValue("key"));
+   }
+
+   /**
+    * Adding bundles keeps the templates of the values they do not change, and adding registered
+    * bundles again changes nothing.
+    */
+   @Test
+   public void addedBundlesPatchTheIndex()
+   {
+      Map<XMessagesKey, ResourceBundle> first = bundle("first", 0, "kept", "Kept [1]");
+      XBundleRegistry registry = empty.with(first);
+      XBundleRegistry updated = registry.with(bundle("second", 0, "other", "Other"));
+
+      assertSame(registry.getTemplate("kept"), updated.getTemplate("kept"));
+      assertEquals("Other", updated.getValue("other"));
+      assertEquals("other", registry.getValue("other"));
+      assertSame(updated, updated.with(first));
+      assertEquals(2, updated.size());
+   }
+
+   /**
+    * Create a bundle with a single value, keyed for registration.
+    *
+    * @param name the bundle name
+    * @param level the level
+    * @param key the key
+    * @param value the value
+    * @return the bundle, by key
+    */
+   private static Map<XMessagesKey, ResourceBundle> bundle(String name, int level, String key, String value)
+   {
+      return Collections.singletonMap(new XMessagesKey(name, level), new ListResourceBundle()
+      {
+         @Override
+         protected Object[][] getContents()
+         {
+            return new Object[][] { { key, value } };
+         }
+      });
+   }
+}
@@ -0,0 +1,134 @@
+package net.alantea.xmessages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import net.alantea.xmessages.XMessages.XMessagesKey;
+
+/**
+ * Tests of the message templates : "[n]" and "{n}" placeholders, null and missing arguments.
+ *
+ * @author Alantea
+ *
+ */
+public class XMessageTemplateTest
+{
+
+   /** The catalog where keyed arguments are searched. */
+   private XBundleRegistry catalog = XBundleRegistry.empty(Locale.ROOT).with(Collections.singletonMap(
+         new XMessagesKey("test", 0), new ListResourceBundle()
+         {
+            @Override
+            protected Object[][] getContents()
+            {
+               return new Object[][] { { "color", "red" }, { "7", "seven" } };
+            }
+         }));
+
+   /**
+    * "[n]" placeholders are replaced by the n-th argument.
+    */
+   @Test
+   public void positionalPlaceholdersTakeArguments()
+   {
+      XMessageTemplate template = new XMessageTemplate("[2] before [1], [1] again");
+
+      assertTrue(template.hasPlaceholders());
+      assertEquals("b before a, a again", template.format(catalog, "a", "b"));
+   }
+
+   /**
+    * "{n}" placeholders are replaced by the message whose key is the n-th argument, or the
+    * argument itself if there is no such message.
+    */
+   @Test
+   public void keyedPlaceholdersTakeMessages()
+   {
+      XMessageTemplate template = new XMessageTemplate("a {1} car, a {2} one");
+
+      assertEquals("a red car, a blue one", template.format(catalog, "color", "blue"));
+   }
+
+   /**
+    * A null argument is written 'null'.
+    */
+   @Test
+   public void nullArgumentIsWrittenNull()
+   {
+      XMessageTemplate template = new XMessageTemplate("[1] and {2}");
+
+      assertEquals("'null' and 'null'", template.format(catalog, null, null));
+   }
+
+   /**
+    * Placeholders without matching argument are kept as they are.
+    */
+   @Test
+   public void missingArgumentsKeepPlaceholders()
+   {
+      XMessageTemplate template = new XMessageTemplate("[1], [2] and {3}");
+
+      assertEquals("x, [2] and {3}", template.format(catalog, "x"));
+      assertEquals("[1], [2] and {3}", template.format(catalog));
+   }
+
+   /**
+    * Brackets that are not placeholders are literal text.
+    */
+   @Test
+   public void otherBracketsAreLiterals()
+   {
+      String value = "[0] [01] [a] {} [1} {1 [99999999999] [";
+      XMessageTemplate template = new XMessageTemplate(value);
+
+      assertFalse(template.hasPlaceholders());
+      assertEquals(value, template.format(catalog, "x"));
+      assertEquals("[x]", new XMessageTemplate("[[1]]").format(catalog, "x"));
+   }
+
+   /**
+    * Arguments above 9 are found.
+    */
+   @Test
+   public void multiDigitPlaceholders()
+   {
+      XMessageTemplate template = new XMessageTemplate("[10][1]");
+
+      assertEquals("ja", template.format(catalog, "a", "b", "c", "d", "e", "f", "g", "h", "i", "j"));
+   }
+
+   /**
+    * Appending gives the same text as formatting, numbers being written without intermediate string.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void appendMatchesFormat() throws IOException
+   {
+      XMessageTemplate template = new XMessageTemplate("[1] is {2}, [3] [4]");
+
+      StringBuilder builder = new StringBuilder();
+      template.appendTo(catalog, builder, 3, 0, "x", "color", null, null, 0, 0);
+      assertEquals(template.format(catalog, "x", "color", null), builder.toString());
+
+      StringWriter writer = new StringWriter();
+      template.appendTo(catalog, writer, 2, 3, null, null, null, null, -42, 7);
+      assertEquals("-42 is seven, [3] [4]", writer.toString());
+
+      for (long number : new long[] { 0, 9, 10, -1, Long.MAX_VALUE, Long.MIN_VALUE })
+      {
+         writer = new StringWriter();
+         new XMessageTemplate("<[1]>").appendTo(catalog, writer, 1, 1, null, null, null, null, number, 0);
+         assertEquals("<" + number + ">", writer.toString());
+      }
+   }
+}
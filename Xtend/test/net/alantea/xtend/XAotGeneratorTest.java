@@ -0,0 +1,181 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.alantea.xmessages.XMessages;
+
+/**
+ * Tests of the build-time registry generation.
+ *
+ * @author Alantea
+ *
+ */
+public class XAotGeneratorTest
+{
+
+   /** The generated registry class name. */
+   private static final String REGISTRY = "generated.TestRegistry";
+
+   /** The temporary folder. */
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /** The resolved entry. */
+   private File entry;
+
+   /** The classes directory the registry is written in. */
+   private File directory;
+
+   /**
+    * Concrete base class.
+    */
+   public static class ConcreteBase
+   {
+   }
+
+   /**
+    * Implementor of the concrete base class and of a JDK interface.
+    */
+   public static class Derived extends ConcreteBase implements Runnable
+   {
+
+      /**
+       * Run.
+       */
+      @Override
+      public void run()
+      {
+      }
+   }
+
+   /**
+    * Create the resolved entry, holding the test classes.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Before
+   public void setUp() throws IOException
+   {
+      entry = folder.newFolder("entry");
+      copyClassFile(ConcreteBase.class);
+      copyClassFile(Derived.class);
+      directory = folder.newFolder("classes");
+   }
+
+   /**
+    * Implementors are registered under concrete base classes and JDK interfaces, without any
+    * declaration, but not under java.lang.Object.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void implementorsAreRegisteredUnderAllSuperTypes() throws Exception
+   {
+      XAotGenerator.generate(directory, REGISTRY, Collections.singletonList(entry.getPath()));
+
+      try (URLClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() },
+            XAotGeneratorTest.class.getClassLoader()))
+      {
+         XRegistry registry = (XRegistry) loader.loadClass(REGISTRY).newInstance();
+
+         assertEquals(Arrays.asList(Derived.class.getName()),
+               registry.getImplementorNames(ConcreteBase.class.getName()));
+         assertEquals(Arrays.asList(Derived.class.getName()), registry.getImplementorNames(Runnable.class.getName()));
+         assertTrue(registry.getImplementorNames(Object.class.getName()).isEmpty());
+         assertEquals(1, registry.getEntryMarkers().size());
+      }
+   }
+
+   /**
+    * The registry is declared as a service, and the implementors are in the native image and AppCDS
+    * metadata.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void metadataIsWritten() throws Exception
+   {
+      XAotGenerator.generate(directory, REGISTRY, Collections.singletonList(entry.getPath()));
+
+      assertEquals(Arrays.asList(REGISTRY), read(XAotGenerator.SERVICE_RESOURCE));
+      assertTrue(String.join("\n", read(XAotGenerator.REFLECT_CONFIG_RESOURCE)).contains(Derived.class.getName()));
+      assertTrue(read(XAotGenerator.CLASS_LIST_RESOURCE).contains(Derived.class.getName().replace('.', '/')));
+   }
+
+   /**
+    * All the Xtend runtime classes are put in the AppCDS class list, but not the build-time ones.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void runtimeClassesAreArchived() throws Exception
+   {
+      XAotGenerator.generate(directory, REGISTRY, Collections.singletonList(entry.getPath()));
+
+      List<String> classList = read(XAotGenerator.CLASS_LIST_RESOURCE);
+      for (String name : Arrays.asList(XManager.class.getName(), XCatalog.class.getName(),
+            XClassHeader.class.getName(), XFilter.class.getName(), XIndex.class.getName(), XMetrics.class.getName(),
+            XPool.class.getName(), XScanner.class.getName(), Xception.Why.class.getName(), XMessages.class.getName(),
+            "net.alantea.xmessages.XBundleRegistry", "net.alantea.xmessages.XMessageTemplate"))
+      {
+         assertTrue(name, classList.contains(name.replace('.', '/')));
+      }
+      assertFalse(classList.contains(XAotGenerator.class.getName().replace('.', '/')));
+      assertFalse(classList.contains(XIndexProcessor.class.getName().replace('.', '/')));
+   }
+
+   /**
+    * Read a generated resource.
+    *
+    * @param resource the resource path
+    * @return the lines
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private List<String> read(String resource) throws IOException
+   {
+      return Files.readAllLines(new File(directory, resource).toPath(), StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Copy the class file of a test class in the resolved entry.
+    *
+    * @param cl the class
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private void copyClassFile(Class<?> cl) throws IOException
+   {
+      String path = cl.getName().replace('.', '/') + ".class";
+      try (InputStream in = cl.getClassLoader().getResourceAsStream(path))
+      {
+         byte[] buffer = new byte[4096];
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         int n;
+         while ((n = in.read(buffer)) > 0)
+         {
+            out.write(buffer, 0, n);
+         }
+         File file = new File(entry, path);
+         file.getParentFile().mkdirs();
+         Files.write(file.toPath(), out.toByteArray());
+      }
+   }
+}
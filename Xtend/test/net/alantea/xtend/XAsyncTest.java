@@ -0,0 +1,138 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the asynchronous loads : executor used, results and failures.
+ *
+ * @author Alantea
+ *
+ */
+public class XAsyncTest
+{
+
+   /**
+    * Extension base class.
+    */
+   public interface Loaded
+   {
+   }
+
+   /**
+    * Implementation of the extension base class.
+    */
+   public static class LoadedImpl implements Loaded
+   {
+   }
+
+   /**
+    * Extension base class without implementation.
+    */
+   public interface Missing
+   {
+   }
+
+   /**
+    * Restore the default executor.
+    */
+   @After
+   public void tearDown()
+   {
+      XManager.setAsyncExecutor(null);
+   }
+
+   /**
+    * Loads run on the given executor, and complete with the loaded extension.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void loadsRunOnTheExecutor() throws Exception
+   {
+      AtomicReference<Thread> used = new AtomicReference<>();
+      XManager.setAsyncExecutor(command -> {
+         Thread thread = new Thread(command, "async-test");
+         used.set(thread);
+         thread.start();
+      });
+
+      CompletableFuture<Loaded> future = XManager.loadAbstractExtensionAsync(Loaded.class, false);
+
+      assertTrue(future.get(10, TimeUnit.SECONDS) instanceof LoadedImpl);
+      assertEquals("async-test", used.get().getName());
+   }
+
+   /**
+    * The default executor is used when none is set.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void defaultExecutorIsUsed() throws Exception
+   {
+      assertSame(XExecutors.getDefault(), XManager.getAsyncExecutor());
+      CompletableFuture<List<Loaded>> future = XManager.loadAbstractExtensionsAsync(Loaded.class, false);
+      assertEquals(1, future.get(10, TimeUnit.SECONDS).size());
+   }
+
+   /**
+    * A failed load completes exceptionally with its Xception.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void failuresCompleteExceptionally() throws Exception
+   {
+      try
+      {
+         XManager.loadAbstractExtensionAsync(Missing.class, false).get(10, TimeUnit.SECONDS);
+         fail("no failure");
+      }
+      catch (ExecutionException e)
+      {
+         assertEquals(Why.NO_EXTENSION, ((Xception) e.getCause()).getWhy());
+      }
+   }
+
+   /**
+    * A load rejected by the executor completes exceptionally instead of throwing.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void rejectedLoadsCompleteExceptionally() throws Exception
+   {
+      XManager.setAsyncExecutor(command -> {
+         throw new RejectedExecutionException("full");
+      });
+
+      CompletableFuture<Loaded> future = XManager.loadAbstractExtensionAsync(Loaded.class, false);
+
+      assertTrue(future.isCompletedExceptionally());
+      try
+      {
+         future.get();
+         fail("no failure");
+      }
+      catch (ExecutionException e)
+      {
+         assertTrue(e.getCause() instanceof Xception);
+         assertTrue(e.getCause().getCause() instanceof RejectedExecutionException);
+      }
+   }
+}
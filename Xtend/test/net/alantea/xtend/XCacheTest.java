@@ -0,0 +1,142 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the resolution cache : shared resolutions, cached empty results, failures and
+ * invalidation.
+ *
+ * @author Alantea
+ *
+ */
+public class XCacheTest
+{
+
+   /** The resolutions count. */
+   private AtomicInteger resolutions = new AtomicInteger();
+
+   /**
+    * Concurrent callers asking for the same base class share a single resolution.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void concurrentCallersShareOneResolution() throws Exception
+   {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      XCache cache = new XCache(baseClass -> {
+         resolutions.incrementAndGet();
+         started.countDown();
+         try
+         {
+            release.await();
+         }
+         catch (InterruptedException e)
+         {
+            throw new Xception(Why.EXTENSION_ERROR, "interrupted", e);
+         }
+         return Collections.<Class<?>>singletonList(String.class);
+      });
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         List<Future<List<Class<?>>>> results = new ArrayList<>();
+         for (int i = 0; i < 4; i++)
+         {
+            results.add(executor.submit(() -> cache.get(CharSequence.class)));
+         }
+         started.await(10, TimeUnit.SECONDS);
+         Thread.sleep(100);
+         release.countDown();
+
+         List<Class<?>> first = results.get(0).get(10, TimeUnit.SECONDS);
+         for (Future<List<Class<?>>> result : results)
+         {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+         }
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+      assertEquals(1, resolutions.get());
+      assertEquals(1, cache.getMisses());
+      assertEquals(3, cache.getHits());
+   }
+
+   /**
+    * Empty resolutions are cached, until invalidated.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void emptyResolutionsAreCached() throws Xception
+   {
+      XCache cache = new XCache(baseClass -> {
+         resolutions.incrementAndGet();
+         return Collections.<Class<?>>emptyList();
+      });
+
+      assertNull(cache.peek(Runnable.class));
+      assertEquals(0, cache.get(Runnable.class).size());
+      assertEquals(0, cache.get(Runnable.class).size());
+      assertEquals(1, resolutions.get());
+      assertEquals(0, cache.peek(Runnable.class).size());
+
+      cache.invalidate(Runnable.class);
+      assertNull(cache.peek(Runnable.class));
+      cache.get(Runnable.class);
+      assertEquals(2, resolutions.get());
+
+      cache.clear();
+      assertEquals(0, cache.getBaseClasses().size());
+   }
+
+   /**
+    * A failed resolution is thrown to the caller and not cached.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void failuresAreNotCached() throws Xception
+   {
+      XCache cache = new XCache(baseClass -> {
+         if (resolutions.incrementAndGet() == 1)
+         {
+            throw new Xception(Why.BAD_EXTENSION, "first");
+         }
+         return Collections.<Class<?>>singletonList(String.class);
+      });
+
+      try
+      {
+         cache.get(CharSequence.class);
+         fail("failure not thrown");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.BAD_EXTENSION, e.getWhy());
+      }
+      assertNull(cache.peek(CharSequence.class));
+      assertEquals(Collections.<Class<?>>singletonList(String.class), cache.get(CharSequence.class));
+   }
+}
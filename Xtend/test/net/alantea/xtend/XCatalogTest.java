@@ -0,0 +1,94 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests of the inheritance resolution from class headers : candidate classes are never loaded.
+ *
+ * @author Alantea
+ *
+ */
+public class XCatalogTest
+{
+
+   /** The public access flag. */
+   private static final int PUBLIC = 0x0001;
+
+   /** The interface access flags. */
+   private static final int INTERFACE = 0x0601;
+
+   /** The abstract class access flags. */
+   private static final int ABSTRACT = 0x0401;
+
+   /**
+    * Class loader recording the classes asked for.
+    */
+   private static class RecordingLoader extends ClassLoader
+   {
+
+      /** The class names asked for. */
+      private List<String> requested = new ArrayList<>();
+
+      /**
+       * Instantiates a new recording loader.
+       */
+      RecordingLoader()
+      {
+         super(XCatalogTest.class.getClassLoader());
+      }
+
+      /**
+       * Load a class, recording its name.
+       *
+       * @param name the name
+       * @param resolve the resolve
+       * @return the class
+       * @throws ClassNotFoundException the class not found exception
+       */
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+      {
+         requested.add(name);
+         return super.loadClass(name, resolve);
+      }
+   }
+
+   /**
+    * Implementors are found through super classes and super interfaces of the catalog, in class path
+    * order, the first entry defining a class giving its header. Only the types outside of the
+    * catalog are looked at through the class loader.
+    */
+   @Test
+   public void implementorsAreFoundFromHeaders()
+   {
+      Map<String, List<XClassHeader>> headers = new HashMap<>();
+      headers.put("first.jar", Arrays.asList(
+            new XClassHeader(INTERFACE, "p.Task", "java.lang.Object", new String[] { "java.lang.Runnable" }),
+            new XClassHeader(ABSTRACT, "p.AbstractTask", "java.lang.Object", new String[] { "p.Task" }),
+            new XClassHeader(PUBLIC, "p.Concrete", "p.AbstractTask", new String[0])));
+      headers.put("second.jar", Arrays.asList(
+            new XClassHeader(PUBLIC, "q.Other", "java.lang.Object", new String[] { "java.io.Serializable" }),
+            new XClassHeader(PUBLIC, "q.Direct", "java.lang.Thread", new String[0]),
+            new XClassHeader(PUBLIC, "p.Concrete", "java.lang.Object", new String[0])));
+      Map<String, XFingerprint> fingerprints = new HashMap<>();
+      XCatalog catalog = new XCatalog(Arrays.asList("first.jar", "second.jar"), headers, fingerprints);
+      RecordingLoader loader = new RecordingLoader();
+
+      assertEquals(Arrays.asList("p.Concrete", "q.Direct"), catalog.getImplementorNames(Runnable.class, loader));
+      for (String name : loader.requested)
+      {
+         assertTrue(name, name.startsWith("java."));
+      }
+      assertEquals(Arrays.asList("q.Other"), catalog.getImplementorNames(Serializable.class, loader));
+   }
+}
@@ -0,0 +1,152 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the container dependency graph : initialization order, cycles and dependencies on
+ * containers of other loads.
+ *
+ * @author Alantea
+ *
+ */
+public class XContainerGraphTest
+{
+
+   /**
+    * Container doing nothing.
+    */
+   abstract static class Container implements IExtension
+   {
+
+      /**
+       * Gets the extended interface.
+       *
+       * @return the extended interface
+       */
+      @Override
+      public Class<?> getExtendedInterface()
+      {
+         return Runnable.class;
+      }
+
+      /**
+       * Adds an implementation.
+       *
+       * @param object the object
+       */
+      @Override
+      public void addImplementation(Object object)
+      {
+      }
+   }
+
+   /**
+    * Container without dependency.
+    */
+   static class Base extends Container
+   {
+   }
+
+   /**
+    * Container depending on Base.
+    */
+   @XDependsOn(Base.class)
+   static class Middle extends Container
+   {
+   }
+
+   /**
+    * Container depending on Middle and Base.
+    */
+   @XDependsOn({ Middle.class, Base.class })
+   static class Top extends Container
+   {
+   }
+
+   /**
+    * Container depending on CycleB.
+    */
+   @XDependsOn(CycleB.class)
+   static class CycleA extends Container
+   {
+   }
+
+   /**
+    * Container depending on CycleA.
+    */
+   @XDependsOn(CycleA.class)
+   static class CycleB extends Container
+   {
+   }
+
+   /**
+    * Containers come after their dependencies, and independent ones keep their load order.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void containersComeAfterTheirDependencies() throws Xception
+   {
+      IExtension top = new Top();
+      IExtension middle = new Middle();
+      IExtension base = new Base();
+      IExtension other = new Base();
+
+      XContainerGraph graph = new XContainerGraph(Arrays.asList(top, middle, other, base),
+            Collections.<Class<?>>emptyList());
+
+      assertEquals(Arrays.asList(other, base, middle, top), graph.getOrder());
+      assertEquals(Arrays.asList(other, base), graph.getDependencies(middle));
+      assertTrue(graph.getUnresolved().isEmpty());
+   }
+
+   /**
+    * A dependency cycle is an error naming its containers.
+    */
+   @Test
+   public void cyclesAreDetected()
+   {
+      XContainerGraph graph = new XContainerGraph(Arrays.asList(new Base(), new CycleA(), new CycleB()),
+            Collections.<Class<?>>emptyList());
+      try
+      {
+         graph.getOrder();
+         fail("cycle not detected");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.CYCLIC_DEPENDENCY, e.getWhy());
+         assertTrue(e.getMessage(), e.getMessage().contains(CycleA.class.getName() + " -> " + CycleB.class.getName()));
+      }
+   }
+
+   /**
+    * A dependency on a container of another load is met if such a container was initialized
+    * before, and unresolved otherwise.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void dependenciesOnOtherLoadsAreResolved() throws Xception
+   {
+      IExtension top = new Top();
+      List<Class<?>> initialized = Collections.<Class<?>>singletonList(Middle.class);
+
+      XContainerGraph graph = new XContainerGraph(Collections.singletonList(top), initialized);
+      assertEquals(Collections.singletonMap(top, Arrays.asList(Base.class)), graph.getUnresolved());
+      assertEquals(Arrays.asList(top), graph.getOrder());
+
+      graph = new XContainerGraph(Collections.singletonList(top), Arrays.asList(Middle.class, Base.class));
+      assertTrue(graph.getUnresolved().isEmpty());
+   }
+}
@@ -0,0 +1,189 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the persistent discovery cache : what is stored, and when it is not reused.
+ *
+ * @author Alantea
+ *
+ */
+public class XDiskCacheTest
+{
+
+   /** The scan key. */
+   private static final String SCAN_KEY = "net.alantea";
+
+   /** The temporary folder. */
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /** The scanned directory. */
+   private File directory;
+
+   /** The cache file. */
+   private File cacheFile;
+
+   /**
+    * Create a class directory holding one class file.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Before
+   public void setUp() throws IOException
+   {
+      directory = folder.newFolder("classes");
+      addClassFile("A.class", 10);
+      cacheFile = new File(folder.getRoot(), "cache/discovery.bin");
+   }
+
+   /**
+    * A written catalog is read back, with its fingerprints and headers.
+    */
+   @Test
+   public void catalogIsReadBack()
+   {
+      XDiskCache.write(cacheFile, catalog(Collections.<String>emptySet()), SCAN_KEY);
+
+      Map<String, XDiskCache.Entry> stored = XDiskCache.read(cacheFile, SCAN_KEY);
+
+      XDiskCache.Entry entry = stored.get(directory.getPath());
+      assertEquals(XFingerprint.of(directory.getPath()), entry.fingerprint);
+      assertEquals(1, entry.headers.size());
+      XClassHeader header = entry.headers.get(0);
+      assertEquals("p.A", header.getName());
+      assertEquals("java.lang.Object", header.getSuperName());
+      assertEquals(Arrays.asList("p.I"), Arrays.asList(header.getInterfaces()));
+      assertEquals(0x0001, header.getAccess());
+   }
+
+   /**
+    * A class file added, removed or modified changes the fingerprint, so the stored entry is stale.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void changedEntryIsStale() throws IOException
+   {
+      XDiskCache.write(cacheFile, catalog(Collections.<String>emptySet()), SCAN_KEY);
+      XFingerprint stored = XDiskCache.read(cacheFile, SCAN_KEY).get(directory.getPath()).fingerprint;
+
+      assertEquals(stored, XFingerprint.of(directory.getPath()));
+      addClassFile("B.class", 10);
+      assertFalse(stored.equals(XFingerprint.of(directory.getPath())));
+      Files.delete(new File(directory, "p/B.class").toPath());
+      assertEquals(stored, XFingerprint.of(directory.getPath()));
+      addClassFile("A.class", 20);
+      assertFalse(stored.equals(XFingerprint.of(directory.getPath())));
+   }
+
+   /**
+    * A cache written for other packages is ignored.
+    */
+   @Test
+   public void otherScanKeyIsIgnored()
+   {
+      XDiskCache.write(cacheFile, catalog(Collections.<String>emptySet()), SCAN_KEY);
+
+      assertTrue(XDiskCache.read(cacheFile, "com.other").isEmpty());
+      assertTrue(XDiskCache.read(cacheFile, "").isEmpty());
+   }
+
+   /**
+    * A corrupt or truncated cache file is ignored as a whole.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void corruptFileIsIgnored() throws IOException
+   {
+      XDiskCache.write(cacheFile, catalog(Collections.<String>emptySet()), SCAN_KEY);
+      long length = cacheFile.length();
+      try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw"))
+      {
+         file.seek(length / 2);
+         int value = file.read();
+         file.seek(length / 2);
+         file.write(value ^ 0xFF);
+      }
+      assertTrue(XDiskCache.read(cacheFile, SCAN_KEY).isEmpty());
+
+      XDiskCache.write(cacheFile, catalog(Collections.<String>emptySet()), SCAN_KEY);
+      try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw"))
+      {
+         file.setLength(length - 3);
+      }
+      assertTrue(XDiskCache.read(cacheFile, SCAN_KEY).isEmpty());
+   }
+
+   /**
+    * An entry that could not be scanned fully is not stored.
+    */
+   @Test
+   public void incompleteEntryIsNotStored()
+   {
+      XDiskCache.write(cacheFile, catalog(Collections.singleton(directory.getPath())), SCAN_KEY);
+
+      assertTrue(cacheFile.isFile());
+      assertTrue(XDiskCache.read(cacheFile, SCAN_KEY).isEmpty());
+   }
+
+   /**
+    * A missing cache file gives no entries.
+    */
+   @Test
+   public void missingFileGivesNoEntries()
+   {
+      assertTrue(XDiskCache.read(cacheFile, SCAN_KEY).isEmpty());
+   }
+
+   /**
+    * Build a catalog of the directory, with a single header.
+    *
+    * @param failedEntries the entries that could not be scanned fully
+    * @return the catalog
+    */
+   private XCatalog catalog(Set<String> failedEntries)
+   {
+      String entry = directory.getPath();
+      List<XClassHeader> headers = Collections.singletonList(
+            new XClassHeader(0x0001, "p.A", "java.lang.Object", new String[] { "p.I" }));
+      Map<String, List<XClassHeader>> headersByEntry = new HashMap<>();
+      headersByEntry.put(entry, headers);
+      Map<String, XFingerprint> fingerprints = new HashMap<>();
+      fingerprints.put(entry, XFingerprint.of(entry));
+      return new XCatalog(Collections.singletonList(entry), headersByEntry, fingerprints, failedEntries);
+   }
+
+   /**
+    * Write a class file of the given size in the directory. Only its size and date matter here.
+    *
+    * @param name the file name
+    * @param size the file size
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private void addClassFile(String name, int size) throws IOException
+   {
+      File file = new File(directory, "p/" + name);
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), new byte[size]);
+   }
+}
@@ -0,0 +1,198 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the precompiled constructor factories.
+ *
+ * @author Alantea
+ *
+ */
+public class XFactoryTest
+{
+
+   /**
+    * Class with constructors of various arities.
+    */
+   public static class Target
+   {
+
+      /** The constructor arguments, joined. */
+      final String value;
+
+      /**
+       * No argument constructor.
+       */
+      public Target()
+      {
+         value = "none";
+      }
+
+      /**
+       * Single argument constructor.
+       *
+       * @param name the name
+       */
+      public Target(String name)
+      {
+         value = name;
+      }
+
+      /**
+       * Constructor with a primitive argument.
+       *
+       * @param name the name
+       * @param count the count
+       */
+      public Target(String name, int count)
+      {
+         value = name + count;
+      }
+
+      /**
+       * Constructor above the direct arities.
+       *
+       * @param a the a
+       * @param b the b
+       * @param c the c
+       * @param d the d
+       */
+      public Target(String a, String b, String c, String d)
+      {
+         value = a + b + c + d;
+      }
+   }
+
+   /**
+    * Class whose constructor fails.
+    */
+   public static class Failing
+   {
+
+      /**
+       * Failing constructor.
+       */
+      public Failing()
+      {
+         throw new IllegalStateException("failing");
+      }
+   }
+
+   /**
+    * Non public class with a public constructor.
+    */
+   static class Hidden
+   {
+
+      /**
+       * Public constructor.
+       */
+      public Hidden()
+      {
+      }
+   }
+
+   /**
+    * The constructor is chosen by arity and argument types, primitive parameters taking wrappers.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void constructorIsChosenByArguments() throws Xception
+   {
+      assertEquals("none", create());
+      assertEquals("name", create("name"));
+      assertNull(create((Object) null));
+      assertEquals("name3", create("name", 3));
+      assertEquals("abcd", create("a", "b", "c", "d"));
+   }
+
+   /**
+    * Factories are computed once per class and arguments shape.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void factoriesAreReused() throws Xception
+   {
+      assertSame(XFactory.get(Target.class, "a"), XFactory.get(Target.class, "b"));
+   }
+
+   /**
+    * Arguments matching no constructor are a BAD_CONSTRUCTOR failure.
+    */
+   @Test
+   public void missingConstructorIsReported()
+   {
+      try
+      {
+         XFactory.get(Target.class, 3);
+         fail("constructor found");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.BAD_CONSTRUCTOR, e.getWhy());
+      }
+      try
+      {
+         XFactory.get(Target.class, "a", "b", "c");
+         fail("constructor found");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.BAD_CONSTRUCTOR, e.getWhy());
+      }
+   }
+
+   /**
+    * An exception thrown by the constructor is a BAD_CONSTRUCTOR failure holding it.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void constructorFailureIsWrapped() throws Xception
+   {
+      XFactory factory = XFactory.get(Failing.class);
+      try
+      {
+         factory.newInstance();
+         fail("no failure");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.BAD_CONSTRUCTOR, e.getWhy());
+         assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+   }
+
+   /**
+    * Public constructors of non public classes are usable.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void nonPublicClassesAreConstructed() throws Xception
+   {
+      assertTrue(XFactory.get(Hidden.class).newInstance() instanceof Hidden);
+   }
+
+   /**
+    * Create a target instance.
+    *
+    * @param args the constructor arguments
+    * @return the target value
+    * @throws Xception the xception
+    */
+   private static String create(Object... args) throws Xception
+   {
+      return ((Target) XFactory.get(Target.class, args).newInstance(args)).value;
+   }
+}
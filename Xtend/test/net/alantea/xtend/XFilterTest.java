@@ -0,0 +1,99 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests of the discovery filters, and of the filters given to single calls.
+ *
+ * @author Alantea
+ *
+ */
+public class XFilterTest
+{
+
+   /**
+    * Extension base class, resolved by a single test.
+    */
+   public interface Narrowed
+   {
+   }
+
+   /**
+    * Implementation of the extension base class.
+    */
+   public static class NarrowedImpl implements Narrowed
+   {
+   }
+
+   /**
+    * Restore the discovery filter.
+    */
+   @After
+   public void tearDown()
+   {
+      XManager.setDiscoveryFilter(null);
+   }
+
+   /**
+    * Packages are matched by prefix, with or without a trailing wildcard, and entries by file name
+    * or path.
+    */
+   @Test
+   public void packagesAndEntriesAreMatched()
+   {
+      XFilter filter = XFilter.packages("com.ourshop.*", "org.other").andEntries("ourshop-*.jar");
+
+      assertTrue(filter.acceptsClass("com.ourshop.plugins.Plugin"));
+      assertTrue(filter.acceptsClass("org.other.Thing"));
+      assertFalse(filter.acceptsClass("com.ourshopping.Plugin"));
+      assertTrue(filter.acceptsResource("com/ourshop/Plugin.class"));
+      assertTrue(filter.acceptsEntry("/lib/ourshop-plugins.jar"));
+      assertFalse(filter.acceptsEntry("/lib/other.jar"));
+      assertFalse(filter.acceptsEntry(null));
+      assertTrue(XFilter.NONE.acceptsEntry(null));
+   }
+
+   /**
+    * A filter within another one accepts only what both accept.
+    */
+   @Test
+   public void filterWithinAnotherAcceptsWhatBothAccept()
+   {
+      XFilter global = XFilter.packages("com.ourshop").andEntries("ourshop-*.jar");
+      XFilter narrowed = global.within(XFilter.packages("com.ourshop.plugins", "org.other"));
+
+      assertTrue(narrowed.acceptsClass("com.ourshop.plugins.Plugin"));
+      assertFalse(narrowed.acceptsClass("com.ourshop.Core"));
+      assertFalse(narrowed.acceptsClass("org.other.Thing"));
+      assertTrue(narrowed.acceptsEntry("/lib/ourshop-plugins.jar"));
+      assertFalse(narrowed.acceptsEntry("/lib/other.jar"));
+      assertFalse(narrowed.isNone());
+      assertFalse(narrowed.getScanKey().equals(global.getScanKey()));
+      assertEquals(narrowed, global.within(XFilter.packages("com.ourshop.plugins", "org.other")));
+
+      assertSame(global, global.within(XFilter.NONE));
+      assertSame(global, XFilter.NONE.within(global));
+   }
+
+   /**
+    * A filter given to a single call while the base class is not resolved searches only what it
+    * accepts, and its result is not cached for the calls without filter.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void narrowedSearchIsNotCached() throws Xception
+   {
+      assertFalse(XManager.hasExtension(XFilter.packages("com.nowhere"), Narrowed.class));
+      assertTrue(XManager.hasExtension(XFilter.packages(Narrowed.class.getPackage().getName()), Narrowed.class));
+
+      assertTrue(XManager.hasExtension(Narrowed.class));
+      assertFalse(XManager.hasExtension(XFilter.packages("com.nowhere"), Narrowed.class));
+   }
+}
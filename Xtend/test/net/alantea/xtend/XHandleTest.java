@@ -0,0 +1,165 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the lazy extension handles.
+ *
+ * @author Alantea
+ *
+ */
+public class XHandleTest
+{
+
+   /** The constructions count. */
+   private static AtomicInteger constructions = new AtomicInteger();
+
+   /**
+    * Extension base class.
+    */
+   public interface Greeter
+   {
+
+      /**
+       * Greet someone.
+       *
+       * @param name the name
+       * @return the greeting
+       */
+      String greet(String name);
+   }
+
+   /**
+    * Implementation of the extension base class, counting its constructions.
+    */
+   public static class HelloGreeter implements Greeter
+   {
+
+      /** The greeting. */
+      private String greeting;
+
+      /**
+       * Instantiates a new greeter.
+       *
+       * @param greeting the greeting
+       */
+      public HelloGreeter(String greeting)
+      {
+         constructions.incrementAndGet();
+         this.greeting = greeting;
+      }
+
+      /**
+       * Greet someone.
+       *
+       * @param name the name
+       * @return the greeting
+       */
+      @Override
+      public String greet(String name)
+      {
+         return greeting + " " + name;
+      }
+   }
+
+   /**
+    * Abstract extension base class.
+    */
+   public abstract static class Abstract
+   {
+   }
+
+   /**
+    * Implementation of the abstract extension base class.
+    */
+   public static class AbstractImpl extends Abstract
+   {
+   }
+
+   /**
+    * Reset the constructions count.
+    */
+   @Before
+   public void setUp()
+   {
+      constructions.set(0);
+   }
+
+   /**
+    * Instances are constructed on first access only, once.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void instanceIsConstructedOnFirstAccess() throws Xception
+   {
+      List<XHandle<Greeter>> handles = XManager.loadLazyExtensions(Greeter.class, false, "Hello");
+      assertEquals(1, handles.size());
+      XHandle<Greeter> handle = handles.get(0);
+      assertEquals(HelloGreeter.class, handle.getImplementationClass());
+      assertEquals(HelloGreeter.class.getName(), handle.getName());
+      assertFalse(handle.isLoaded());
+      assertEquals(0, constructions.get());
+
+      Greeter greeter = handle.get();
+      assertTrue(handle.isLoaded());
+      assertSame(greeter, handle.get());
+      assertEquals(1, constructions.get());
+      assertEquals("Hello you", greeter.greet("you"));
+   }
+
+   /**
+    * A proxy constructs the instance on its first call, and answers Object methods itself.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void proxyConstructsOnFirstCall() throws Xception
+   {
+      XHandle<Greeter> handle = XManager.loadLazyExtension(Greeter.class, false, "Hi");
+      Greeter proxy = handle.proxy();
+
+      assertEquals(proxy, proxy);
+      assertFalse(proxy.equals(handle.proxy()));
+      assertEquals(System.identityHashCode(proxy), proxy.hashCode());
+      assertTrue(proxy.toString().contains(HelloGreeter.class.getName()));
+      assertFalse(handle.isLoaded());
+
+      assertEquals("Hi there", proxy.greet("there"));
+      assertTrue(handle.isLoaded());
+      assertEquals(1, constructions.get());
+   }
+
+   /**
+    * Only interfaces can be proxied.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void onlyInterfacesAreProxied() throws Xception
+   {
+      XHandle<Abstract> handle = XManager.loadLazyExtension(Abstract.class, false);
+      try
+      {
+         handle.proxy();
+         fail("class proxied");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.BAD_EXTENSION, e.getWhy());
+      }
+      assertTrue(handle.get() instanceof AbstractImpl);
+   }
+}
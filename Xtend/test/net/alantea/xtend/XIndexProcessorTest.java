@@ -0,0 +1,171 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the index processor : full and incremental compilations of a classes directory.
+ *
+ * @author Alantea
+ *
+ */
+public class XIndexProcessorTest
+{
+
+   /** The temporary folder. */
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /** The source directory. */
+   private File sources;
+
+   /** The classes directory. */
+   private File classes;
+
+   /**
+    * Create the source and classes directories, and the sources of a base interface and of two
+    * implementors.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Before
+   public void setUp() throws IOException
+   {
+      sources = folder.newFolder("sources");
+      classes = folder.newFolder("classes");
+      writeSource("Base", "public interface Base {}");
+      writeSource("A", "public class A implements Base { public static class Inner extends A {} }");
+      writeSource("B", "public class B implements Base {}");
+   }
+
+   /**
+    * A full compilation indexes the concrete classes with their super types, and lists the other
+    * named types.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void fullCompilationIndexesAllTypes() throws IOException
+   {
+      compile("Base", "A", "B");
+
+      assertEquals(Arrays.asList("p.A=p.Base", "p.A$Inner=p.A,p.Base", "p.B=p.Base", "p.Base"), readIndex());
+      assertEquals(Arrays.asList("p.A", "p.A$Inner", "p.B"), implementorsOf("p.Base"));
+   }
+
+   /**
+    * Types that were not compiled again are kept from the previous index, so that it stays complete
+    * and is still used.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void incrementalCompilationKeepsOtherTypes() throws IOException
+   {
+      compile("Base", "A", "B");
+      writeSource("B", "public class B {}");
+
+      compile("B");
+
+      assertEquals(Arrays.asList("p.A=p.Base", "p.A$Inner=p.A,p.Base", "p.B=", "p.Base"), readIndex());
+      assertEquals(Arrays.asList("p.A", "p.A$Inner"), implementorsOf("p.Base"));
+   }
+
+   /**
+    * Types whose class file was deleted are dropped from the previous index.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void deletedTypesAreDropped() throws IOException
+   {
+      compile("Base", "A", "B");
+      Files.delete(new File(classes, "p/A.class").toPath());
+      Files.delete(new File(classes, "p/A$Inner.class").toPath());
+
+      compile("B");
+
+      assertEquals(Arrays.asList("p.B=p.Base", "p.Base"), readIndex());
+      assertEquals(Arrays.asList("p.B"), implementorsOf("p.Base"));
+   }
+
+   /**
+    * Compile sources of package p in the classes directory, with the processor.
+    *
+    * @param names the simple class names
+    */
+   private void compile(String... names)
+   {
+      List<String> args = new ArrayList<>(Arrays.asList("-processor", XIndexProcessor.class.getName(),
+            "-processorpath", System.getProperty("java.class.path"), "-classpath", classes.getPath(), "-d",
+            classes.getPath()));
+      for (String name : names)
+      {
+         args.add(new File(sources, "p/" + name + ".java").getPath());
+      }
+      assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(new String[0])));
+   }
+
+   /**
+    * Read the type lines of the index.
+    *
+    * @return the lines, header excepted
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private List<String> readIndex() throws IOException
+   {
+      List<String> lines = Files.readAllLines(new File(classes, XIndex.INDEX_RESOURCE).toPath(),
+            StandardCharsets.UTF_8);
+      assertEquals(XIndex.INDEX_HEADER, lines.get(0));
+      return lines.subList(1, lines.size());
+   }
+
+   /**
+    * Gets the implementors of a base class from the index, as read by XManager.
+    *
+    * @param baseName the base class name
+    * @return the implementor names
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private List<String> implementorsOf(String baseName) throws IOException
+   {
+      try (URLClassLoader loader = new URLClassLoader(new URL[] { classes.toURI().toURL() }, null))
+      {
+         return XIndex.load(loader).getImplementorNames(loader.loadClass(baseName));
+      }
+      catch (ClassNotFoundException e)
+      {
+         throw new IOException(e);
+      }
+   }
+
+   /**
+    * Write a source of package p.
+    *
+    * @param name the simple class name
+    * @param body the class declaration
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private void writeSource(String name, String body) throws IOException
+   {
+      File file = new File(sources, "p/" + name + ".java");
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), Arrays.asList("package p;", body), StandardCharsets.UTF_8);
+   }
+}
@@ -0,0 +1,176 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the build-time index reading : complete indexes are used, partial ones are ignored so
+ * that their entry is scanned.
+ *
+ * @author Alantea
+ *
+ */
+public class XIndexTest
+{
+
+   /** The temporary folder. */
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /** The classes directory. */
+   private File directory;
+
+   /**
+    * Base type of the indexed classes.
+    */
+   interface Base
+   {
+   }
+
+   /**
+    * Create a classes directory with two class files.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Before
+   public void setUp() throws IOException
+   {
+      directory = folder.newFolder("classes");
+      addClassFile("A");
+      addClassFile("B");
+   }
+
+   /**
+    * An index listing all the classes of its directory is used.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void completeDirectoryIndexIsUsed() throws IOException
+   {
+      writeIndex("p.A=" + Base.class.getName(), "p.B=" + Base.class.getName());
+
+      assertEquals(Arrays.asList("p.A", "p.B"), load().getImplementorNames(Base.class));
+   }
+
+   /**
+    * An index listing only some classes of its directory, as written by an incremental build of a
+    * directory that had no index, is ignored.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void partialDirectoryIndexIsIgnored() throws IOException
+   {
+      writeIndex("p.A=" + Base.class.getName());
+
+      assertEquals(Collections.emptyList(), load().getImplementorNames(Base.class));
+   }
+
+   /**
+    * Non concrete types count as listed classes.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void bareTypesCountAsListed() throws IOException
+   {
+      writeIndex("p.A=" + Base.class.getName(), "p.B");
+
+      assertEquals(Arrays.asList("p.A"), load().getImplementorNames(Base.class));
+   }
+
+   /**
+    * An index of another format is ignored.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void otherFormatIsIgnored() throws IOException
+   {
+      File index = new File(directory, XIndex.INDEX_RESOURCE);
+      index.getParentFile().mkdirs();
+      Files.write(index.toPath(), Arrays.asList("p.A=" + Base.class.getName(), "p.B=" + Base.class.getName()),
+            StandardCharsets.UTF_8);
+
+      assertEquals(Collections.emptyList(), load().getImplementorNames(Base.class));
+   }
+
+   /**
+    * A class file compiled into an indexed directory makes the index out of date, even if the index
+    * file itself was not written again.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void classAddedToDirectoryMakesIndexStale() throws IOException
+   {
+      writeIndex("p.A=" + Base.class.getName(), "p.B=" + Base.class.getName());
+      XIndex index = load();
+      assertTrue(index.isUpToDate());
+
+      addClassFile("C");
+
+      assertFalse(index.isUpToDate());
+   }
+
+   /**
+    * Load the index of the directory.
+    *
+    * @return the index
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private XIndex load() throws IOException
+   {
+      try (URLClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, null))
+      {
+         return XIndex.load(loader);
+      }
+   }
+
+   /**
+    * Write the index file of the directory.
+    *
+    * @param lines the type lines
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private void writeIndex(String... lines) throws IOException
+   {
+      File index = new File(directory, XIndex.INDEX_RESOURCE);
+      index.getParentFile().mkdirs();
+      StringBuilder content = new StringBuilder(XIndex.INDEX_HEADER).append('\n');
+      for (String line : lines)
+      {
+         content.append(line).append('\n');
+      }
+      Files.write(index.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * Add a class file to the directory. Only its name matters here.
+    *
+    * @param name the simple class name, in package p
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private void addClassFile(String name) throws IOException
+   {
+      File file = new File(directory, "p/" + name + ".class");
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE });
+   }
+}
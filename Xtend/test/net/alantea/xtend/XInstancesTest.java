@@ -0,0 +1,150 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the named instances : single creation of singletons, failures and scopes.
+ *
+ * @author Alantea
+ *
+ */
+public class XInstancesTest
+{
+
+   /** The instances. */
+   private XInstances instances = new XInstances();
+
+   /** The creations count. */
+   private AtomicInteger creations = new AtomicInteger();
+
+   /**
+    * Concurrent loads of a singleton share a single creation.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void concurrentLoadsShareOneCreation() throws Exception
+   {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      XInstances.Creation creation = () -> {
+         creations.incrementAndGet();
+         started.countDown();
+         try
+         {
+            release.await();
+         }
+         catch (InterruptedException e)
+         {
+            throw new Xception(Why.EXTENSION_ERROR, "interrupted", e);
+         }
+         return new Object();
+      };
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         List<Future<Object>> results = new ArrayList<>();
+         for (int i = 0; i < 4; i++)
+         {
+            results.add(executor.submit(() -> instances.load("shared", XScope.SINGLETON, creation)));
+         }
+         started.await(10, TimeUnit.SECONDS);
+         Thread.sleep(100);
+         release.countDown();
+
+         Object first = results.get(0).get(10, TimeUnit.SECONDS);
+         for (Future<Object> result : results)
+         {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+         }
+         assertSame(first, instances.get("shared"));
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+      assertEquals(1, creations.get());
+   }
+
+   /**
+    * A failed creation is thrown and nothing is stored, so that the next load tries again.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void failedCreationsAreNotStored() throws Xception
+   {
+      XInstances.Creation creation = () -> {
+         if (creations.incrementAndGet() == 1)
+         {
+            throw new Xception(Why.NO_EXTENSION, "first");
+         }
+         return "created";
+      };
+
+      try
+      {
+         instances.load("failing", XScope.SINGLETON, creation);
+         fail("no failure");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.NO_EXTENSION, e.getWhy());
+      }
+      assertNull(instances.get("failing"));
+      assertEquals("created", instances.load("failing", XScope.SINGLETON, creation));
+   }
+
+   /**
+    * Thread instances are seen by their own thread only, before the singletons ; prototypes are
+    * created each time and never stored.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void scopesAreKeptApart() throws Exception
+   {
+      XInstances.Creation creation = () -> new StringBuilder("instance" + creations.incrementAndGet());
+
+      Object singleton = instances.load("ref", XScope.SINGLETON, creation);
+      Object local = instances.load("ref", XScope.THREAD, creation);
+      assertNotSame(singleton, local);
+      assertSame(local, instances.load("ref", XScope.THREAD, creation));
+      assertSame(local, instances.get("ref"));
+
+      AtomicReference<Object> seen = new AtomicReference<>();
+      Thread other = new Thread(() -> seen.set(instances.get("ref")));
+      other.start();
+      other.join(10000);
+      assertSame(singleton, seen.get());
+
+      Object prototype = instances.load("ref", XScope.PROTOTYPE, creation);
+      assertNotSame(prototype, instances.load("ref", XScope.PROTOTYPE, creation));
+      assertSame(local, instances.get("ref"));
+
+      instances.set("ref", null, XScope.THREAD);
+      assertSame(singleton, instances.get("ref"));
+      instances.set("ref", null, XScope.SINGLETON);
+      assertNull(instances.get("ref"));
+      assertEquals(4, creations.get());
+   }
+}
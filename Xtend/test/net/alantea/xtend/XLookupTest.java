@@ -0,0 +1,153 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the lookups without extension : optional finds and stackless failures.
+ *
+ * @author Alantea
+ *
+ */
+public class XLookupTest
+{
+
+   /**
+    * Extension base class without implementation.
+    */
+   public interface Absent
+   {
+   }
+
+   /**
+    * Extension base class with a single implementation.
+    */
+   public interface Single
+   {
+   }
+
+   /**
+    * Implementation of the single extension base class.
+    */
+   public static class SingleImpl implements Single
+   {
+   }
+
+   /**
+    * Extension base class with two implementations.
+    */
+   public interface Multiple
+   {
+   }
+
+   /**
+    * First implementation of the multiple extension base class.
+    */
+   public static class FirstImpl implements Multiple
+   {
+   }
+
+   /**
+    * Second implementation of the multiple extension base class.
+    */
+   public static class SecondImpl implements Multiple
+   {
+   }
+
+   /**
+    * Restore the default failures.
+    */
+   @After
+   public void tearDown()
+   {
+      XManager.setStacklessLookupFailures(false);
+   }
+
+   /**
+    * Finds return empty results when there is no extension, and fail only on multiple extensions.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void findsDoNotFailWithoutExtension() throws Xception
+   {
+      assertFalse(XManager.findAbstractExtension(Absent.class).isPresent());
+      assertTrue(XManager.findAbstractExtensions(Absent.class).isEmpty());
+
+      Optional<Single> single = XManager.findAbstractExtension(Single.class);
+      assertTrue(single.get() instanceof SingleImpl);
+      assertEquals(2, XManager.findAbstractExtensions(Multiple.class).size());
+      try
+      {
+         XManager.findAbstractExtension(Multiple.class);
+         fail("no failure");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.MULTIPLE_EXTENSION, e.getWhy());
+      }
+   }
+
+   /**
+    * Lookup failures name the base class and have a stack trace by default.
+    */
+   @Test
+   public void lookupFailuresAreDetailedByDefault()
+   {
+      Xception first = loadAbsent();
+      assertTrue(first.getMessage().contains(Absent.class.getName()));
+      assertTrue(first.getStackTrace().length > 0);
+      assertNotSame(first, loadAbsent());
+   }
+
+   /**
+    * Stackless lookup failures are shared, without message nor stack trace.
+    */
+   @Test
+   public void stacklessFailuresAreShared()
+   {
+      XManager.setStacklessLookupFailures(true);
+      assertTrue(XManager.isStacklessLookupFailures());
+
+      Xception failure = loadAbsent();
+      assertEquals(Why.NO_EXTENSION, failure.getWhy());
+      assertSame(Xception.stackless(Why.NO_EXTENSION), failure);
+      assertNull(failure.getMessage());
+      assertEquals(0, failure.getStackTrace().length);
+      assertSame(failure, loadAbsent());
+
+      failure.addSuppressed(new IllegalStateException("ignored"));
+      assertEquals(0, failure.getSuppressed().length);
+   }
+
+   /**
+    * Load the extension base class without implementation.
+    *
+    * @return the failure
+    */
+   private static Xception loadAbsent()
+   {
+      try
+      {
+         XManager.loadAbstractExtension(Absent.class, false);
+      }
+      catch (Xception e)
+      {
+         return e;
+      }
+      fail("no failure");
+      return null;
+   }
+}
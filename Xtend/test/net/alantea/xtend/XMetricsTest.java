@@ -0,0 +1,101 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests of the instrumentation counters and of their JMX view.
+ *
+ * @author Alantea
+ *
+ */
+public class XMetricsTest
+{
+
+   /**
+    * Extension base class.
+    */
+   public interface Measured
+   {
+   }
+
+   /**
+    * Implementation of the extension base class.
+    */
+   public static class MeasuredImpl implements Measured
+   {
+   }
+
+   /**
+    * Disable the instrumentation.
+    */
+   @After
+   public void tearDown()
+   {
+      XManager.setInstrumentation(false);
+   }
+
+   /**
+    * Constructions are counted by class and phase while the instrumentation is enabled only.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void constructionsAreCountedWhenEnabled() throws Exception
+   {
+      XManager.setInstrumentation(true);
+      XMetricsMBean metrics = JMX.newMBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+            new ObjectName(XMetrics.OBJECT_NAME), XMetricsMBean.class);
+      assertTrue(metrics.isEnabled());
+      metrics.reset();
+      String name = MeasuredImpl.class.getName();
+
+      XManager.loadAbstractExtension(Measured.class, false);
+      XManager.loadAbstractExtension(Measured.class, false);
+      assertEquals(2, metrics.getCount(name, "CONSTRUCTION"));
+      assertTrue(metrics.getTotalNanos(name, "CONSTRUCTION") > 0);
+      assertTrue(metrics.getPhaseTotalNanos("CONSTRUCTION") >= metrics.getTotalNanos(name, "CONSTRUCTION"));
+      assertTrue(Arrays.asList(metrics.getClassNames()).contains(name));
+      assertTrue(metrics.getReport().contains(name + " CONSTRUCTION count=2"));
+      assertEquals(0, metrics.getCount(name, "UNKNOWN"));
+
+      metrics.setEnabled(false);
+      assertFalse(XManager.isInstrumentation());
+      XManager.loadAbstractExtension(Measured.class, false);
+      assertEquals(2, metrics.getCount(name, "CONSTRUCTION"));
+
+      metrics.reset();
+      assertEquals(0, metrics.getCount(name, "CONSTRUCTION"));
+      assertEquals(0, metrics.getClassNames().length);
+   }
+
+   /**
+    * Nothing is measured while the instrumentation is disabled, and the phases are listed in order.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void nothingIsMeasuredWhenDisabled() throws Exception
+   {
+      assertFalse(XManager.isInstrumentation());
+      assertNull(XMetrics.start(XMetrics.Phase.SCAN, Measured.class));
+      XMetrics.stop(null);
+
+      XManager.setInstrumentation(true);
+      XMetricsMBean metrics = JMX.newMBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+            new ObjectName(XMetrics.OBJECT_NAME), XMetricsMBean.class);
+      assertEquals(Arrays.asList("SCAN", "CLASS_LOAD", "CONSTRUCTOR_RESOLUTION", "CONSTRUCTION", "BUNDLE_ASSOCIATION"),
+            Arrays.asList(metrics.getPhases()));
+   }
+}
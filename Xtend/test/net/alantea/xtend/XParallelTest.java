@@ -0,0 +1,298 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the parallel instantiation of containers and of their implementations.
+ *
+ * @author Alantea
+ *
+ */
+public class XParallelTest
+{
+
+   /** The container initializations, in order. */
+   private static List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+   /**
+    * Base class of the containers.
+    */
+   public interface Container extends IExtension
+   {
+   }
+
+   /**
+    * Base class of the containers whose implementations fail.
+    */
+   public interface FailingContainer extends IExtension
+   {
+   }
+
+   /**
+    * Extension base class whose first implementation is slow.
+    */
+   public interface Ordered
+   {
+   }
+
+   /**
+    * Slow implementation.
+    */
+   public static class Slow implements Ordered
+   {
+
+      /**
+       * Instantiates a new slow implementation.
+       *
+       * @throws InterruptedException the interrupted exception
+       */
+      public Slow() throws InterruptedException
+      {
+         Thread.sleep(100);
+      }
+   }
+
+   /**
+    * Fast implementation.
+    */
+   public static class Fast implements Ordered
+   {
+   }
+
+   /**
+    * Other fast implementation.
+    */
+   public static class Faster implements Ordered
+   {
+   }
+
+   /**
+    * Extension base class whose implementations fail.
+    */
+   public interface Failing
+   {
+   }
+
+   /**
+    * First failing implementation.
+    */
+   public static class FirstFailure implements Failing
+   {
+
+      /**
+       * Failing constructor.
+       */
+      public FirstFailure()
+      {
+         throw new IllegalStateException("first");
+      }
+   }
+
+   /**
+    * Second failing implementation.
+    */
+   public static class SecondFailure implements Failing
+   {
+
+      /**
+       * Failing constructor.
+       */
+      public SecondFailure()
+      {
+         throw new IllegalStateException("second");
+      }
+   }
+
+   /**
+    * Container initialized slowly, other containers depend on.
+    */
+   public static class Early implements Container
+   {
+
+      /**
+       * Gets the extended interface.
+       *
+       * @return the extended interface
+       */
+      @Override
+      public Class<?> getExtendedInterface()
+      {
+         return Ordered.class;
+      }
+
+      /**
+       * Adds an implementation.
+       *
+       * @param object the object
+       */
+      @Override
+      public void addImplementation(Object object)
+      {
+      }
+
+      /**
+       * Adds the implementations, slowly.
+       *
+       * @param objects the objects
+       */
+      @Override
+      public void addImplementations(List<Object> objects)
+      {
+         try
+         {
+            Thread.sleep(100);
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+         events.add("early");
+      }
+   }
+
+   /**
+    * Container depending on the early one, keeping the classes of its implementations.
+    */
+   @XDependsOn(Early.class)
+   public static class Late implements Container
+   {
+
+      /** The implementation classes, in order. */
+      static List<Class<?>> classes = new ArrayList<>();
+
+      /**
+       * Gets the extended interface.
+       *
+       * @return the extended interface
+       */
+      @Override
+      public Class<?> getExtendedInterface()
+      {
+         return Ordered.class;
+      }
+
+      /**
+       * Adds an implementation.
+       *
+       * @param object the object
+       */
+      @Override
+      public void addImplementation(Object object)
+      {
+         classes.add(object.getClass());
+      }
+
+      /**
+       * Adds the implementations.
+       *
+       * @param objects the objects
+       * @throws Xception the xception
+       */
+      @Override
+      public void addImplementations(List<Object> objects) throws Xception
+      {
+         events.add("late");
+         Container.super.addImplementations(objects);
+      }
+   }
+
+   /**
+    * Container of the failing implementations.
+    */
+   public static class FailureContainer implements FailingContainer
+   {
+
+      /**
+       * Gets the extended interface.
+       *
+       * @return the extended interface
+       */
+      @Override
+      public Class<?> getExtendedInterface()
+      {
+         return Failing.class;
+      }
+
+      /**
+       * Adds an implementation.
+       *
+       * @param object the object
+       */
+      @Override
+      public void addImplementation(Object object)
+      {
+      }
+   }
+
+   /**
+    * Clear the recorded initializations.
+    */
+   @Before
+   public void setUp()
+   {
+      events.clear();
+      Late.classes.clear();
+   }
+
+   /**
+    * Restore the sequential instantiation.
+    */
+   @After
+   public void tearDown()
+   {
+      XManager.setParallelInstantiation(false);
+   }
+
+   /**
+    * Parallel instantiation gives implementations in the sequential order, and initializes a
+    * container after the ones it depends on.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void parallelInstantiationKeepsTheOrder() throws Xception
+   {
+      XManager.loadContainerExtensions(Container.class, true, false);
+      List<Class<?>> sequential = new ArrayList<>(Late.classes);
+      assertEquals(3, sequential.size());
+      assertEquals(2, events.size());
+
+      setUp();
+      XManager.setParallelInstantiation(true);
+      XManager.loadContainerExtensions(Container.class, true, false);
+
+      assertEquals(sequential, Late.classes);
+      assertEquals(2, events.size());
+      assertEquals("early", events.get(0));
+   }
+
+   /**
+    * The failures of parallel constructions are all reported, in one Xception.
+    */
+   @Test
+   public void parallelFailuresAreAggregated()
+   {
+      XManager.setParallelInstantiation(true);
+      try
+      {
+         XManager.loadContainerExtensions(FailingContainer.class, true, false);
+         fail("no failure");
+      }
+      catch (Xception e)
+      {
+         assertEquals(Why.BAD_CONSTRUCTOR, e.getWhy());
+         assertEquals(2, e.getSuppressed().length);
+      }
+   }
+}
@@ -0,0 +1,302 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the plugin directory : jars added, removed and replaced, failures reported, and the
+ * discovery filter applied to the implementations given to containers.
+ *
+ * @author Alantea
+ *
+ */
+public class XPluginsTest
+{
+
+   /** The temporary folder. */
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /** The plugin directory. */
+   private File directory;
+
+   /** The reported errors. */
+   private List<Xception> errors = Collections.synchronizedList(new ArrayList<>());
+
+   /** The added and removed plugin paths, prefixed with + or -. */
+   private List<String> events = new ArrayList<>();
+
+   /**
+    * Extension base class implemented by the plugins.
+    */
+   public interface Service
+   {
+   }
+
+   /**
+    * Implementation found on the class path.
+    */
+   public static class BuiltIn implements Service
+   {
+   }
+
+   /**
+    * Base class of the container.
+    */
+   public interface ServiceContainerBase
+   {
+   }
+
+   /**
+    * Container of the services.
+    */
+   public static class ServiceContainer implements ServiceContainerBase, IExtension
+   {
+
+      /** The implementations. */
+      final List<Object> services = Collections.synchronizedList(new ArrayList<>());
+
+      /**
+       * Gets the extended interface.
+       *
+       * @return the extended interface
+       */
+      @Override
+      public Class<?> getExtendedInterface()
+      {
+         return Service.class;
+      }
+
+      /**
+       * Adds an implementation.
+       *
+       * @param object the object
+       */
+      @Override
+      public void addImplementation(Object object)
+      {
+         services.add(object);
+      }
+
+      /**
+       * Removes an implementation.
+       *
+       * @param object the object
+       */
+      @Override
+      public void removeImplementation(Object object)
+      {
+         services.remove(object);
+      }
+   }
+
+   /**
+    * Create the plugin directory and catch the reported errors.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Before
+   public void setUp() throws IOException
+   {
+      directory = folder.newFolder("plugins");
+      XManager.setErrorListener(errors::add);
+   }
+
+   /**
+    * Stop using plugins, and restore the filter and the error reporting.
+    *
+    * @throws Xception the xception
+    */
+   @After
+   public void tearDown() throws Xception
+   {
+      XManager.setPluginDirectory(null);
+      XManager.setDiscoveryFilter(null);
+      XManager.setErrorListener(null);
+   }
+
+   /**
+    * Added jars are scanned and notified, removed ones are notified, and replaced ones are removed
+    * then added again.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void changesAreNotified() throws Exception
+   {
+      XPlugins plugins = new XPlugins(directory, ClassLoader.getSystemClassLoader(), recorder(false));
+      File first = createJar("first.jar", "plugin.First");
+      plugins.synchronize();
+
+      assertEquals(Arrays.asList("+" + first.getPath()), events);
+      XPlugins.Plugin plugin = plugins.getPlugins().iterator().next();
+      assertEquals(Arrays.asList("plugin.First"), plugin.getImplementorNames(Service.class));
+
+      events.clear();
+      plugins.synchronize();
+      assertTrue(events.isEmpty());
+
+      File second = createJar("second.jar", "plugin.Second");
+      Files.delete(first.toPath());
+      plugins.synchronize();
+      assertEquals(Arrays.asList("-" + first.getPath(), "+" + second.getPath()), events);
+
+      events.clear();
+      createJar("second.jar", "plugin.Replacement");
+      plugins.synchronize();
+      assertEquals(Arrays.asList("-" + second.getPath(), "+" + second.getPath()), events);
+      plugin = plugins.getPlugins().iterator().next();
+      assertEquals(Arrays.asList("plugin.Replacement"), plugin.getImplementorNames(Service.class));
+
+      events.clear();
+      plugins.stop();
+      assertEquals(Arrays.asList("-" + second.getPath()), events);
+   }
+
+   /**
+    * A failing listener is reported, and the other plugins are still notified.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void listenerFailuresAreReported() throws Exception
+   {
+      XPlugins plugins = new XPlugins(directory, ClassLoader.getSystemClassLoader(), recorder(true));
+      createJar("first.jar", "plugin.First");
+      createJar("second.jar", "plugin.Second");
+
+      plugins.synchronize();
+
+      assertEquals(2, events.size());
+      assertEquals(2, errors.size());
+      plugins.stop();
+      assertEquals(4, events.size());
+      assertEquals(4, errors.size());
+   }
+
+   /**
+    * Plugin implementations refused by the discovery filter are not given to the containers, and
+    * the removed plugins take their implementations with them.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void filteredImplementationsAreNotGivenToContainers() throws Exception
+   {
+      XManager.setDiscoveryFilter(XFilter.packages(Service.class.getPackage().getName(), "accepted"));
+      XManager.setPluginDirectory(directory);
+      ServiceContainer container = XManager.loadContainerExtension(ServiceContainerBase.class, true);
+      assertEquals(1, container.services.size());
+
+      // the rejected jar is created and sorted first : it is handled before the accepted one
+      createJar("a-rejected.jar", "rejected.Impl");
+      File accepted = createJar("b-accepted.jar", "accepted.Impl");
+      waitFor(container, 2);
+      assertEquals(2, container.services.size());
+      assertEquals("accepted.Impl", container.services.get(1).getClass().getName());
+
+      Files.delete(accepted.toPath());
+      waitFor(container, 1);
+      assertTrue(container.services.get(0) instanceof BuiltIn);
+      assertTrue(errors.isEmpty());
+   }
+
+   /**
+    * Wait for the watcher to give a number of implementations to a container.
+    *
+    * @param container the container
+    * @param count the number of implementations
+    * @throws InterruptedException the interrupted exception
+    */
+   private static void waitFor(ServiceContainer container, int count) throws InterruptedException
+   {
+      for (int i = 0; (i < 200) && (container.services.size() != count); i++)
+      {
+         Thread.sleep(50);
+      }
+      assertEquals(count, container.services.size());
+   }
+
+   /**
+    * Create a listener recording the events.
+    *
+    * @param failing true to throw from each notification
+    * @return the listener
+    */
+   private XPlugins.Listener recorder(boolean failing)
+   {
+      return new XPlugins.Listener()
+      {
+         @Override
+         public void pluginAdded(XPlugins.Plugin plugin)
+         {
+            record("+" + plugin.getPath());
+         }
+
+         @Override
+         public void pluginRemoved(XPlugins.Plugin plugin)
+         {
+            record("-" + plugin.getPath());
+         }
+
+         private void record(String event)
+         {
+            events.add(event);
+            if (failing)
+            {
+               throw new IllegalStateException(event);
+            }
+         }
+      };
+   }
+
+   /**
+    * Compile a Service implementation and put it in a plugin jar.
+    *
+    * @param jarName the jar file name
+    * @param className the implementation class name
+    * @return the jar
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private File createJar(String jarName, String className) throws IOException
+   {
+      int pos = className.lastIndexOf('.');
+      File sources = folder.newFolder();
+      File source = new File(sources, className.substring(pos + 1) + ".java");
+      Files.write(source.toPath(), Arrays.asList("package " + className.substring(0, pos) + ";",
+            "public class " + className.substring(pos + 1) + " implements " + Service.class.getCanonicalName() + " {}"),
+            StandardCharsets.UTF_8);
+      int result = ToolProvider.getSystemJavaCompiler().run(null, null, null, "-proc:none", "-classpath",
+            System.getProperty("java.class.path"), "-d", sources.getPath(), source.getPath());
+      assertEquals(0, result);
+
+      String path = className.replace('.', '/') + ".class";
+      File jar = new File(directory, jarName).getAbsoluteFile();
+      try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath())))
+      {
+         out.putNextEntry(new JarEntry(path));
+         out.write(Files.readAllBytes(new File(sources, path).toPath()));
+         out.closeEntry();
+      }
+      return jar;
+   }
+}
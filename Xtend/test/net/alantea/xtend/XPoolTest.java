@@ -0,0 +1,160 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of the instance pools : borrow, release, capacity and reset.
+ *
+ * @author Alantea
+ *
+ */
+public class XPoolTest
+{
+
+   /**
+    * Pooled implementation, counting its constructions.
+    */
+   public static class Pooled implements IResettable
+   {
+
+      /** The number of constructions. */
+      static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+      /** The constructor argument. */
+      private String name;
+
+      /** The reset flag. */
+      private boolean reset;
+
+      /**
+       * Instantiates a new pooled instance.
+       *
+       * @param name the name
+       */
+      public Pooled(String name)
+      {
+         this.name = name;
+         CONSTRUCTED.incrementAndGet();
+      }
+
+      /**
+       * Reset.
+       */
+      @Override
+      public void reset()
+      {
+         reset = true;
+      }
+   }
+
+   /**
+    * A released instance is given to the next borrower, reset, without construction.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void releasedInstanceIsReused() throws Xception
+   {
+      XPool<Pooled> pool = XManager.pool(Pooled.class, 4, "first");
+
+      Pooled instance = pool.acquire();
+      assertEquals("first", instance.name);
+      assertFalse(instance.reset);
+      pool.release(instance);
+
+      int constructed = Pooled.CONSTRUCTED.get();
+      assertSame(instance, pool.acquire());
+      assertTrue(instance.reset);
+      assertEquals(constructed, Pooled.CONSTRUCTED.get());
+   }
+
+   /**
+    * Instances are constructed while none is idle, with the pool arguments.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void instancesAreConstructedWhenNoneIsIdle() throws Xception
+   {
+      XPool<Pooled> pool = XManager.pool(Pooled.class, 4, "second");
+
+      Pooled first = pool.acquire();
+      Pooled second = pool.acquire();
+
+      assertNotSame(first, second);
+      assertEquals("second", second.name);
+   }
+
+   /**
+    * Instances released when all the slots are taken are dropped.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void instancesAboveCapacityAreDropped() throws Xception
+   {
+      XPool<Pooled> pool = XManager.pool(Pooled.class, 1, "third");
+      Pooled first = pool.acquire();
+      Pooled second = pool.acquire();
+      pool.release(first);
+      pool.release(second);
+
+      assertSame(first, pool.acquire());
+      assertNotSame(second, pool.acquire());
+   }
+
+   /**
+    * Closing a borrowed instance gives it back once, and it cannot be used anymore.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void closingBorrowedInstanceGivesItBack() throws Xception
+   {
+      XPool<Pooled> pool = XManager.pool(Pooled.class, 2, "fourth");
+      Pooled instance;
+      XPooled<Pooled> pooled;
+      try (XPooled<Pooled> borrowed = pool.borrow())
+      {
+         pooled = borrowed;
+         instance = borrowed.get();
+      }
+      pooled.close();
+
+      try
+      {
+         pooled.get();
+         fail("released instance still available");
+      }
+      catch (IllegalStateException e)
+      {
+         // expected
+      }
+      assertSame(instance, pool.acquire());
+      assertNotSame(instance, pool.acquire());
+   }
+
+   /**
+    * The arguments are copied when the pool is created.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void argumentsAreCopied() throws Xception
+   {
+      Object[] args = { "fifth" };
+      XPool<Pooled> pool = XManager.pool(Pooled.class, 1, args);
+      args[0] = "changed";
+
+      assertEquals("fifth", pool.acquire().name);
+   }
+}
@@ -0,0 +1,106 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests of the forced reloads : only the reloaded base class is resolved again when the class path
+ * did not change.
+ *
+ * @author Alantea
+ *
+ */
+public class XReloadTest
+{
+
+   /**
+    * First extension base class.
+    */
+   public interface Reloaded
+   {
+   }
+
+   /**
+    * Implementation of the first base class.
+    */
+   public static class ReloadedImpl implements Reloaded
+   {
+   }
+
+   /**
+    * Second extension base class.
+    */
+   public interface Kept
+   {
+   }
+
+   /**
+    * Implementation of the second base class.
+    */
+   public static class KeptImpl implements Kept
+   {
+   }
+
+   /**
+    * A forced reload with an unchanged class path resolves the reloaded base class again, and keeps
+    * the resolutions of the other base classes.
+    *
+    * @throws Xception the xception
+    */
+   @Test
+   public void unchangedClassPathKeepsOtherResolutions() throws Xception
+   {
+      XManager.loadAbstractExtension(Reloaded.class, false);
+      XManager.loadAbstractExtension(Kept.class, false);
+
+      long misses = XManager.getCacheMisses();
+      long hits = XManager.getCacheHits();
+      assertTrue(XManager.loadAbstractExtension(Reloaded.class, true) instanceof ReloadedImpl);
+      assertEquals(misses + 1, XManager.getCacheMisses());
+
+      assertTrue(XManager.loadAbstractExtension(Kept.class, false) instanceof KeptImpl);
+      assertEquals(misses + 1, XManager.getCacheMisses());
+      assertEquals(hits + 1, XManager.getCacheHits());
+   }
+
+   /**
+    * Catalogs have the same content only if built from the same entries with the same fingerprints.
+    */
+   @Test
+   public void catalogContentIsComparedByFingerprints()
+   {
+      XCatalog catalog = catalog(Arrays.asList("a", "b"), new XFingerprint(1, 2, 3));
+
+      assertTrue(catalog.hasSameContent(catalog(Arrays.asList("a", "b"), new XFingerprint(1, 2, 3))));
+      assertFalse(catalog.hasSameContent(catalog(Arrays.asList("a", "b"), new XFingerprint(1, 4, 3))));
+      assertFalse(catalog.hasSameContent(catalog(Arrays.asList("a"), new XFingerprint(1, 2, 3))));
+   }
+
+   /**
+    * Build a catalog of empty entries sharing a fingerprint.
+    *
+    * @param entries the entries
+    * @param fingerprint the fingerprint
+    * @return the catalog
+    */
+   private static XCatalog catalog(List<String> entries, XFingerprint fingerprint)
+   {
+      Map<String, List<XClassHeader>> headers = new HashMap<>();
+      Map<String, XFingerprint> fingerprints = new HashMap<>();
+      for (String entry : entries)
+      {
+         headers.put(entry, Collections.<XClassHeader>emptyList());
+         fingerprints.put(entry, fingerprint);
+      }
+      return new XCatalog(entries, headers, fingerprints);
+   }
+}
@@ -0,0 +1,294 @@
+package net.alantea.xtend;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.alantea.xtend.Xception.Why;
+
+/**
+ * Tests of the class path scanner and of the class file header parser.
+ *
+ * @author Alantea
+ *
+ */
+public class XScannerTest
+{
+
+   /** The class file path of the sample class. */
+   private static final String SAMPLE = "net/alantea/xtend/XScannerTest$Sample.class";
+
+   /** The class file path of the concrete sample class. */
+   private static final String CONCRETE = "net/alantea/xtend/XScannerTest$Concrete.class";
+
+   /** The temporary folder. */
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   /**
+    * Abstract sample class, with a super class and interfaces.
+    */
+   abstract static class Sample extends AbstractList<String> implements Runnable, Serializable
+   {
+      private static final long serialVersionUID = 1L;
+   }
+
+   /**
+    * Concrete sample class.
+    */
+   static class Concrete
+   {
+   }
+
+   /**
+    * The header gives the class name, super class and interfaces, read from the class file.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void headerIsReadFromClassFile() throws IOException
+   {
+      XClassHeader header = XClassHeader.parse(classFile(SAMPLE));
+
+      assertEquals(Sample.class.getName(), header.getName());
+      assertEquals(AbstractList.class.getName(), header.getSuperName());
+      assertArrayEquals(new String[] { Runnable.class.getName(), Serializable.class.getName() },
+            header.getInterfaces());
+      assertFalse(header.isConcrete());
+      assertTrue(XClassHeader.parse(classFile(CONCRETE)).isConcrete());
+   }
+
+   /**
+    * Files that are not class files, or are truncated, give no header.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void invalidClassFilesGiveNoHeader() throws IOException
+   {
+      byte[] bytes = classFile(SAMPLE);
+
+      assertNull(XClassHeader.parse(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }));
+      assertNull(XClassHeader.parse(Arrays.copyOf(bytes, 4)));
+      assertNull(XClassHeader.parse(Arrays.copyOf(bytes, bytes.length / 2)));
+   }
+
+   /**
+    * Anonymous and local classes, module and package infos and META-INF files are not named classes.
+    */
+   @Test
+   public void onlyNamedClassesAreScanned()
+   {
+      assertTrue(XScanner.isNamedClass("a/b/C.class"));
+      assertTrue(XScanner.isNamedClass("a/b/C$Inner.class"));
+      assertFalse(XScanner.isNamedClass("a/b/C$1.class"));
+      assertFalse(XScanner.isNamedClass("a/b/C$1Local.class"));
+      assertFalse(XScanner.isNamedClass("a/b/C$Inner$2.class"));
+      assertFalse(XScanner.isNamedClass("module-info.class"));
+      assertFalse(XScanner.isNamedClass("a/b/package-info.class"));
+      assertFalse(XScanner.isNamedClass("META-INF/versions/9/a/b/C.class"));
+      assertFalse(XScanner.isNamedClass("a/b/C.properties"));
+   }
+
+   /**
+    * An unreadable class file of a directory is reported, and the other classes are still found.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void corruptClassFileInDirectoryIsReportedAndSkipped() throws IOException
+   {
+      File directory = folder.newFolder("classes");
+      write(new File(directory, SAMPLE), classFile(SAMPLE));
+      write(new File(directory, CONCRETE), classFile(CONCRETE));
+      write(new File(directory, "net/alantea/xtend/Corrupt.class"), new byte[] { 0, 1, 2 });
+      write(new File(directory, "net/alantea/xtend/Anonymous$1.class"), new byte[] { 0, 1, 2 });
+
+      List<Xception> errors = new ArrayList<>();
+      List<XClassHeader> headers = XScanner.scanEntry(directory.getPath(), (entry, e) -> errors.add(e));
+
+      assertEquals(Arrays.asList(Concrete.class.getName(), Sample.class.getName()), names(headers));
+      assertEquals(1, errors.size());
+      assertEquals(Why.BAD_EXTENSION, errors.get(0).getWhy());
+   }
+
+   /**
+    * An unreadable class file of a jar is reported, and the other classes are still found.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void corruptClassFileInJarIsReportedAndSkipped() throws IOException
+   {
+      File jar = folder.newFile("sample.jar");
+      try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath())))
+      {
+         addEntry(out, SAMPLE, classFile(SAMPLE));
+         addEntry(out, "net/alantea/xtend/Corrupt.class", new byte[] { (byte) 0xCA, (byte) 0xFE });
+      }
+
+      List<Xception> errors = new ArrayList<>();
+      List<XClassHeader> headers = XScanner.scanEntry(jar.getPath(), (entry, e) -> errors.add(e));
+
+      assertEquals(Arrays.asList(Sample.class.getName()), names(headers));
+      assertEquals(1, errors.size());
+      assertEquals(Why.BAD_EXTENSION, errors.get(0).getWhy());
+   }
+
+   /**
+    * An entry that cannot be opened is reported as a whole.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void unreadableJarIsReported() throws IOException
+   {
+      File jar = folder.newFile("broken.jar");
+      write(jar, new byte[] { 'n', 'o', 't', ' ', 'a', ' ', 'j', 'a', 'r' });
+
+      List<Xception> errors = new ArrayList<>();
+      List<XClassHeader> headers = XScanner.scanEntry(jar.getPath(), (entry, e) -> errors.add(e));
+
+      assertTrue(headers.isEmpty());
+      assertEquals(1, errors.size());
+      assertEquals(Why.EXTENSION_ERROR, errors.get(0).getWhy());
+   }
+
+   /**
+    * The class files of the packages refused by the filter are not read.
+    *
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   @Test
+   public void filteredPackagesAreNotRead() throws IOException
+   {
+      File directory = folder.newFolder("filtered");
+      write(new File(directory, SAMPLE), classFile(SAMPLE));
+      write(new File(directory, "other/Corrupt.class"), new byte[] { 0, 1, 2 });
+
+      List<Xception> errors = new ArrayList<>();
+      List<XClassHeader> headers = XScanner.scanEntry(directory.getPath(), XFilter.packages("net.alantea"),
+            (entry, e) -> errors.add(e));
+
+      assertEquals(Arrays.asList(Sample.class.getName()), names(headers));
+      assertTrue(errors.isEmpty());
+   }
+
+   /**
+    * Parallel and sequential scans find the same classes, by entry.
+    *
+    * @throws Exception the exception
+    */
+   @Test
+   public void parallelScanGivesSequentialResults() throws Exception
+   {
+      List<String> entries = new ArrayList<>();
+      for (int i = 0; i < 4; i++)
+      {
+         File directory = folder.newFolder("entry" + i);
+         write(new File(directory, SAMPLE), classFile(SAMPLE));
+         if (i % 2 == 0)
+         {
+            write(new File(directory, CONCRETE), classFile(CONCRETE));
+         }
+         entries.add(directory.getPath());
+      }
+
+      Map<String, List<XClassHeader>> sequential = XScanner.scan(entries, 1, (entry, e) -> { });
+      Map<String, List<XClassHeader>> parallel = XScanner.scan(entries, 4, (entry, e) -> { });
+
+      assertEquals(sequential.keySet(), parallel.keySet());
+      for (String entry : entries)
+      {
+         assertEquals(names(sequential.get(entry)), names(parallel.get(entry)));
+      }
+      assertEquals(2, sequential.get(entries.get(0)).size());
+      assertEquals(1, sequential.get(entries.get(1)).size());
+   }
+
+   /**
+    * Read a class file of the test classes.
+    *
+    * @param path the class file path
+    * @return the class file bytes
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private static byte[] classFile(String path) throws IOException
+   {
+      try (InputStream in = XScannerTest.class.getClassLoader().getResourceAsStream(path))
+      {
+         byte[] buffer = new byte[4096];
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         int n;
+         while ((n = in.read(buffer)) > 0)
+         {
+            out.write(buffer, 0, n);
+         }
+         return out.toByteArray();
+      }
+   }
+
+   /**
+    * Write a file, creating its directories.
+    *
+    * @param file the file
+    * @param bytes the content
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private static void write(File file, byte[] bytes) throws IOException
+   {
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), bytes);
+   }
+
+   /**
+    * Add a jar entry.
+    *
+    * @param out the jar stream
+    * @param name the entry name
+    * @param bytes the entry content
+    * @throws IOException Signals that an I/O exception has occurred.
+    */
+   private static void addEntry(JarOutputStream out, String name, byte[] bytes) throws IOException
+   {
+      out.putNextEntry(new JarEntry(name));
+      out.write(bytes);
+      out.closeEntry();
+   }
+
+   /**
+    * Gets the class names of headers.
+    *
+    * @param headers the headers
+    * @return the names, in order
+    */
+   private static List<String> names(List<XClassHeader> headers)
+   {
+      List<String> ret = new ArrayList<>();
+      for (XClassHeader header : headers)
+      {
+         ret.add(header.getName());
+      }
+      return ret;
+   }
+}